@@ -0,0 +1,915 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import RationalNumber.ImmutableRationalNumber;
+import RationalNumber.RationalNumber;
+
+/**
+ * Models an algebraic polynomial expression
+ *
+ * @author Kasper
+ *
+ * Immutable, persistent polynomial value. The terms are kept in chunks of at
+ * most a few dozen, each a pair of arrays of powers and coefficients sorted by
+ * descending power, and the chunks themselves are sorted the same way.
+ * Neither the chunks nor the coefficients in them are ever modified, so every
+ * operation returns a new value that shares all the chunks it did not touch
+ * with its inputs: adding a handful of terms to a long polynomial copies only
+ * the chunks they land in and the chunk directory. The coefficients are
+ * {@code ImmutableRationalNumber}s, which are shared with the inputs where
+ * they already were immutable. Instances can be shared between threads
+ * without copies or locks.
+ *
+ * The kernel mutators and the updating secondary methods throw
+ * {@code UnsupportedOperationException}; use {@code plus}, {@code minus},
+ * {@code times}, {@code quotient}, {@code remainder}, {@code derivative},
+ * {@code integral}, {@code withTerm} and {@code withoutTerm} instead.
+ * {@code newInstance} and {@code toMutable} hand out mutable
+ * {@code PolynomialSparse} instances, and {@code of} turns any polynomial into
+ * a value. Immutable values given to {@code add} or {@code subtract} of a
+ * mutable polynomial are left as they are instead of being cleared.
+ *
+ */
+public final class ImmutablePolynomial extends Polynomial {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of terms per chunk when a run of terms is cut into chunks. Chunks
+     * produced by merging hold up to twice as many before they are cut.
+     */
+    private static final int CHUNK = 32;
+
+    /**
+     * Powers of the terms, chunk by chunk, each strictly decreasing and every
+     * chunk below the one before it. No chunk is empty.
+     */
+    private final int[][] powers;
+
+    /**
+     * Coefficients parallel to {@code powers}, immutable and never zero.
+     */
+    private final RationalNumber[][] coefficients;
+
+    /**
+     * Number of terms.
+     */
+    private final int size;
+
+    /**
+     * Constructor from chunks that are owned by, or shared with, the new
+     * value.
+     */
+    private ImmutablePolynomial(int[][] powers, RationalNumber[][] coefficients, int size) {
+        this.powers = powers;
+        this.coefficients = coefficients;
+        this.size = size;
+    }
+
+    /**
+     * Constructor from the chunks collected in {@code powers} and
+     * {@code coefficients}.
+     */
+    private ImmutablePolynomial(List<int[]> powers, List<RationalNumber[]> coefficients) {
+        this.powers = powers.toArray(new int[powers.size()][]);
+        this.coefficients = coefficients.toArray(new RationalNumber[coefficients.size()][]);
+        int count = 0;
+        for (int[] chunk : this.powers) {
+            count += chunk.length;
+        }
+        this.size = count;
+    }
+
+    /**
+     * Appends the first {@code count} terms of {@code powers} and
+     * {@code coefficients} to the chunk lists, in one chunk if there are at
+     * most 2 * CHUNK of them and in chunks of CHUNK otherwise.
+     */
+    private static void cut(int[] powers, RationalNumber[] coefficients, int count,
+            List<int[]> powerChunks, List<RationalNumber[]> coefficientChunks) {
+        int step = (count <= 2 * CHUNK) ? count : CHUNK;
+        for (int from = 0; from < count; from += step) {
+            int length = Math.min(step, count - from);
+            int[] p = new int[length];
+            RationalNumber[] c = new RationalNumber[length];
+            System.arraycopy(powers, from, p, 0, length);
+            System.arraycopy(coefficients, from, c, 0, length);
+            powerChunks.add(p);
+            coefficientChunks.add(c);
+        }
+    }
+
+    /**
+     * Builds a value from terms sorted by descending power, taking ownership
+     * of the immutable coefficients.
+     */
+    private static ImmutablePolynomial build(int[] powers, RationalNumber[] coefficients,
+            int count) {
+        List<int[]> powerChunks = new ArrayList<>();
+        List<RationalNumber[]> coefficientChunks = new ArrayList<>();
+        cut(powers, coefficients, count, powerChunks, coefficientChunks);
+        return new ImmutablePolynomial(powerChunks, coefficientChunks);
+    }
+
+    /**
+     * Builds a value from coefficients indexed by power, null for zero.
+     */
+    private static ImmutablePolynomial build(RationalNumber[] a) {
+        int count = 0;
+        for (RationalNumber c : a) {
+            if (c != null && !c.equals(RationalNumber.ZERO)) {
+                count++;
+            }
+        }
+        int[] powers = new int[count];
+        RationalNumber[] coefficients = new RationalNumber[count];
+        int j = 0;
+        for (int power = a.length - 1; power >= 0; power--) {
+            if (a[power] != null && !a[power].equals(RationalNumber.ZERO)) {
+                powers[j] = power;
+                coefficients[j++] = ImmutableRationalNumber.valueOf(a[power]);
+            }
+        }
+        return build(powers, coefficients, count);
+    }
+
+    /**
+     * Collects the terms of {@code p} from the highest power down into fresh
+     * arrays stored in {@code powers[0]} and {@code coefficients[0]}, with
+     * immutable coefficients, negated if requested.
+     *
+     * @return the number of terms
+     */
+    private static int gather(Polynomial p, int[][] powers, RationalNumber[][] coefficients,
+            boolean negate) {
+        int[] count = new int[1];
+        p.forEachTerm((power, coefficient) -> count[0]++);
+        int[] ps = new int[count[0]];
+        RationalNumber[] cs = new RationalNumber[count[0]];
+        int[] next = new int[1];
+        p.forEachTerm((power, coefficient) -> {
+            ImmutableRationalNumber constant = ImmutableRationalNumber.valueOf(coefficient);
+            if (negate) {
+                constant = constant.negated();
+            }
+            ps[next[0]] = power;
+            cs[next[0]++] = constant;
+        });
+        powers[0] = ps;
+        coefficients[0] = cs;
+        return count[0];
+    }
+
+    /**
+     * Finds the chunk that holds, or would hold, {@code power}: the first
+     * chunk whose lowest power is at most {@code power}, or the last chunk.
+     *
+     * @requires this has at least one term
+     */
+    private int chunkOf(int power) {
+        int low = 0;
+        int high = this.powers.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int[] chunk = this.powers[mid];
+            if (chunk[chunk.length - 1] > power) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Binary search for {@code power} in a chunk sorted by descending power.
+     *
+     * @return the index of {@code power}, or a negative number if absent
+     */
+    private static int find(int[] chunk, int power) {
+        int low = 0;
+        int high = chunk.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (chunk[mid] > power) {
+                low = mid + 1;
+            } else if (chunk[mid] < power) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Adds (or subtracts) the {@code count} terms of {@code otherPowers} and
+     * {@code otherCoefficients}, sorted by descending power, to this. Chunks
+     * of this that no term lands in are shared with the result; the others
+     * are merged with their terms and cut again. The coefficients of the
+     * other terms must be immutable.
+     */
+    private ImmutablePolynomial merge(int[] otherPowers, RationalNumber[] otherCoefficients,
+            int count) {
+        if (count == 0) {
+            return this;
+        }
+        if (this.size == 0) {
+            return build(otherPowers, otherCoefficients, count);
+        }
+        List<int[]> powerChunks = new ArrayList<>(this.powers.length + 1);
+        List<RationalNumber[]> coefficientChunks = new ArrayList<>(this.powers.length + 1);
+        int j = 0;
+        for (int i = 0; i < this.powers.length; i++) {
+            int[] chunkPowers = this.powers[i];
+            RationalNumber[] chunkCoefficients = this.coefficients[i];
+            int k = j;
+            if (i == this.powers.length - 1) {                                  //last chunk takes the rest
+                k = count;
+            } else {
+                int lowest = chunkPowers[chunkPowers.length - 1];
+                while (k < count && otherPowers[k] >= lowest) {
+                    k++;
+                }
+            }
+            if (k == j) {                                                       //untouched, shared
+                powerChunks.add(chunkPowers);
+                coefficientChunks.add(chunkCoefficients);
+                continue;
+            }
+            int[] mergedPowers = new int[chunkPowers.length + k - j];
+            RationalNumber[] mergedCoefficients = new RationalNumber[mergedPowers.length];
+            int n = 0;
+            int a = 0;
+            while (a < chunkPowers.length || j < k) {
+                if (j == k || (a < chunkPowers.length && chunkPowers[a] > otherPowers[j])) {
+                    mergedPowers[n] = chunkPowers[a];
+                    mergedCoefficients[n++] = chunkCoefficients[a++];
+                } else if (a == chunkPowers.length || chunkPowers[a] < otherPowers[j]) {
+                    mergedPowers[n] = otherPowers[j];
+                    mergedCoefficients[n++] = otherCoefficients[j++];
+                } else {                                                        //same power
+                    RationalNumber sum = ((ImmutableRationalNumber) chunkCoefficients[a])
+                            .plus(otherCoefficients[j]);
+                    if (!sum.equals(RationalNumber.ZERO)) {
+                        mergedPowers[n] = chunkPowers[a];
+                        mergedCoefficients[n++] = sum;
+                    }
+                    a++;
+                    j++;
+                }
+            }
+            cut(mergedPowers, mergedCoefficients, n, powerChunks, coefficientChunks);
+        }
+        return new ImmutablePolynomial(powerChunks, coefficientChunks);
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor: the zero polynomial.
+     */
+    public ImmutablePolynomial() {
+        this(new int[0][], new RationalNumber[0][], 0);
+    }
+
+    /**
+     * Initialize an instance of polynomial with the given coefficients {@coeff},
+     * highest power first.
+     */
+    public ImmutablePolynomial(RationalNumber... coeff) {
+        this(ofArray(coeff));
+    }
+
+    /**
+     * Initialize an instance of polynomial with the given coefficients {@coeff},
+     * highest power first.
+     */
+    public ImmutablePolynomial(int... coeff) {
+        this(ofArray(coeff));
+    }
+
+    /**
+     * Copy constructor sharing the chunks of {@code source}.
+     */
+    private ImmutablePolynomial(ImmutablePolynomial source) {
+        this(source.powers, source.coefficients, source.size);
+    }
+
+    /**
+     * Value with the coefficients {@code coeff}, highest power first.
+     */
+    private static ImmutablePolynomial ofArray(RationalNumber[] coeff) {
+        RationalNumber[] a = new RationalNumber[coeff.length];
+        for (int i = 0; i < coeff.length; i++) {
+            a[coeff.length - 1 - i] = coeff[i];
+        }
+        return build(a);
+    }
+
+    /**
+     * Value with the coefficients {@code coeff}, highest power first.
+     */
+    private static ImmutablePolynomial ofArray(int[] coeff) {
+        RationalNumber[] a = new RationalNumber[coeff.length];
+        for (int i = 0; i < coeff.length; i++) {
+            a[coeff.length - 1 - i] = ImmutableRationalNumber.valueOf(coeff[i]);
+        }
+        return build(a);
+    }
+
+    /*
+     * Conversions ------------------------------------------------------------
+     */
+
+    /**
+     * Reports the immutable value of {@code p}. Immutable values are returned
+     * as they are; other polynomials are copied in a single pass over their
+     * terms, sharing their coefficients that are already immutable.
+     *
+     * @param p
+     *            the polynomial to be converted
+     *
+     * @return an immutable polynomial equal to p
+     */
+    public static ImmutablePolynomial of(Polynomial p) {
+        if (p instanceof ImmutablePolynomial) {
+            return (ImmutablePolynomial) p;
+        }
+        int[][] terms = new int[1][];
+        RationalNumber[][] values = new RationalNumber[1][];
+        int count = gather(p, terms, values, false);
+        return build(terms[0], values[0], count);
+    }
+
+    /**
+     * Copies this into a new mutable polynomial. Terms are appended from the
+     * highest power down, which costs amortized O(1) each.
+     *
+     * @return a {@code PolynomialSparse} equal to this
+     */
+    public Polynomial toMutable() {
+        Polynomial answer = new PolynomialSparse();
+        this.forEachTerm((power, coefficient) -> answer.addTerm(new RationalNumber(coefficient),
+                power));
+        return answer;
+    }
+
+    /*
+     * Value operations -------------------------------------------------------
+     */
+
+    /**
+     * Reports this + p.
+     *
+     * @param p
+     *            the polynomial to be added
+     *
+     * @return this + p, sharing the chunks of this that p does not touch
+     */
+    public ImmutablePolynomial plus(Polynomial p) {
+        int[][] terms = new int[1][];
+        RationalNumber[][] values = new RationalNumber[1][];
+        int count = gather(p, terms, values, false);
+        return this.merge(terms[0], values[0], count);
+    }
+
+    /**
+     * Reports this - p.
+     *
+     * @param p
+     *            the polynomial to be subtracted
+     *
+     * @return this - p, sharing the chunks of this that p does not touch
+     */
+    public ImmutablePolynomial minus(Polynomial p) {
+        int[][] terms = new int[1][];
+        RationalNumber[][] values = new RationalNumber[1][];
+        int count = gather(p, terms, values, true);
+        return this.merge(terms[0], values[0], count);
+    }
+
+    /**
+     * Reports -this.
+     *
+     * @return -this
+     */
+    public ImmutablePolynomial negate() {
+        RationalNumber[][] negated = new RationalNumber[this.coefficients.length][];
+        for (int i = 0; i < negated.length; i++) {
+            negated[i] = new RationalNumber[this.coefficients[i].length];
+            for (int j = 0; j < negated[i].length; j++) {
+                negated[i][j] = ((ImmutableRationalNumber) this.coefficients[i][j]).negated();
+            }
+        }
+        return new ImmutablePolynomial(this.powers, negated, this.size);
+    }
+
+    /**
+     * Reports this * p, computed by {@code PolynomialMultiplier}.
+     *
+     * @param p
+     *            the polynomial to be multiplied
+     *
+     * @return this * p
+     */
+    public ImmutablePolynomial times(Polynomial p) {
+        return build(PolynomialMultiplier.multiply(PolynomialMultiplier.coefficients(this),
+                PolynomialMultiplier.coefficients(p)));
+    }
+
+    /**
+     * Reports the quotient of this / p, computed by {@code PolynomialDivider}.
+     *
+     * @param p
+     *            the denominator polynomial
+     *
+     * @return the quotient of this / p
+     */
+    public ImmutablePolynomial quotient(Polynomial p) {
+        return build(PolynomialDivider.divide(PolynomialMultiplier.coefficients(this),
+                PolynomialMultiplier.coefficients(p)).getQuotient());
+    }
+
+    /**
+     * Reports the remainder of this / p, computed by {@code PolynomialDivider}.
+     *
+     * @param p
+     *            the denominator polynomial
+     *
+     * @return the remainder of this / p
+     */
+    public ImmutablePolynomial remainder(Polynomial p) {
+        return build(PolynomialDivider.divide(PolynomialMultiplier.coefficients(this),
+                PolynomialMultiplier.coefficients(p)).getRemainder());
+    }
+
+    /**
+     * Reports this + {@code constant} x ^ {@code power}. Only the chunk the
+     * term lands in is copied.
+     *
+     * @param constant
+     *            the coefficient of the term to be added
+     * @param power
+     *            the degree of the term to be added
+     *
+     * @return this + constant * (x ^ power)
+     */
+    public ImmutablePolynomial withTerm(RationalNumber constant, int power) {
+        if (constant.equals(RationalNumber.ZERO)) {
+            return this;
+        }
+        return this.merge(new int[] {power},
+                new RationalNumber[] {ImmutableRationalNumber.valueOf(constant)}, 1);
+    }
+
+    /**
+     * Reports this without its term raised to {@code power}. Only the chunk
+     * holding the term is copied.
+     *
+     * @param power
+     *            the degree of the term to be removed
+     *
+     * @return this - [the term of this raised to power]
+     */
+    public ImmutablePolynomial withoutTerm(int power) {
+        if (this.size == 0) {
+            return this;
+        }
+        int i = this.chunkOf(power);
+        int index = find(this.powers[i], power);
+        if (index < 0) {
+            return this;
+        }
+        int length = this.powers[i].length - 1;
+        int chunks = this.powers.length - ((length == 0) ? 1 : 0);
+        int[][] newPowers = new int[chunks][];
+        RationalNumber[][] newCoefficients = new RationalNumber[chunks][];
+        System.arraycopy(this.powers, 0, newPowers, 0, i);
+        System.arraycopy(this.coefficients, 0, newCoefficients, 0, i);
+        int rest = i;
+        if (length > 0) {
+            int[] p = new int[length];
+            RationalNumber[] c = new RationalNumber[length];
+            System.arraycopy(this.powers[i], 0, p, 0, index);
+            System.arraycopy(this.coefficients[i], 0, c, 0, index);
+            System.arraycopy(this.powers[i], index + 1, p, index, length - index);
+            System.arraycopy(this.coefficients[i], index + 1, c, index, length - index);
+            newPowers[i] = p;
+            newCoefficients[i] = c;
+            rest++;
+        }
+        System.arraycopy(this.powers, i + 1, newPowers, rest, this.powers.length - i - 1);
+        System.arraycopy(this.coefficients, i + 1, newCoefficients, rest,
+                this.powers.length - i - 1);
+        return new ImmutablePolynomial(newPowers, newCoefficients, this.size - 1);
+    }
+
+    /**
+     * Reports the derivative of this.
+     *
+     * @return d/dx(this)
+     */
+    public ImmutablePolynomial derivative() {
+        int[] terms = new int[this.size];
+        RationalNumber[] values = new RationalNumber[this.size];
+        int[] count = new int[1];
+        this.forEachTerm((power, coefficient) -> {
+            if (power != 0) {
+                terms[count[0]] = power - 1;
+                values[count[0]++] = ((ImmutableRationalNumber) coefficient)
+                        .times(ImmutableRationalNumber.valueOf(power));
+            }
+        });
+        return build(terms, values, count[0]);
+    }
+
+    /**
+     * Reports the indefinite integral of this.
+     *
+     * [WARNING]: Constant of integration "C" is not included in this operation
+     *
+     * @return the antiderivative F of this with F(0) = 0
+     */
+    public ImmutablePolynomial integral() {
+        int[] terms = new int[this.size];
+        RationalNumber[] values = new RationalNumber[this.size];
+        int[] count = new int[1];
+        this.forEachTerm((power, coefficient) -> {
+            terms[count[0]] = power + 1;
+            values[count[0]++] = ((ImmutableRationalNumber) coefficient)
+                    .dividedBy(ImmutableRationalNumber.valueOf(power + 1));
+        });
+        return build(terms, values, count[0]);
+    }
+
+    /**
+     * Reports this * {@code constant} X ^{@code degree}.
+     *
+     * @return this * constant * (x ^ degree)
+     */
+    @Override
+    public ImmutablePolynomial multiplyTerm(RationalNumber constant, int degree) {
+        if (constant.equals(RationalNumber.ZERO)) {
+            return new ImmutablePolynomial();
+        }
+        int[][] newPowers = new int[this.powers.length][];
+        RationalNumber[][] newCoefficients = new RationalNumber[this.powers.length][];
+        for (int i = 0; i < newPowers.length; i++) {
+            newPowers[i] = new int[this.powers[i].length];
+            newCoefficients[i] = new RationalNumber[this.powers[i].length];
+            for (int j = 0; j < newPowers[i].length; j++) {
+                newPowers[i][j] = this.powers[i][j] + degree;
+                newCoefficients[i][j] = ((ImmutableRationalNumber) this.coefficients[i][j])
+                        .times(constant);
+            }
+        }
+        return new ImmutablePolynomial(newPowers, newCoefficients, this.size);
+    }
+
+    /**
+     * Raises this to {@code exponent} through {@code PolynomialPower}.
+     *
+     * @return this ^ exponent
+     */
+    @Override
+    public ImmutablePolynomial power(int exponent) {
+        return of(super.power(exponent));
+    }
+
+    /**
+     * Computes the monic gcd of this and p through {@code PolynomialGcd}.
+     *
+     * @return gcd(this, p)
+     */
+    @Override
+    public ImmutablePolynomial gcd(Polynomial p) {
+        return of(super.gcd(p));
+    }
+
+    /**
+     * Computes the monic gcd of this and p and its cofactors through
+     * {@code PolynomialGcd}, all immutable.
+     *
+     * @return g, s and t with s * this + t * p = g
+     */
+    @Override
+    public PolynomialGcd.ExtendedGcd extendedGcd(Polynomial p) {
+        PolynomialGcd.ExtendedGcd bezout = super.extendedGcd(p);
+        return new PolynomialGcd.ExtendedGcd(of(bezout.getGcd()), of(bezout.getS()),
+                of(bezout.getT()));
+    }
+
+    /**
+     * Computes the monic lcm of this and p through {@code PolynomialGcd}.
+     *
+     * @return lcm(this, p)
+     */
+    @Override
+    public ImmutablePolynomial lcm(Polynomial p) {
+        return of(super.lcm(p));
+    }
+
+    /**
+     * Factors this through {@code PolynomialFactorizer}, with immutable
+     * factors.
+     *
+     * @return the unit and the irreducible factors of this
+     */
+    @Override
+    public PolynomialFactorizer.Factorization factor() {
+        PolynomialFactorizer.Factorization factorization = super.factor();
+        List<Polynomial> factors = new ArrayList<>();
+        int[] multiplicities = new int[factorization.size()];
+        for (int i = 0; i < multiplicities.length; i++) {
+            factors.add(of(factorization.getFactor(i)));
+            multiplicities[i] = factorization.getMultiplicity(i);
+        }
+        return new PolynomialFactorizer.Factorization(factorization.getUnit(),
+                Collections.unmodifiableList(factors), multiplicities);
+    }
+
+    /*
+     * Updating methods -------------------------------------------------------
+     */
+
+    /**
+     * Rejects every attempt to modify this.
+     */
+    private static UnsupportedOperationException immutable() {
+        return new UnsupportedOperationException("ImmutablePolynomial cannot be modified");
+    }
+
+    @Override
+    public void addTerm(RationalNumber constant, int power) {
+        throw immutable();
+    }
+
+    @Override
+    public RationalNumber removeTerm(int power) {
+        throw immutable();
+    }
+
+    @Override
+    public void clear() {
+        throw immutable();
+    }
+
+    @Override
+    public void transferFrom(Polynomial source) {
+        throw immutable();
+    }
+
+    @Override
+    public void add(Polynomial p) {
+        throw immutable();
+    }
+
+    @Override
+    public void subtract(Polynomial p) {
+        throw immutable();
+    }
+
+    @Override
+    public void multiply(Polynomial p) {
+        throw immutable();
+    }
+
+    @Override
+    public Polynomial divide(Polynomial p) {
+        throw immutable();
+    }
+
+    @Override
+    public void takeDerivative() {
+        throw immutable();
+    }
+
+    @Override
+    public void takeIntegral() {
+        throw immutable();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    /**
+     * Retrieves the term raised to {@code power} and reports its coefficient.
+     *
+     * @param power
+     *            the degree of the term to be found
+     *
+     * @return the coefficient
+     */
+    @Override
+    public RationalNumber getTerm(int power) {
+        RationalNumber answer = new RationalNumber(0);
+        if (this.size > 0) {
+            int i = this.chunkOf(power);
+            int index = find(this.powers[i], power);
+            if (index >= 0) {
+                answer = new RationalNumber(this.coefficients[i][index]);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Reports the degree of this.
+     *
+     * @return the highest power in {@code this}.
+     * @ensures degree = [the exponent of the highest order term in this]
+     *
+     */
+    @Override
+    public int degree() {
+        return (this.size == 0) ? 0 : this.powers[0][0];
+    }
+
+    /**
+     * Read-only cursor walking the chunks from the highest term.
+     */
+    private final class Cursor implements TermCursor {
+
+        /**
+         * Chunk of the current term.
+         */
+        private int chunk = 0;
+
+        /**
+         * Index of the current term in its chunk.
+         */
+        private int index = -1;
+
+        @Override
+        public boolean next() {
+            int[][] powers = ImmutablePolynomial.this.powers;
+            if (this.chunk < powers.length && ++this.index == powers[this.chunk].length) {
+                this.chunk++;
+                this.index = 0;
+            }
+            return this.chunk < powers.length;
+        }
+
+        @Override
+        public int power() {
+            return ImmutablePolynomial.this.powers[this.chunk][this.index];
+        }
+
+        @Override
+        public RationalNumber coefficient() {
+            return ImmutablePolynomial.this.coefficients[this.chunk][this.index];
+        }
+    }
+
+    /**
+     * Spliterator over a range of chunks, from the highest term down. Splits
+     * hand off the upper half of the remaining chunks.
+     */
+    private static final class TermSpliterator implements Spliterator<Monomial> {
+
+        /**
+         * The powers being traversed.
+         */
+        private final int[][] powers;
+
+        /**
+         * The coefficients being traversed.
+         */
+        private final RationalNumber[][] coefficients;
+
+        /**
+         * Chunk of the next term to be visited.
+         */
+        private int chunk;
+
+        /**
+         * Index of the next term in its chunk.
+         */
+        private int index;
+
+        /**
+         * One past the last chunk of the range.
+         */
+        private final int fence;
+
+        private TermSpliterator(int[][] powers, RationalNumber[][] coefficients, int chunk,
+                int fence) {
+            this.powers = powers;
+            this.coefficients = coefficients;
+            this.chunk = chunk;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Monomial> action) {
+            if (this.chunk < this.fence && this.index == this.powers[this.chunk].length) {
+                this.chunk++;
+                this.index = 0;
+            }
+            if (this.chunk < this.fence) {
+                action.accept(new Monomial(this.powers[this.chunk][this.index],
+                        this.coefficients[this.chunk][this.index]));
+                this.index++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<Monomial> trySplit() {
+            Spliterator<Monomial> prefix = null;
+            int first = (this.index == 0) ? this.chunk : this.chunk + 1;
+            if (this.fence - first >= 2) {
+                int mid = (first + this.fence) >>> 1;
+                TermSpliterator upper = new TermSpliterator(this.powers, this.coefficients,
+                        this.chunk, mid);
+                upper.index = this.index;
+                prefix = upper;
+                this.chunk = mid;
+                this.index = 0;
+            }
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long) (this.fence - this.chunk) * CHUNK;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL
+                    | Spliterator.IMMUTABLE;
+        }
+    }
+
+    /**
+     * Creates a read-only cursor over the nonzero terms of this, from the
+     * highest power down.
+     *
+     * @return a cursor positioned before the highest term of this
+     */
+    @Override
+    public TermCursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Calls {@code visitor} on every nonzero term of this, from the highest
+     * power down.
+     *
+     * @param visitor
+     *            the callback for each term
+     */
+    @Override
+    public void forEachTerm(TermVisitor visitor) {
+        for (int i = 0; i < this.powers.length; i++) {
+            int[] chunkPowers = this.powers[i];
+            RationalNumber[] chunkCoefficients = this.coefficients[i];
+            for (int j = 0; j < chunkPowers.length; j++) {
+                visitor.visit(chunkPowers[j], chunkCoefficients[j]);
+            }
+        }
+    }
+
+    /**
+     * Creates a splittable traversal over the nonzero terms of this, from the
+     * highest power down.
+     *
+     * @return a spliterator over the terms of this
+     */
+    @Override
+    public Spliterator<Monomial> spliterator() {
+        return new TermSpliterator(this.powers, this.coefficients, 0, this.powers.length);
+    }
+
+    /**
+     * Returns this: a value is its own perfect copy.
+     *
+     * @return this
+     */
+    @Override
+    public Polynomial dupe() {
+        return this;
+    }
+
+    /**
+     * Creates a new, empty, mutable polynomial for results built term by
+     * term, such as those of the engines.
+     *
+     * @return a new zero {@code PolynomialSparse}
+     */
+    @Override
+    public Polynomial newInstance() {
+        return new PolynomialSparse();
+    }
+}
@@ -0,0 +1,500 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import RationalNumber.RationalNumber;
+
+/**
+ * Arithmetic on residues and residue polynomials modulo a prime.
+ *
+ * @author Kasper
+ *
+ * Residues are longs in [0, p) for a prime p < 2^31, so that the product of
+ * two residues fits in a long. Polynomials are long arrays indexed by power
+ * with no trailing zeros; the zero polynomial is the empty array.
+ *
+ */
+public final class ModularArithmetic {
+
+    /**
+     * Largest prime below 2^31.
+     */
+    public static final long LARGEST_PRIME = 2147483647L;
+
+    /**
+     * Operand length below which Karatsuba recursion falls back to the
+     * schoolbook method.
+     */
+    private static final int KARATSUBA_THRESHOLD = 32;
+
+    /**
+     * Quotient length and divisor degree from which division inverts the
+     * reversed divisor as a power series instead of the schoolbook method.
+     */
+    private static final int NEWTON_THRESHOLD = 256;
+
+    /**
+     * No instances.
+     */
+    private ModularArithmetic() {
+    }
+
+    /**
+     * Checks that {@code p} can be used as a modulus.
+     *
+     * @param p
+     *            the proposed modulus
+     */
+    public static void checkModulus(long p) {
+        if (p < 2 || p > LARGEST_PRIME || !BigInteger.valueOf(p).isProbablePrime(40)) {
+            throw new IllegalArgumentException("Modulus must be a prime below 2^31: " + p);
+        }
+    }
+
+    /**
+     * Reports the largest prime strictly below {@code n}.
+     *
+     * @param n
+     *            the bound
+     * @return the largest prime less than n
+     *
+     * @requires n > 2
+     */
+    public static long previousPrime(long n) {
+        long candidate = n - 1;
+        while (!BigInteger.valueOf(candidate).isProbablePrime(40)) {
+            candidate--;
+        }
+        return candidate;
+    }
+
+    /**
+     * @return (a * b) mod p
+     */
+    public static long multiply(long a, long b, long p) {
+        return a * b % p;
+    }
+
+    /**
+     * @return (a + b) mod p
+     */
+    public static long add(long a, long b, long p) {
+        long sum = a + b;
+        return (sum >= p) ? sum - p : sum;
+    }
+
+    /**
+     * @return (a - b) mod p
+     */
+    public static long subtract(long a, long b, long p) {
+        long difference = a - b;
+        return (difference < 0) ? difference + p : difference;
+    }
+
+    /**
+     * @return (a ^ exponent) mod p
+     */
+    public static long power(long a, long exponent, long p) {
+        long answer = 1 % p;
+        long base = a % p;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) {
+                answer = answer * base % p;
+            }
+            base = base * base % p;
+            exponent >>= 1;
+        }
+        return answer;
+    }
+
+    /**
+     * Inverse of {@code a} modulo {@code p} by the extended Euclidean
+     * algorithm.
+     *
+     * @return a^-1 mod p
+     */
+    public static long inverse(long a, long p) {
+        long r0 = p;
+        long r1 = a % p;
+        long s0 = 0;
+        long s1 = 1;
+        while (r1 != 0) {
+            long q = r0 / r1;
+            long t = r0 - q * r1;
+            r0 = r1;
+            r1 = t;
+            t = s0 - q * s1;
+            s0 = s1;
+            s1 = t;
+        }
+        if (r0 != 1) {
+            throw new ArithmeticException(a + " is not invertible modulo " + p);
+        }
+        return (s0 < 0) ? s0 + p : s0;
+    }
+
+    /**
+     * @return n mod p in [0, p)
+     */
+    public static long residue(BigInteger n, long p) {
+        return n.mod(BigInteger.valueOf(p)).longValue();
+    }
+
+    /**
+     * Maps the rational {@code c} = n / d to n * d^-1 mod p.
+     *
+     * @return the residue of c
+     *
+     * @throws ArithmeticException
+     *             if p divides the denominator of c
+     */
+    public static long residue(RationalNumber c, long p) {
+        long numerator = residue(c.getNumerator(), p);
+        long denominator = residue(c.getDenominator(), p);
+        return multiply(numerator, inverse(denominator, p), p);
+    }
+
+    /**
+     * Drops trailing zeros from {@code a}.
+     *
+     * @return a, or a shorter copy of it
+     */
+    public static long[] trim(long[] a) {
+        int length = a.length;
+        while (length > 0 && a[length - 1] == 0) {
+            length--;
+        }
+        return (length == a.length) ? a : Arrays.copyOf(a, length);
+    }
+
+    /**
+     * Evaluates the residue polynomial {@code a} at {@code x} by Horner's
+     * scheme.
+     *
+     * @return a(x) mod p
+     */
+    public static long evaluate(long[] a, long x, long p) {
+        long answer = 0;
+        for (int i = a.length - 1; i >= 0; i--) {
+            answer = add(answer * x % p, a[i], p);
+        }
+        return answer;
+    }
+
+    /**
+     * Multiplies two residue polynomials, by number-theoretic transform when
+     * both are long enough and by Karatsuba's method otherwise. A modulus
+     * that needs three transform primes switches at four times the transform
+     * threshold.
+     *
+     * @return a * b mod p
+     */
+    public static long[] multiply(long[] a, long[] b, long p) {
+        if (a.length == 0 || b.length == 0) {
+            return new long[0];
+        }
+        int shorter = Math.min(a.length, b.length);
+        int length = a.length + b.length - 1;
+        int threshold = NumberTheoreticTransform.getThreshold();
+        if (length <= NumberTheoreticTransform.MAX_LENGTH
+                && (shorter >= 4L * threshold
+                        || (shorter >= threshold && NumberTheoreticTransform.supports(p, length)))) {
+            return NumberTheoreticTransform.multiply(a, b, p);
+        }
+        return trim(karatsuba(a, 0, a.length, b, 0, b.length, p));
+    }
+
+    /**
+     * Schoolbook product of a[aOff, aOff + aLen) and b[bOff, bOff + bLen).
+     * Sums are kept below p^2 so that no reduction is needed per product.
+     */
+    private static long[] schoolbook(long[] a, int aOff, int aLen, long[] b, int bOff, int bLen,
+            long p) {
+        long bound = p * p;
+        long[] answer = new long[aLen + bLen - 1];
+        for (int k = 0; k < answer.length; k++) {
+            long acc = 0;
+            int low = Math.max(0, k - bLen + 1);
+            int high = Math.min(k, aLen - 1);
+            for (int i = low; i <= high; i++) {
+                acc += a[aOff + i] * b[bOff + k - i];
+                if (acc >= bound) {
+                    acc -= bound;
+                }
+            }
+            answer[k] = acc % p;
+        }
+        return answer;
+    }
+
+    /**
+     * Karatsuba product of a[aOff, aOff + aLen) and b[bOff, bOff + bLen).
+     */
+    private static long[] karatsuba(long[] a, int aOff, int aLen, long[] b, int bOff, int bLen,
+            long p) {
+        if (aLen < bLen) {
+            return karatsuba(b, bOff, bLen, a, aOff, aLen, p);
+        }
+        if (bLen < KARATSUBA_THRESHOLD) {
+            return schoolbook(a, aOff, aLen, b, bOff, bLen, p);
+        }
+        long[] answer = new long[aLen + bLen - 1];
+        if (2 * bLen <= aLen) {                                                 //unbalanced, cut a into slices
+            for (int offset = 0; offset < aLen; offset += bLen) {
+                int sliceLen = Math.min(bLen, aLen - offset);
+                long[] slice = karatsuba(a, aOff + offset, sliceLen, b, bOff, bLen, p);
+                for (int i = 0; i < slice.length; i++) {
+                    answer[offset + i] = add(answer[offset + i], slice[i], p);
+                }
+            }
+            return answer;
+        }
+        int half = (aLen + 1) / 2;
+        int a1Len = aLen - half;
+        int b0Len = Math.min(half, bLen);
+        int b1Len = bLen - b0Len;
+
+        long[] low = karatsuba(a, aOff, half, b, bOff, b0Len, p);
+        long[] high = (b1Len == 0) ? new long[0]
+                : karatsuba(a, aOff + half, a1Len, b, bOff + half, b1Len, p);
+        long[] aSum = new long[half];
+        for (int i = 0; i < half; i++) {
+            aSum[i] = (i < a1Len) ? add(a[aOff + i], a[aOff + half + i], p) : a[aOff + i];
+        }
+        long[] bSum = new long[b0Len];
+        for (int i = 0; i < b0Len; i++) {
+            bSum[i] = (i < b1Len) ? add(b[bOff + i], b[bOff + half + i], p) : b[bOff + i];
+        }
+        long[] middle = karatsuba(aSum, 0, half, bSum, 0, b0Len, p);
+        for (int i = 0; i < low.length; i++) {                                  //middle = (a0+a1)(b0+b1) - low - high
+            middle[i] = subtract(middle[i], low[i], p);
+        }
+        for (int i = 0; i < high.length; i++) {
+            middle[i] = subtract(middle[i], high[i], p);
+        }
+        for (int i = 0; i < low.length; i++) {
+            answer[i] = low[i];
+        }
+        for (int i = 0; i < high.length; i++) {
+            answer[2 * half + i] = high[i];
+        }
+        for (int i = 0; i < middle.length && half + i < answer.length; i++) {
+            answer[half + i] = add(answer[half + i], middle[i], p);
+        }
+        return answer;
+    }
+
+    /**
+     * Divides residue polynomial {@code a} by {@code b}: by the schoolbook
+     * method, or for a long quotient and divisor from the power-series inverse
+     * of the reversed divisor, so that the cost is that of a few products.
+     *
+     * @return {quotient, remainder} with a = quotient * b + remainder mod p
+     *
+     * @requires b is not the zero polynomial
+     */
+    public static long[][] divide(long[] a, long[] b, long p) {
+        if (b.length == 0) {
+            throw new ArithmeticException("Division by the zero polynomial");
+        }
+        int m = b.length - 1;
+        int n = a.length - 1;
+        if (n < m) {
+            return new long[][] {new long[0], a.clone()};
+        }
+        if (n - m + 1 >= NEWTON_THRESHOLD && m >= NEWTON_THRESHOLD) {
+            return newtonDivide(a, b, p);
+        }
+        long[] remainder = a.clone();
+        long[] quotient = new long[n - m + 1];
+        long leadInverse = inverse(b[m], p);
+        for (int k = n - m; k >= 0; k--) {
+            long c = remainder[k + m] * leadInverse % p;
+            quotient[k] = c;
+            if (c != 0) {
+                for (int j = 0; j <= m; j++) {
+                    remainder[k + j] = subtract(remainder[k + j], c * b[j] % p, p);
+                }
+            }
+        }
+        return new long[][] {trim(quotient), trim(Arrays.copyOf(remainder, m))};
+    }
+
+    /**
+     * Divides a by b through the reversed quotient rev(a) / rev(b) mod x^(n -
+     * m + 1), the remainder following as a - quotient * b on its low m
+     * coefficients.
+     */
+    private static long[][] newtonDivide(long[] a, long[] b, long p) {
+        int m = b.length - 1;
+        int length = a.length - m;
+        long[] quotient = reverse(Arrays.copyOf(multiply(Arrays.copyOf(reverse(a), length),
+                inverseSeries(reverse(b), length, p), p), length));
+        long[] product = multiply(Arrays.copyOf(quotient, Math.min(length, m)),
+                Arrays.copyOf(b, m), p);
+        long[] remainder = new long[m];
+        for (int i = 0; i < m; i++) {
+            remainder[i] = subtract(a[i], (i < product.length) ? product[i] : 0, p);
+        }
+        return new long[][] {trim(quotient), trim(remainder)};
+    }
+
+    /**
+     * Inverts the power series {@code h}, with a nonzero constant term,
+     * modulo x^length by Newton iteration, g <- g (2 - h g), doubling the
+     * precision each step.
+     */
+    private static long[] inverseSeries(long[] h, int length, long p) {
+        long[] g = {inverse(h[0], p)};
+        for (int precision = 1; precision < length;) {
+            precision = Math.min(2 * precision, length);
+            long[] e = Arrays.copyOf(multiply(Arrays.copyOf(h, Math.min(h.length, precision)), g, p),
+                    precision);
+            for (int i = 0; i < precision; i++) {
+                e[i] = (p - e[i]) % p;
+            }
+            e[0] = add(e[0], 2 % p, p);
+            g = Arrays.copyOf(multiply(g, e, p), precision);
+        }
+        return g;
+    }
+
+    /**
+     * @return the coefficients of a in reverse order
+     */
+    private static long[] reverse(long[] a) {
+        long[] answer = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            answer[i] = a[a.length - 1 - i];
+        }
+        return answer;
+    }
+
+    /**
+     * Divides residue polynomial {@code a} by its leading coefficient.
+     *
+     * @return a / lc(a) mod p, or the empty array for 0
+     */
+    public static long[] monic(long[] a, long p) {
+        if (a.length == 0 || a[a.length - 1] == 1) {
+            return a;
+        }
+        long inverse = inverse(a[a.length - 1], p);
+        long[] answer = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            answer[i] = a[i] * inverse % p;
+        }
+        return answer;
+    }
+
+    /**
+     * Greatest common divisor of two residue polynomials by the Euclidean
+     * algorithm.
+     *
+     * @return the monic gcd of a and b mod p, the empty array if both are 0
+     */
+    public static long[] gcd(long[] a, long[] b, long p) {
+        long[] r0 = trim(a);
+        long[] r1 = trim(b);
+        while (r1.length > 0) {
+            long[] r = divide(r0, r1, p)[1];
+            r0 = r1;
+            r1 = r;
+        }
+        return monic(r0, p);
+    }
+
+    /**
+     * Extended Euclidean algorithm on residue polynomials. The cofactors are
+     * the ones of least degree: deg s < deg b - deg g and deg t < deg a - deg
+     * g whenever those bounds are positive.
+     *
+     * @return {g, s, t} with g the monic gcd of a and b and s * a + t * b = g
+     *         mod p
+     */
+    public static long[][] extendedGcd(long[] a, long[] b, long p) {
+        long[] r0 = trim(a);
+        long[] r1 = trim(b);
+        long[] s0 = {1};
+        long[] s1 = {};
+        long[] t0 = {};
+        long[] t1 = {1};
+        while (r1.length > 0) {
+            long[][] division = divide(r0, r1, p);
+            long[] s = subtract(s0, multiply(division[0], s1, p), p);
+            long[] t = subtract(t0, multiply(division[0], t1, p), p);
+            r0 = r1;
+            r1 = division[1];
+            s0 = s1;
+            s1 = s;
+            t0 = t1;
+            t1 = t;
+        }
+        if (r0.length == 0) {
+            return new long[][] {r0, new long[0], new long[0]};
+        }
+        long inverse = inverse(r0[r0.length - 1], p);
+        return new long[][] {scale(r0, inverse, p), scale(s0, inverse, p), scale(t0, inverse, p)};
+    }
+
+    /**
+     * Raises a residue polynomial to a power modulo {@code f} by repeated
+     * squaring.
+     *
+     * @return a ^ exponent mod (f, p)
+     *
+     * @requires f has degree at least 1
+     */
+    public static long[] powerMod(long[] a, BigInteger exponent, long[] f, long p) {
+        long[] answer = divide(new long[] {1 % p}, f, p)[1];
+        long[] base = divide(trim(a), f, p)[1];
+        for (int i = exponent.bitLength() - 1; i >= 0; i--) {
+            answer = divide(multiply(answer, answer, p), f, p)[1];
+            if (exponent.testBit(i)) {
+                answer = divide(multiply(answer, base, p), f, p)[1];
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * @return a - b mod p, trimmed
+     */
+    private static long[] subtract(long[] a, long[] b, long p) {
+        long[] answer = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for (int i = 0; i < b.length; i++) {
+            answer[i] = subtract(answer[i], b[i], p);
+        }
+        return trim(answer);
+    }
+
+    /**
+     * @return c * a mod p
+     */
+    private static long[] scale(long[] a, long c, long p) {
+        long[] answer = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            answer[i] = a[i] * c % p;
+        }
+        return trim(answer);
+    }
+
+    /**
+     * Raises a residue polynomial to a power by repeated squaring.
+     *
+     * @return a ^ exponent mod p
+     */
+    public static long[] power(long[] a, int exponent, long p) {
+        long[] answer = {1 % p};
+        long[] base = a;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) {
+                answer = multiply(answer, base, p);
+            }
+            exponent >>= 1;
+            if (exponent > 0) {
+                base = multiply(base, base, p);
+            }
+        }
+        return trim(answer);
+    }
+}
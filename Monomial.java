@@ -0,0 +1,50 @@
+import RationalNumber.RationalNumber;
+
+/**
+ * A single term coefficient * x ^ power of a polynomial
+ *
+ * @author Kasper
+ *
+ * Element type of {@code Polynomial.terms()}. The coefficient is the one held
+ * by the polynomial the term came from, so it must not be modified.
+ *
+ */
+public final class Monomial {
+
+    /**
+     * Exponent.
+     */
+    private final int power;
+
+    /**
+     * Constant.
+     */
+    private final RationalNumber coefficient;
+
+    /**
+     * Constructor for the term {@code coefficient} * x ^ {@code power}.
+     */
+    public Monomial(int power, RationalNumber coefficient) {
+        this.power = power;
+        this.coefficient = coefficient;
+    }
+
+    /**
+     * @return the degree of this term
+     */
+    public int getPower() {
+        return this.power;
+    }
+
+    /**
+     * @return the coefficient of this term
+     */
+    public RationalNumber getCoefficient() {
+        return this.coefficient;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + this.coefficient + ")x^" + this.power;
+    }
+}
@@ -0,0 +1,461 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import RationalNumber.RationalNumber;
+
+/**
+ * Multi-modular driver for polynomial arithmetic.
+ *
+ * @author Kasper
+ *
+ * Runs an operation on residues modulo several word-size primes, combines the
+ * images with the Chinese Remainder Theorem and recovers the exact rational
+ * result. Products and powers are computed on integer-scaled operands, where
+ * a coefficient bound fixes the number of primes in advance and the images
+ * can be computed in parallel. Quotients are recovered by rational
+ * reconstruction, adding primes until the candidate verifies exactly.
+ * Inputs are never modified.
+ *
+ */
+public final class MultiModular {
+
+    /**
+     * Log of the transform length supported by the first primes.
+     */
+    private static final int TRANSFORM_LOG = 20;
+
+    /**
+     * Primes used so far: those supporting transforms of length
+     * 2 ^ {@code TRANSFORM_LOG} first, then all others, largest first.
+     */
+    private static final List<Long> PRIMES = new ArrayList<>();
+
+    /**
+     * Last candidate examined after the transform-friendly primes.
+     */
+    private static long searched = ModularArithmetic.LARGEST_PRIME + 1;
+
+    /**
+     * No instances.
+     */
+    private MultiModular() {
+    }
+
+    /**
+     * An operation that can be computed modulo a prime.
+     */
+    public interface ModularOperation {
+
+        /**
+         * Computes the residues of the result modulo {@code prime}. Every call
+         * must return an array of the same length.
+         *
+         * @param prime
+         *            the modulus
+         *
+         * @return the image of the result, or null if {@code prime} is unlucky
+         *         and must be skipped
+         */
+        long[] image(long prime);
+    }
+
+    /**
+     * Reports the i-th prime of the sequence. Every prime exceeds 2^30 and
+     * the first ones let products run through the number-theoretic transform
+     * without a three-prime detour.
+     */
+    static long prime(int i) {
+        synchronized (PRIMES) {
+            if (PRIMES.isEmpty()) {
+                for (long p : NumberTheoreticTransform.primes(TRANSFORM_LOG)) {
+                    PRIMES.add(p);
+                }
+            }
+            while (PRIMES.size() <= i) {
+                do {
+                    searched = ModularArithmetic.previousPrime(searched);
+                } while ((searched - 1) % (1L << TRANSFORM_LOG) == 0);
+                PRIMES.add(searched);
+            }
+            return PRIMES.get(i);
+        }
+    }
+
+    /**
+     * Recovers a result whose coefficients are rationals from its images
+     * modulo successive primes. Whenever the number of primes has grown by a
+     * quarter, the accumulated residues are run through rational
+     * reconstruction; a complete candidate accepted by {@code check} is
+     * returned. Entries are first tried against the common denominator of
+     * those reconstructed before them, which spares the Euclidean algorithm
+     * for results over one denominator. The geometric schedule keeps the
+     * reconstruction attempts from
+     * dominating the cost, and the images between two attempts are computed
+     * in parallel, so {@code operation} must be safe to call concurrently.
+     *
+     * @param operation
+     *            the operation to run modulo each prime
+     * @param check
+     *            exact verification of a candidate result
+     *
+     * @return the result, with null for a zero entry
+     */
+    public static RationalNumber[] reconstruct(ModularOperation operation,
+            Predicate<RationalNumber[]> check) {
+        BigInteger modulus = BigInteger.ONE;
+        BigInteger[] combined = null;
+        RationalNumber[] candidate = null;
+        int failed = 0;                                                         //first entry to retry
+        int used = 0;
+        int attempt = 1;                                                        //primes needed for the next attempt
+        for (int next = 0; ; ) {
+            int first = next;
+            next += attempt - used;
+            long[][] images = IntStream.range(first, next).parallel()
+                    .mapToObj(i -> operation.image(prime(i))).toArray(long[][]::new);
+            for (int i = first; i < next; i++) {
+                long[] image = images[i - first];
+                if (image == null) {
+                    continue;
+                }
+                if (combined == null) {
+                    combined = new BigInteger[image.length];
+                    Arrays.fill(combined, BigInteger.ZERO);
+                    candidate = new RationalNumber[image.length];
+                }
+                long p = prime(i);
+                combine(combined, modulus, image, p);
+                modulus = modulus.multiply(BigInteger.valueOf(p));
+                used++;
+            }
+            if (used < attempt) {
+                continue;
+            }
+            attempt = used + Math.max(1, used / 4);
+            BigInteger half = modulus.shiftRight(1);
+            BigInteger bound = half.sqrt();
+            BigInteger scale = BigInteger.ONE;                                  //lcm of the denominators so far
+            boolean complete = true;
+            for (int k = 0; k < combined.length && complete; k++) {
+                int j = (failed + k) % combined.length;
+                BigInteger scaled = combined[j].multiply(scale).mod(modulus);
+                if (scaled.compareTo(half) > 0) {
+                    scaled = scaled.subtract(modulus);
+                }
+                if (scaled.signum() != 0 && scaled.abs().compareTo(bound) <= 0) { //shares the denominators seen
+                    candidate[j] = new RationalNumber(scaled, scale);
+                    continue;
+                }
+                candidate[j] = rational(combined[j], modulus, bound);
+                if (candidate[j] == null && combined[j].signum() != 0) {
+                    complete = false;
+                    failed = j;
+                } else if (candidate[j] != null) {
+                    BigInteger d = candidate[j].getDenominator();
+                    BigInteger lcm = scale.multiply(d).divide(scale.gcd(d));
+                    if (lcm.compareTo(bound) <= 0) {
+                        scale = lcm;
+                    }
+                }
+            }
+            if (complete && check.test(candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * Multiplies {@code a} by {@code b}.
+     *
+     * @param a
+     *            the first factor
+     * @param b
+     *            the second factor
+     *
+     * @return a * b, of the same type as a
+     */
+    public static Polynomial multiply(Polynomial a, Polynomial b) {
+        Polynomial answer = a.newInstance();
+        PolynomialMultiplier.fill(answer, multiply(PolynomialMultiplier.coefficients(a),
+                PolynomialMultiplier.coefficients(b)));
+        return answer;
+    }
+
+    /**
+     * Multiplies two coefficient arrays.
+     *
+     * @param a
+     *            the coefficients of the first factor, null for zero
+     * @param b
+     *            the coefficients of the second factor, null for zero
+     *
+     * @return the coefficients of a * b, of length a.length + b.length - 1
+     */
+    public static RationalNumber[] multiply(RationalNumber[] a, RationalNumber[] b) {
+        BigInteger aScale = commonDenominator(a);
+        BigInteger bScale = commonDenominator(b);
+        BigInteger[] product = multiply(scale(a, aScale), scale(b, bScale));
+        return unscale(product, aScale.multiply(bScale));
+    }
+
+    /**
+     * Raises {@code a} to {@code exponent}.
+     *
+     * @param a
+     *            the base
+     * @param exponent
+     *            the power to raise a to
+     *
+     * @return a ^ exponent, of the same type as a
+     *
+     * @requires exponent >= 0
+     */
+    public static Polynomial power(Polynomial a, int exponent) {
+        RationalNumber[] x = PolynomialMultiplier.coefficients(a);
+        BigInteger scale = commonDenominator(x);
+        BigInteger[] base = scale(x, scale);
+        BigInteger norm = BigInteger.ZERO;
+        for (BigInteger c : base) {
+            norm = norm.add(c.abs());
+        }
+        int length = (base.length == 0) ? 0 : (base.length - 1) * exponent + 1;
+        long bits = (long) exponent * norm.bitLength() + 1;                     //|coefficients| <= norm ^ exponent
+        BigInteger[] result = crt(length, bits, p -> ModularArithmetic.power(
+                ModularArithmetic.trim(residues(base, p)), exponent, p));
+        Polynomial answer = a.newInstance();
+        PolynomialMultiplier.fill(answer, unscale(result, scale.pow(exponent)));
+        return answer;
+    }
+
+    /**
+     * Divides {@code a} by {@code b}.
+     *
+     * @param a
+     *            the dividend
+     * @param b
+     *            the divisor
+     *
+     * @updates a
+     *
+     * @return the remainder of #a / b, of the same type as a
+     *
+     * @ensures a = #a / b and divide = [remainder of #a / b]
+     */
+    public static Polynomial divide(Polynomial a, Polynomial b) {
+        RationalNumber[] x = PolynomialMultiplier.coefficients(a);
+        RationalNumber[] y = PolynomialMultiplier.coefficients(b);
+        int m = y.length - 1;
+        if (m < 0 || y[m] == null) {
+            throw new ArithmeticException("Division by the zero polynomial");
+        }
+        Polynomial remainder = a.newInstance();
+        if (x.length - 1 < m) {
+            remainder.transferFrom(a);
+            return remainder;
+        }
+        BigInteger xScale = commonDenominator(x);
+        BigInteger yScale = commonDenominator(y);
+        BigInteger[] dividend = scale(x, xScale);
+        BigInteger[] divisor = scale(y, yScale);
+        int quotientLength = x.length - m;
+        RationalNumber[] result = reconstruct(p -> {
+            if (ModularArithmetic.residue(divisor[m], p) == 0) {                //leading coefficient vanishes
+                return null;
+            }
+            long[][] division = ModularArithmetic.divide(ModularArithmetic.trim(residues(dividend, p)),
+                    ModularArithmetic.trim(residues(divisor, p)), p);
+            long[] image = Arrays.copyOf(division[0], quotientLength + m);
+            System.arraycopy(division[1], 0, image, quotientLength, division[1].length);
+            return image;
+        }, candidate -> verifies(dividend, divisor, candidate, quotientLength));
+        RationalNumber[] quotient = unscale(result, 0, quotientLength, xScale, yScale);
+        PolynomialMultiplier.fill(remainder,
+                unscale(result, quotientLength, m, xScale, BigInteger.ONE));
+        PolynomialMultiplier.fill(a, quotient);
+        return remainder;
+    }
+
+    /**
+     * Checks A = Q * B + R exactly, where the candidate holds Q followed by R.
+     * Both sides are scaled by the common denominator of the candidate first.
+     */
+    private static boolean verifies(BigInteger[] dividend, BigInteger[] divisor,
+            RationalNumber[] candidate, int quotientLength) {
+        BigInteger scale = commonDenominator(candidate);
+        BigInteger[] scaled = scale(candidate, scale);
+        BigInteger[] product = multiply(Arrays.copyOf(scaled, quotientLength), divisor);
+        for (int i = 0; i < dividend.length; i++) {
+            BigInteger rhs = (i < product.length) ? product[i] : BigInteger.ZERO;
+            if (i < scaled.length - quotientLength) {
+                rhs = rhs.add(scaled[quotientLength + i]);
+            }
+            if (!dividend[i].multiply(scale).equals(rhs)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Multiplies integer coefficient arrays. The product coefficients are
+     * bounded by min(len) * max|a| * max|b|, which fixes the number of primes.
+     */
+    static BigInteger[] multiply(BigInteger[] a, BigInteger[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return new BigInteger[0];
+        }
+        long bits = (long) maxBitLength(a) + maxBitLength(b)
+                + 32 - Integer.numberOfLeadingZeros(Math.min(a.length, b.length)) + 1;
+        return crt(a.length + b.length - 1, bits, p -> ModularArithmetic.multiply(
+                ModularArithmetic.trim(residues(a, p)), ModularArithmetic.trim(residues(b, p)), p));
+    }
+
+    /**
+     * Computes the images of an integer result under enough primes for the
+     * product of the primes to exceed 2 ^ bits, in parallel, and combines them
+     * into symmetric residues.
+     */
+    private static BigInteger[] crt(int length, long bits, ModularOperation operation) {
+        int count = (int) ((bits + 1 + 29) / 30);                               //every prime exceeds 2^30
+        long[][] images = IntStream.range(0, count).parallel()
+                .mapToObj(i -> operation.image(prime(i))).toArray(long[][]::new);
+        BigInteger[] answer = new BigInteger[length];
+        Arrays.fill(answer, BigInteger.ZERO);
+        BigInteger modulus = BigInteger.ONE;
+        for (int i = 0; i < count; i++) {
+            long p = prime(i);
+            combine(answer, modulus, Arrays.copyOf(images[i], length), p);
+            modulus = modulus.multiply(BigInteger.valueOf(p));
+        }
+        BigInteger half = modulus.shiftRight(1);
+        for (int i = 0; i < length; i++) {
+            if (answer[i].compareTo(half) > 0) {
+                answer[i] = answer[i].subtract(modulus);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Folds the residues {@code image} modulo {@code p} into {@code combined},
+     * which holds residues modulo {@code modulus}, by incremental CRT:
+     * x = x + modulus * ((r - x) * modulus^-1 mod p).
+     */
+    static void combine(BigInteger[] combined, BigInteger modulus, long[] image, long p) {
+        long inverse = ModularArithmetic.inverse(ModularArithmetic.residue(modulus, p), p);
+        for (int i = 0; i < combined.length; i++) {
+            long r = (i < image.length) ? image[i] : 0;
+            long t = ModularArithmetic.subtract(r, ModularArithmetic.residue(combined[i], p), p)
+                    * inverse % p;
+            if (t != 0) {
+                combined[i] = combined[i].add(modulus.multiply(BigInteger.valueOf(t)));
+            }
+        }
+    }
+
+    /**
+     * Rational reconstruction: finds n / d = u mod modulus with |n|, d <=
+     * bound by the extended Euclidean algorithm, or null if there is none.
+     */
+    private static RationalNumber rational(BigInteger u, BigInteger modulus, BigInteger bound) {
+        BigInteger r0 = modulus;
+        BigInteger r1 = u;
+        BigInteger t0 = BigInteger.ZERO;
+        BigInteger t1 = BigInteger.ONE;
+        while (r1.compareTo(bound) > 0) {
+            BigInteger[] qr = r0.divideAndRemainder(r1);
+            r0 = r1;
+            r1 = qr[1];
+            BigInteger t = t0.subtract(qr[0].multiply(t1));
+            t0 = t1;
+            t1 = t;
+        }
+        if (r1.signum() == 0 || t1.abs().compareTo(bound) > 0 || !r1.gcd(t1).equals(BigInteger.ONE)) {
+            return null;
+        }
+        return new RationalNumber(r1, t1);
+    }
+
+    /**
+     * Reports the least common multiple of the denominators in {@code a}.
+     */
+    private static BigInteger commonDenominator(RationalNumber[] a) {
+        BigInteger answer = BigInteger.ONE;
+        for (RationalNumber c : a) {
+            if (c != null) {
+                BigInteger d = c.getDenominator();
+                answer = answer.multiply(d).divide(answer.gcd(d));
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Multiplies every entry of {@code a} by {@code scale}, which clears the
+     * denominators.
+     */
+    private static BigInteger[] scale(RationalNumber[] a, BigInteger scale) {
+        BigInteger[] answer = new BigInteger[a.length];
+        for (int i = 0; i < a.length; i++) {
+            answer[i] = (a[i] == null) ? BigInteger.ZERO
+                    : a[i].getNumerator().multiply(scale.divide(a[i].getDenominator()));
+        }
+        return answer;
+    }
+
+    /**
+     * Divides every entry of {@code a} by {@code scale}, null for zero.
+     */
+    private static RationalNumber[] unscale(BigInteger[] a, BigInteger scale) {
+        RationalNumber[] answer = new RationalNumber[a.length];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i].signum() != 0) {
+                answer[i] = new RationalNumber(a[i], scale);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Copies a[offset, offset + length), multiplying each entry by
+     * {@code numerator} / {@code denominator}.
+     */
+    private static RationalNumber[] unscale(RationalNumber[] a, int offset, int length,
+            BigInteger denominator, BigInteger numerator) {
+        RationalNumber[] answer = new RationalNumber[length];
+        RationalNumber factor = new RationalNumber(numerator, denominator);
+        for (int i = 0; i < length; i++) {
+            if (a[offset + i] != null) {
+                answer[i] = new RationalNumber(a[offset + i]);
+                answer[i].multiply(factor);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Reduces every entry of {@code a} modulo {@code p}.
+     */
+    static long[] residues(BigInteger[] a, long p) {
+        long[] answer = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            answer[i] = ModularArithmetic.residue(a[i], p);
+        }
+        return answer;
+    }
+
+    /**
+     * Reports the largest bit length of an entry of {@code a}.
+     */
+    private static int maxBitLength(BigInteger[] a) {
+        int answer = 0;
+        for (BigInteger c : a) {
+            answer = Math.max(answer, c.bitLength());
+        }
+        return answer;
+    }
+}
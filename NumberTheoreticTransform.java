@@ -0,0 +1,265 @@
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Number-theoretic transform multiplication of residue polynomials.
+ *
+ * @author Kasper
+ *
+ * Works on long arrays indexed by power, like {@code ModularArithmetic}.
+ * Products are computed by transforming both operands with iterative in-place
+ * butterflies, multiplying pointwise and transforming back, in O(n log n). A
+ * modulus p whose p - 1 is divisible by the transform length is used
+ * directly. Any other modulus below 2^31 goes through three fixed
+ * transform-friendly primes, whose product exceeds every coefficient of the
+ * integer product, and Garner's algorithm.
+ *
+ */
+public final class NumberTheoreticTransform {
+
+    /**
+     * Transform-friendly primes c * 2^k + 1 with k >= 23, used for moduli
+     * that do not support the transform length themselves.
+     */
+    private static final long[] PRIMES = {2013265921L, 998244353L, 469762049L};
+
+    /**
+     * Largest product length supported by all of {@code PRIMES} (2^23).
+     */
+    public static final int MAX_LENGTH = 1 << 23;
+
+    /**
+     * Primitive roots found so far, by modulus.
+     */
+    private static final Map<Long, Long> ROOTS = new ConcurrentHashMap<>();
+
+    /**
+     * Shorter operand length from which the transform replaces Karatsuba.
+     */
+    private static volatile int threshold = 384;
+
+    /**
+     * No instances.
+     */
+    private NumberTheoreticTransform() {
+    }
+
+    /**
+     * Reports the shorter operand length from which products of residue
+     * polynomials are computed by transform.
+     *
+     * @return the transform threshold
+     */
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Sets the shorter operand length from which products of residue
+     * polynomials are computed by transform.
+     *
+     * @param length
+     *            the new transform threshold
+     *
+     * @requires length >= 1
+     */
+    public static void setThreshold(int length) {
+        if (length < 1) {
+            throw new IllegalArgumentException("Transform threshold must be at least 1");
+        }
+        threshold = length;
+    }
+
+    /**
+     * Lists the primes c * 2 ^ {@code log} + 1 between 2^30 and 2^31, largest
+     * first. Each supports transforms of length up to 2 ^ {@code log}.
+     *
+     * @param log
+     *            the required power of two in p - 1
+     *
+     * @return the primes found
+     *
+     * @requires 1 <= log <= 30
+     */
+    public static long[] primes(int log) {
+        long step = 1L << log;
+        long[] found = new long[(int) Math.min(1 << 20, ModularArithmetic.LARGEST_PRIME / step)];
+        int count = 0;
+        for (long c = (ModularArithmetic.LARGEST_PRIME - 1) / step; c * step + 1 > (1L << 30); c--) {
+            long p = c * step + 1;
+            if (BigInteger.valueOf(p).isProbablePrime(40)) {
+                found[count++] = p;
+            }
+        }
+        long[] answer = new long[count];
+        System.arraycopy(found, 0, answer, 0, count);
+        return answer;
+    }
+
+    /**
+     * Reports whether transforms of {@code length} points exist modulo p.
+     *
+     * @return true iff the power of two at least length divides p - 1
+     */
+    public static boolean supports(long p, int length) {
+        int size = Integer.highestOneBit(Math.max(1, length - 1)) << 1;
+        return length <= 1 || (p - 1) % size == 0;
+    }
+
+    /**
+     * Multiplies two residue polynomials by transform.
+     *
+     * @param a
+     *            the first factor, entries in [0, p)
+     * @param b
+     *            the second factor, entries in [0, p)
+     * @param p
+     *            a prime below 2^31
+     *
+     * @return a * b mod p, with no trailing zeros
+     *
+     * @requires a.length + b.length - 1 <= MAX_LENGTH
+     */
+    public static long[] multiply(long[] a, long[] b, long p) {
+        if (a.length == 0 || b.length == 0) {
+            return new long[0];
+        }
+        int length = a.length + b.length - 1;
+        if (supports(p, length)) {
+            return ModularArithmetic.trim(convolve(a, b, p, length));
+        }
+        long p1 = PRIMES[0];
+        long p2 = PRIMES[1];
+        long p3 = PRIMES[2];
+        long[] r1 = convolve(a, b, p1, length);
+        long[] r2 = convolve(a, b, p2, length);
+        long[] r3 = convolve(a, b, p3, length);
+        long inverse1 = ModularArithmetic.inverse(p1 % p2, p2);
+        long inverse12 = ModularArithmetic.inverse(p1 % p3 * (p2 % p3) % p3, p3);
+        long p12 = p1 * p2 % p;
+        long[] answer = new long[length];
+        for (int i = 0; i < length; i++) {                                      //Garner: x = x1 + p1 * t2 + p1 * p2 * t3
+            long t2 = ModularArithmetic.subtract(r2[i], r1[i] % p2, p2) * inverse1 % p2;
+            long x12 = r1[i] + p1 * t2;                                         //< p1 * p2 < 2^62
+            long t3 = ModularArithmetic.subtract(r3[i], x12 % p3, p3) * inverse12 % p3;
+            answer[i] = (x12 % p + p12 * t3) % p;
+        }
+        return ModularArithmetic.trim(answer);
+    }
+
+    /**
+     * Cyclic convolution of a and b modulo the transform-friendly prime p,
+     * long enough to hold the {@code length} coefficients of the product.
+     */
+    private static long[] convolve(long[] a, long[] b, long p, int length) {
+        int size = Integer.highestOneBit(Math.max(1, length - 1)) << 1;
+        long[] x = new long[size];
+        long[] y = new long[size];
+        for (int i = 0; i < a.length; i++) {
+            x[i] = a[i] % p;
+        }
+        for (int i = 0; i < b.length; i++) {
+            y[i] = b[i] % p;
+        }
+        long root = root(p);
+        transform(x, root, p, false);
+        if (a == b) {                                                           //squaring
+            System.arraycopy(x, 0, y, 0, size);
+        } else {
+            transform(y, root, p, false);
+        }
+        for (int i = 0; i < size; i++) {
+            x[i] = x[i] * y[i] % p;
+        }
+        transform(x, root, p, true);
+        long[] answer = new long[length];
+        System.arraycopy(x, 0, answer, 0, length);
+        return answer;
+    }
+
+    /**
+     * In-place iterative radix-2 transform of {@code a}, whose length is a
+     * power of two dividing p - 1: bit-reversal permutation, then butterflies
+     * over blocks of doubling size.
+     */
+    private static void transform(long[] a, long root, long p, boolean inverse) {
+        int n = a.length;
+        for (int i = 1, j = 0; i < n; i++) {                                    //bit reversal
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                long t = a[i];
+                a[i] = a[j];
+                a[j] = t;
+            }
+        }
+        long[] twiddles = new long[Math.max(1, n >> 1)];
+        for (int len = 2; len <= n; len <<= 1) {
+            int half = len >> 1;
+            long w = ModularArithmetic.power(root, (p - 1) / len, p);
+            if (inverse) {
+                w = ModularArithmetic.inverse(w, p);
+            }
+            twiddles[0] = 1;
+            for (int j = 1; j < half; j++) {
+                twiddles[j] = twiddles[j - 1] * w % p;
+            }
+            for (int i = 0; i < n; i += len) {
+                for (int j = 0; j < half; j++) {
+                    long u = a[i + j];
+                    long v = a[i + j + half] * twiddles[j] % p;
+                    a[i + j] = ModularArithmetic.add(u, v, p);
+                    a[i + j + half] = ModularArithmetic.subtract(u, v, p);
+                }
+            }
+        }
+        if (inverse) {
+            long scale = ModularArithmetic.inverse(n, p);
+            for (int i = 0; i < n; i++) {
+                a[i] = a[i] * scale % p;
+            }
+        }
+    }
+
+    /**
+     * Finds a primitive root modulo the prime p: a g with g ^ ((p - 1) / q)
+     * != 1 for every prime q dividing p - 1.
+     */
+    private static long root(long p) {
+        Long known = ROOTS.get(p);
+        if (known != null) {
+            return known;
+        }
+        long[] factors = new long[32];
+        int count = 0;
+        long rest = p - 1;
+        for (long q = 2; q * q <= rest; q++) {
+            if (rest % q == 0) {
+                factors[count++] = q;
+                while (rest % q == 0) {
+                    rest /= q;
+                }
+            }
+        }
+        if (rest > 1) {
+            factors[count++] = rest;
+        }
+        long g = 2;
+        boolean primitive = false;
+        while (!primitive) {
+            primitive = true;
+            for (int i = 0; i < count && primitive; i++) {
+                primitive = ModularArithmetic.power(g, (p - 1) / factors[i], p) != 1;
+            }
+            if (!primitive) {
+                g++;
+            }
+        }
+        ROOTS.put(p, g);
+        return g;
+    }
+}
@@ -1,3 +1,8 @@
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import RationalNumber.ImmutableRationalNumber;
 import RationalNumber.RationalNumber;
 
 /**
@@ -13,7 +18,56 @@ import RationalNumber.RationalNumber;
  */
 public abstract class Polynomial implements PolynomialKernel {
 
-    public static final Polynomial ZERO = new PolynomialLinked();
+    /**
+     * The zero polynomial. It is immutable, so it can be shared freely.
+     */
+    public static final Polynomial ZERO = new ImmutablePolynomial();
+
+    /**
+     * Cached canonical fingerprint of this, or 0 if it must be recomputed.
+     */
+    private volatile long fingerprint;
+
+    /**
+     * Discards the cached fingerprint. Kernels call this from every method
+     * that changes the polynomial represented by this.
+     */
+    protected final void invalidate() {
+        if (this.fingerprint != 0) {
+            this.fingerprint = 0;
+        }
+    }
+
+    /**
+     * Reports the characteristic of the coefficient ring of this: 0 for the
+     * rationals, p for the integers modulo p.
+     *
+     * @return the characteristic of the coefficients
+     */
+    long characteristic() {
+        return 0;
+    }
+
+    /**
+     * Adds {@code constant} to the coefficient {@code stored} held by a
+     * kernel. A mutable coefficient is updated in place; an immutable one,
+     * which may be shared, is replaced by a new coefficient.
+     *
+     * @param stored
+     *            the coefficient held by the kernel
+     * @param constant
+     *            the coefficient to be added
+     *
+     * @return the coefficient the kernel must hold from now on
+     */
+    static RationalNumber accumulate(RationalNumber stored, RationalNumber constant) {
+        RationalNumber answer = stored;
+        if (stored instanceof ImmutableRationalNumber) {
+            answer = new RationalNumber(stored);
+        }
+        answer.add(constant);
+        return answer;
+    }
 
     /**
      * Negates p. Convenience method.
@@ -25,16 +79,27 @@ public abstract class Polynomial implements PolynomialKernel {
      *
      */
     private static void negate(Polynomial p) {
-        int power = p.degree();
-        if (power == 0) {
-            RationalNumber constant = p.removeTerm(0);
-            constant.negate();
-            p.addTerm(constant, 0);
-        } else {
-            RationalNumber constant = p.removeTerm(power);
-            negate(p);
+        Polynomial negated = p.newInstance();
+        p.forEachTerm((power, coefficient) -> {
+            RationalNumber constant = new RationalNumber(coefficient);
             constant.negate();
-            p.addTerm(constant, power);
+            negated.addTerm(constant, power);
+        });
+        p.transferFrom(negated);
+    }
+
+    /**
+     * Clears p, the consumed argument of an updating method, unless it is an
+     * immutable value, which is left as it is.
+     *
+     * @param p
+     *            the polynomial to be released
+     *
+     * @clears p
+     */
+    static void release(Polynomial p) {
+        if (!(p instanceof ImmutablePolynomial)) {
+            p.clear();
         }
     }
 
@@ -50,14 +115,8 @@ public abstract class Polynomial implements PolynomialKernel {
      * @ensures this = #this + p
      */
     public void add(Polynomial p) {
-        int power;
-        while (p.degree() > 0) {
-            power = p.degree();
-            RationalNumber constant = p.removeTerm(power);
-            this.addTerm(constant, power);
-        }
-        this.addTerm(p.removeTerm(0), 0);
-        p.clear();
+        p.forEachTerm((power, coefficient) -> this.addTerm(new RationalNumber(coefficient), power));
+        release(p);
     }
 
     // /**
@@ -94,8 +153,12 @@ public abstract class Polynomial implements PolynomialKernel {
      * @ensures this = #this - p
      */
     public void subtract(Polynomial p) {
-        negate(p);
-        this.add(p);
+        if (p instanceof ImmutablePolynomial) {
+            this.add(((ImmutablePolynomial) p).negate());
+        } else {
+            negate(p);
+            this.add(p);
+        }
     }
 
     // /**
@@ -129,15 +192,9 @@ public abstract class Polynomial implements PolynomialKernel {
      * @ensures this = #this * p
      */
     public void multiply(Polynomial p) {
-        Polynomial answer = this.newInstance();
-        int thisdegree = this.degree();
-        while(thisdegree != 0){
-            answer.add(p.multiplyTerm(this.removeTerm(thisdegree), thisdegree));
-            
-            thisdegree = this.degree();
-        }
-        answer.add(p.multiplyTerm(this.removeTerm(0), 0));
-        this.transferFrom(answer);
+        RationalNumber[] product = PolynomialMultiplier.multiply(
+                PolynomialMultiplier.coefficients(this), PolynomialMultiplier.coefficients(p));
+        PolynomialMultiplier.fill(this, product);
     }
 
     /**
@@ -151,41 +208,26 @@ public abstract class Polynomial implements PolynomialKernel {
      */
     public Polynomial multiplyTerm(RationalNumber constant, int degree) {
         Polynomial result = this.newInstance();
-        Polynomial thiscopy = this.dupe();
-        RationalNumber newconstant;
-        int thisdegree = thiscopy.degree();
-        while(thisdegree != 0){
-            newconstant = thiscopy.removeTerm(thisdegree);
+        this.forEachTerm((power, coefficient) -> {
+            RationalNumber newconstant = new RationalNumber(coefficient);
             newconstant.multiply(constant);
-
-            result.addTerm(newconstant, thisdegree + degree);
-
-            thisdegree = thiscopy.degree();
-        }
-        newconstant = thiscopy.removeTerm(0);
-        newconstant.multiply(constant);
-        result.addTerm(newconstant, 0 + degree);
+            result.addTerm(newconstant, power + degree);
+        });
         return result;
     }
 
     /**
-     * Multiplies this by p.
+     * Raises this to {@code exponent}.
      *
-     * @param p
-     *            the polynomial to be multiplied
-     * @updates this
+     * @param exponent
+     *            the power to raise this to
      *
-     * @clears p
+     * @return this ^ exponent, of the same type as this
      *
-     * @ensures this = #this * p
+     * @ensures power = this ^ exponent
      */
     public Polynomial power(int exponent) {
-        Polynomial answer = new PolynomialLinked(1);
-        for(int i = 0; i < exponent; i++){
-            answer.multiply(this);
-        }
-        return answer;
-
+        return PolynomialPower.power(this, exponent);
     }
 
 
@@ -202,26 +244,22 @@ public abstract class Polynomial implements PolynomialKernel {
     * @ensures this = #this / p and divide = [remainder of #this/p]
     */
     public Polynomial divide(Polynomial p) {
-        Polynomial quotient = this.newInstance();
-        Polynomial thiscopy = this.dupe();
-        Polynomial divisor = p.dupe();
-        RationalNumber pconstant = p.getTerm(p.degree());
-        int thiscopydegree = thiscopy.degree();
-        int divisordegree = p.degree();
-
-        while(thiscopydegree >= divisordegree){
-            RationalNumber thisconstant = thiscopy.getTerm(thiscopydegree);
-            thisconstant.divide(pconstant);
-            quotient.addTerm(thisconstant, thiscopydegree - divisordegree);
-            thiscopy.subtract(divisor.multiplyTerm(thisconstant, thiscopydegree - divisordegree));
-
-            divisor = p.dupe();
-            thiscopydegree = thiscopy.degree();
-        }
-        this.transferFrom(quotient);
-        return thiscopy;
-
+        PolynomialDivider.QuotientRemainder division = PolynomialDivider.divide(
+                PolynomialMultiplier.coefficients(this), PolynomialMultiplier.coefficients(p));
+        Polynomial remainder = this.newInstance();
+        PolynomialMultiplier.fill(remainder, division.getRemainder());
+        PolynomialMultiplier.fill(this, division.getQuotient());
+        return remainder;
+    }
 
+    /**
+     * Streams the nonzero terms of this from the highest power down, without
+     * modifying this. The stream may be made parallel.
+     *
+     * @return a stream over the terms of this
+     */
+    public Stream<Monomial> terms() {
+        return StreamSupport.stream(this.spliterator(), false);
     }
 
     /**
@@ -234,16 +272,204 @@ public abstract class Polynomial implements PolynomialKernel {
     * @ensures isDivisbleBy = (this % p == 0)
     */
     public boolean isDivisbleBy(Polynomial p) {
-        boolean answer = false;
-        Polynomial thiscopy = this.dupe();
-        Polynomial pcopy = p.dupe();
+        return PolynomialDivider.divides(PolynomialMultiplier.coefficients(p),
+                PolynomialMultiplier.coefficients(this));
+    }
+
+    /**
+     * Computes the greatest common divisor of this and p.
+     *
+     * @param p
+     *            the other polynomial
+     *
+     * @return the monic gcd of this and p, of the same type as this
+     *
+     * @ensures gcd divides this and p and every common divisor divides gcd
+     */
+    public Polynomial gcd(Polynomial p) {
+        return PolynomialGcd.gcd(this, p);
+    }
+
+    /**
+     * Computes the greatest common divisor g of this and p with cofactors s
+     * and t of least degree.
+     *
+     * @param p
+     *            the other polynomial
+     *
+     * @return g, s and t, of the same type as this
+     *
+     * @ensures s * this + t * p = g = gcd(this, p)
+     */
+    public PolynomialGcd.ExtendedGcd extendedGcd(Polynomial p) {
+        return PolynomialGcd.extendedGcd(this, p);
+    }
+
+    /**
+     * Computes the least common multiple of this and p.
+     *
+     * @param p
+     *            the other polynomial
+     *
+     * @return the monic lcm of this and p, of the same type as this
+     *
+     * @ensures this and p divide lcm and lcm divides every common multiple
+     */
+    public Polynomial lcm(Polynomial p) {
+        return PolynomialGcd.lcm(this, p);
+    }
+
+    /**
+     * Factors this into irreducible factors over the rationals.
+     *
+     * @return the unit and the irreducible factors of this with their
+     *         multiplicities, the factors of the same type as this
+     *
+     * @ensures this = unit * product of factor ^ multiplicity
+     */
+    public PolynomialFactorizer.Factorization factor() {
+        return PolynomialFactorizer.factor(this);
+    }
 
-        Polynomial rem = thiscopy.divide(pcopy);
-        if (rem.equals(PolynomialLinked.ZERO)) {
-            answer = true;
+    /**
+     * Finds the rational roots of this.
+     *
+     * @return the rational roots of this in ascending order, each repeated
+     *         according to its multiplicity
+     *
+     * @requires this /= 0
+     * @ensures for each r in rationalRoots, this(r) = 0
+     */
+    public List<RationalNumber> rationalRoots() {
+        return PolynomialRoots.rationalRoots(this);
+    }
+
+    /**
+     * Isolates the real roots of this.
+     *
+     * @return disjoint intervals with rational endpoints, one around each
+     *         distinct real root of this, in ascending order
+     *
+     * @requires this /= 0
+     */
+    public List<PolynomialRoots.Interval> isolateRealRoots() {
+        return PolynomialRoots.isolateRealRoots(this);
+    }
+
+    /**
+     * Value of this, its derivative and its antiderivative at a single point,
+     * as computed by {@code evaluateAll}.
+     */
+    public static final class Evaluation {
+
+        /**
+         * f(x).
+         */
+        private final RationalNumber value;
+
+        /**
+         * f'(x), or null if it was not requested.
+         */
+        private final RationalNumber derivative;
+
+        /**
+         * F(x) where F is the antiderivative of f with F(0) = 0, or null if it
+         * was not requested.
+         */
+        private final RationalNumber integral;
+
+        Evaluation(RationalNumber value, RationalNumber derivative,
+                RationalNumber integral) {
+            this.value = value;
+            this.derivative = derivative;
+            this.integral = integral;
         }
 
-        return answer;
+        /**
+         * @return f(x)
+         */
+        public RationalNumber getValue() {
+            return this.value;
+        }
+
+        /**
+         * @return f'(x)
+         */
+        public RationalNumber getDerivative() {
+            return this.derivative;
+        }
+
+        /**
+         * @return F(x), the antiderivative without constant of integration
+         */
+        public RationalNumber getIntegral() {
+            return this.integral;
+        }
+    }
+
+    /**
+     * Horner scheme over the nonzero terms of this, from the leading term down.
+     * Gaps between consecutive powers are bridged with a single power of x.
+     * Reads this through a {@code TermCursor}; this is neither copied nor
+     * modified.
+     *
+     * @param x
+     *            the value used to evaluate the expression
+     * @param derivative
+     *            whether f'(x) is accumulated as well
+     * @param integral
+     *            whether F(x) is accumulated as well
+     *
+     * @return f(x), and f'(x) and F(x) if requested
+     */
+    private Evaluation horner(RationalNumber x, boolean derivative, boolean integral) {
+        RationalNumber value = new RationalNumber();
+        RationalNumber slope = derivative ? new RationalNumber() : null;
+        RationalNumber area = integral ? new RationalNumber() : null;
+        int previous = -1;
+        int previousSlope = 0;
+        TermCursor cursor = this.cursor();
+        while (cursor.next()) {
+            int power = cursor.power();
+            RationalNumber constant = cursor.coefficient();
+            if (previous >= 0) {
+                RationalNumber step = (previous - power == 1) ? x : x.power(previous - power);
+                value.multiply(step);
+                if (integral) {
+                    area.multiply(step);
+                }
+                if (derivative && power > 0) {
+                    slope.multiply(step);
+                }
+            }
+            value.add(constant);
+            if (integral) {
+                RationalNumber scaled = new RationalNumber(constant);
+                scaled.divide(new RationalNumber(power + 1));
+                area.add(scaled);
+            }
+            if (derivative && power > 0) {
+                RationalNumber scaled = new RationalNumber(constant);
+                scaled.multiply(new RationalNumber(power));
+                slope.add(scaled);
+                previousSlope = power;
+            }
+            previous = power;
+        }
+        if (previous > 0) {                                                     //remaining x^lowest factor
+            RationalNumber step = x.power(previous);
+            value.multiply(step);
+            if (integral) {
+                area.multiply(step);
+            }
+        }
+        if (integral) {
+            area.multiply(x);
+        }
+        if (derivative && previousSlope > 1) {
+            slope.multiply(x.power(previousSlope - 1));
+        }
+        return new Evaluation(value, slope, area);
     }
 
     /**
@@ -257,22 +483,38 @@ public abstract class Polynomial implements PolynomialKernel {
     * @ensures evaluateAt = f({@code x}) where f(x) = this
     */
     public RationalNumber evaluateAt(RationalNumber x) {
-       Polynomial thiscopy = this.dupe();
-       RationalNumber answer = new RationalNumber();
-    
-       int thisdegree = thiscopy.degree();
-       RationalNumber constant;
-
-       while (thisdegree != 0) {
-            constant = thiscopy.removeTerm(thisdegree);
-            constant.multiply(x.power(thisdegree));
-            answer.add(constant);
-            thisdegree = thiscopy.degree();
-        }
-        answer.add(thiscopy.removeTerm(0));
-       
-        return answer;
-   }
+        return this.horner(x, false, false).getValue();
+    }
+
+    /**
+    * Evaluates this at each of {@code points}.
+    *
+    * @param points
+    *            the values used to evaluate the expression
+    *
+    * @return the evaluations of this at the points, in the same order
+    *
+    * @ensures evaluateAt[i] = f({@code points[i]}) where f(x) = this
+    */
+    public RationalNumber[] evaluateAt(RationalNumber[] points) {
+        return PolynomialEvaluator.evaluate(this, points);
+    }
+
+    /**
+    * Evaluates this, its derivative and its antiderivative at x = {@code x}
+    * in a single Horner pass.
+    *
+    * [WARNING]: Constant of integration "C" is not included in this operation
+    *
+    * @param x
+    *            the value used to evaluate the expression
+    *
+    * @return f({@code x}), f'({@code x}) and F({@code x}) where F is the
+    *         indefinite integral of f
+    */
+    public Evaluation evaluateAll(RationalNumber x) {
+        return this.horner(x, true, true);
+    }
 
     /**
     * takes the derivative of this.
@@ -283,17 +525,16 @@ public abstract class Polynomial implements PolynomialKernel {
     *
     */
     public void takeDerivative() {
-       Polynomial temp = this.newInstance();
-       int thisdegree = this.degree();
-       RationalNumber thisconstant;
-       while (thisdegree != 0) {
-           thisconstant = this.removeTerm(thisdegree);
-           thisconstant.multiply(new RationalNumber(thisdegree));
-           temp.addTerm(thisconstant, thisdegree - 1);
-           thisdegree = this.degree();
-       }
-       this.transferFrom(temp);
-   }
+        Polynomial temp = this.newInstance();
+        this.forEachTerm((thisdegree, coefficient) -> {
+            if (thisdegree != 0) {
+                RationalNumber thisconstant = new RationalNumber(coefficient);
+                thisconstant.multiply(new RationalNumber(thisdegree));
+                temp.addTerm(thisconstant, thisdegree - 1);
+            }
+        });
+        this.transferFrom(temp);
+    }
 
     /**
     * Evaluates and returns the derivative of this at {@code x}
@@ -303,10 +544,7 @@ public abstract class Polynomial implements PolynomialKernel {
     *
     */
     public RationalNumber derivativeAt(RationalNumber x) {
-        Polynomial thiscopy = this.dupe();
-        thiscopy.takeDerivative();
-        RationalNumber answer = thiscopy.evaluateAt(x);
-        return answer;
+        return this.horner(x, true, false).getDerivative();
     }
 
     /**
@@ -319,21 +557,13 @@ public abstract class Polynomial implements PolynomialKernel {
     */
     public void takeIntegral() {
         Polynomial temp = this.newInstance();
-
-        int thisdegree = this.degree();
-        RationalNumber thisconstant;
-        
-        while (thisdegree != 0) {
-            thisconstant = this.removeTerm(thisdegree);
+        this.forEachTerm((thisdegree, coefficient) -> {
+            RationalNumber thisconstant = new RationalNumber(coefficient);
             thisconstant.divide(new RationalNumber(thisdegree + 1));
             temp.addTerm(thisconstant, thisdegree + 1);
-            thisdegree = this.degree();
-        }
-        thisconstant = this.removeTerm(0);
-        temp.addTerm(thisconstant, 1);
-
+        });
         this.transferFrom(temp);
-   }
+    }
 
     /**
     * Evaluates the definite integral of this
@@ -344,10 +574,8 @@ public abstract class Polynomial implements PolynomialKernel {
     *
     */
     public RationalNumber definiteIntegral(RationalNumber upperbound, RationalNumber lowerbound) {
-        Polynomial thiscopy = this.dupe();
-        thiscopy.takeIntegral();
-        RationalNumber answer = thiscopy.evaluateAt(upperbound);
-        answer.subtract(thiscopy.evaluateAt(lowerbound));
+        RationalNumber answer = this.horner(upperbound, false, true).getIntegral();
+        answer.subtract(this.horner(lowerbound, false, true).getIntegral());
         return answer;
     }
 
@@ -358,39 +586,110 @@ public abstract class Polynomial implements PolynomialKernel {
     */
     @Override
     public String toString() {
-        Polynomial thisduplicate = this.dupe();
         StringBuilder answer = new StringBuilder();
-        int thisdegree;
-        RationalNumber thisconstant;
-        while (this.degree() > 0) {
-            thisdegree = this.degree();
-            thisconstant = this.removeTerm(thisdegree);
-            if(!thisconstant.equals(RationalNumber.ONE)){
-                answer.append("(" + thisconstant + ")");
-            }
-            answer.append("x");
-            if(thisdegree != 1){
-                answer.append("^" + thisdegree );
+        RationalNumber thisconstant = RationalNumber.ZERO;
+        TermCursor cursor = this.cursor();
+        while (cursor.next()) {
+            int thisdegree = cursor.power();
+            if (thisdegree == 0) {
+                thisconstant = cursor.coefficient();
+            } else {
+                if (!cursor.coefficient().equals(RationalNumber.ONE)) {
+                    answer.append("(" + cursor.coefficient() + ")");
+                }
+                answer.append("x");
+                if (thisdegree != 1) {
+                    answer.append("^" + thisdegree);
+                }
+                answer.append(" + ");
             }
-            answer.append( " + ");
         }
-        thisconstant = this.removeTerm(0);
         answer.append("(" + thisconstant + ")");
-        
-        this.transferFrom(thisduplicate);
         return answer.toString();
     }
 
 
     /**
-     * Returns True iff this and p are identical in content.
+     * Reports a 64-bit hash of the terms of this, equal for equal polynomials
+     * of any kernel. It is computed once and cached until this is modified;
+     * coefficient objects owned by this must not be modified from outside.
      *
-     * @param p
-     *            the Polynomial to be compared to this
-     * @return p = this
+     * @return the canonical fingerprint of this
+     */
+    public long fingerprint() {
+        long answer = this.fingerprint;
+        if (answer == 0) {
+            answer = 0x9E3779B97F4A7C15L ^ this.characteristic();
+            TermCursor cursor = this.cursor();
+            while (cursor.next()) {
+                answer = (answer ^ mix(cursor.power() + 0x632BE59BD9B4E019L))
+                        * 0xBF58476D1CE4E5B9L + cursor.coefficient().fingerprint();
+            }
+            answer = mix(answer);
+            if (answer == 0) {                                                  //0 marks "not computed"
+                answer = 1;
+            }
+            this.fingerprint = answer;
+        }
+        return answer;
+    }
+
+    /**
+     * Finalization step of SplitMix64.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns True iff {@code o} is a polynomial with the same terms as this,
+     * whatever its kernel. Terms are compared from the highest power down and
+     * the comparison stops at the first mismatch.
+     *
+     * @param o
+     *            the object to be compared to this
+     * @return o = this
      */
-    public boolean equals(Polynomial p) {
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Polynomial)) {
+            return false;
+        }
+        Polynomial p = (Polynomial) o;
+        if (this.characteristic() != p.characteristic() || this.degree() != p.degree()) {
+            return false;
+        }
+        long mine = this.fingerprint;
+        long theirs = p.fingerprint;
+        if (mine != 0 && theirs != 0 && mine != theirs) {                       //both cached
+            return false;
+        }
+        TermCursor left = this.cursor();
+        TermCursor right = p.cursor();
+        boolean more = left.next();
+        boolean equal = more == right.next();
+        while (equal && more) {
+            equal = left.power() == right.power()
+                    && left.coefficient().equals(right.coefficient());
+            more = left.next();
+            equal = equal && more == right.next();
+        }
+        return equal;
+    }
 
-        return this.toString().equals(p.toString());
+    /**
+     * Hash code consistent with {@code equals}, derived from the fingerprint.
+     *
+     * @return the hash code of this
+     */
+    @Override
+    public int hashCode() {
+        long f = this.fingerprint();
+        return (int) (f ^ (f >>> 32));
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,509 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import RationalNumber.RationalNumber;
+
+/**
+ * Memoization cache for expensive polynomial operations.
+ *
+ * @author Kasper
+ *
+ * Sits in front of division, powers, derivatives, integrals, gcds and
+ * factorizations: callers route an operation through a cache instead of
+ * calling it on the polynomial, with the same contract. Entries are keyed by
+ * the operation, the class of the first operand, which decides the class of
+ * the result, and the values of the operands, hashed by their canonical
+ * fingerprints and compared with {@code equals}; the characteristic is part
+ * of both, so a residue polynomial never matches a rational one. Keys and
+ * results are private copies that never leave the cache: a hit hands out the
+ * {@code dupe} of the cached result, of the class the operation itself
+ * returned, so no caller can reach or corrupt an entry. Immutable results are
+ * their own copies and are shared.
+ *
+ * The cache is bounded by a number of entries and by an estimate of the bytes
+ * held by its keys and results, and evicts the least recently used entries
+ * to stay within both. Lookups and updates are serialized on one lock, held
+ * only for the map operations; the operations themselves run outside it, so
+ * two threads missing on the same key both compute it and the second result
+ * replaces the first. Hits, misses and evictions are counted.
+ *
+ */
+public final class PolynomialCache {
+
+    /**
+     * Estimated bytes of a polynomial before its terms, and of a term before
+     * the magnitudes of its numerator and denominator.
+     */
+    private static final int POLYNOMIAL_BYTES = 48;
+
+    private static final int TERM_BYTES = 64;
+
+    /**
+     * Entries from the least to the most recently used.
+     */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final int maxEntries;
+
+    private final long maxBytes;
+
+    /**
+     * Estimated bytes held by the entries.
+     */
+    private long bytes;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxEntries
+     *            the most entries held at once
+     * @param maxBytes
+     *            the most estimated bytes held at once
+     *
+     * @requires maxEntries >= 1 and maxBytes >= 1
+     */
+    public PolynomialCache(int maxEntries, long maxBytes) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Entry bound must be at least 1");
+        }
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Byte bound must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Counters of a cache at one moment.
+     */
+    public static final class Stats {
+
+        private final long hits;
+
+        private final long misses;
+
+        private final long evictions;
+
+        private final int entries;
+
+        private final long bytes;
+
+        Stats(long hits, long misses, long evictions, int entries, long bytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.entries = entries;
+            this.bytes = bytes;
+        }
+
+        /**
+         * @return the number of lookups answered from the cache
+         */
+        public long getHits() {
+            return this.hits;
+        }
+
+        /**
+         * @return the number of lookups that ran the operation
+         */
+        public long getMisses() {
+            return this.misses;
+        }
+
+        /**
+         * @return the number of entries evicted to respect the bounds
+         */
+        public long getEvictions() {
+            return this.evictions;
+        }
+
+        /**
+         * @return the number of entries held
+         */
+        public int getEntries() {
+            return this.entries;
+        }
+
+        /**
+         * @return the estimated bytes held by the entries
+         */
+        public long getBytes() {
+            return this.bytes;
+        }
+
+        /**
+         * @return hits / (hits + misses), or 0 before any lookup
+         */
+        public double getHitRate() {
+            long lookups = this.hits + this.misses;
+            return (lookups == 0) ? 0 : (double) this.hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "hits " + this.hits + ", misses " + this.misses + ", evictions "
+                    + this.evictions + ", entries " + this.entries + ", bytes " + this.bytes;
+        }
+    }
+
+    /**
+     * Reports the counters of this.
+     *
+     * @return a snapshot of the statistics of this
+     */
+    public Stats getStats() {
+        synchronized (this.entries) {
+            return new Stats(this.hits, this.misses, this.evictions, this.entries.size(), this.bytes);
+        }
+    }
+
+    /**
+     * Removes every entry, keeping the counters.
+     *
+     * @clears this
+     */
+    public void clear() {
+        synchronized (this.entries) {
+            this.entries.clear();
+            this.bytes = 0;
+        }
+    }
+
+    /**
+     * Divides {@code a} by {@code b}, as {@code a.divide(b)}.
+     *
+     * @param a
+     *            the dividend
+     * @param b
+     *            the divisor
+     *
+     * @updates a
+     *
+     * @return the remainder of #a / b, of the type a.divide(b) returns
+     *
+     * @ensures a = #a / b and divide = [remainder of #a / b]
+     */
+    public Polynomial divide(Polynomial a, Polynomial b) {
+        Key key = new Key(Operation.DIVIDE, 0, a, b);
+        Entry hit = this.lookup(key);
+        if (hit != null) {
+            assign(a, hit.results[0]);
+            return hit.results[1].dupe();
+        }
+        Key stored = key.snapshot();
+        Polynomial remainder = a.divide(b);
+        this.store(stored, new Entry(a.dupe(), remainder.dupe()));
+        return remainder;
+    }
+
+    /**
+     * Raises {@code a} to {@code exponent}, as {@code a.power(exponent)}.
+     *
+     * @param a
+     *            the base
+     * @param exponent
+     *            the exponent
+     *
+     * @return a ^ exponent, of the type a.power(exponent) returns
+     */
+    public Polynomial power(Polynomial a, int exponent) {
+        Key key = new Key(Operation.POWER, exponent, a);
+        Entry hit = this.lookup(key);
+        if (hit != null) {
+            return hit.results[0].dupe();
+        }
+        Key stored = key.snapshot();
+        Polynomial answer = a.power(exponent);
+        this.store(stored, new Entry(answer.dupe()));
+        return answer;
+    }
+
+    /**
+     * Differentiates {@code a}, as {@code a.takeDerivative()}.
+     *
+     * @param a
+     *            the polynomial
+     *
+     * @updates a
+     *
+     * @ensures a = d/dx(#a)
+     */
+    public void takeDerivative(Polynomial a) {
+        this.replace(Operation.DERIVATIVE, a);
+    }
+
+    /**
+     * Integrates {@code a}, as {@code a.takeIntegral()}.
+     *
+     * @param a
+     *            the polynomial
+     *
+     * @updates a
+     *
+     * @ensures a = integral of #a, without a constant term
+     */
+    public void takeIntegral(Polynomial a) {
+        this.replace(Operation.INTEGRAL, a);
+    }
+
+    /**
+     * Computes the monic gcd of {@code a} and {@code b}, as {@code a.gcd(b)}.
+     *
+     * @param a
+     *            the first polynomial
+     * @param b
+     *            the second polynomial
+     *
+     * @return the monic gcd of a and b, of the type a.gcd(b) returns
+     */
+    public Polynomial gcd(Polynomial a, Polynomial b) {
+        Key key = new Key(Operation.GCD, 0, a, b);
+        Entry hit = this.lookup(key);
+        if (hit != null) {
+            return hit.results[0].dupe();
+        }
+        Key stored = key.snapshot();
+        Polynomial answer = a.gcd(b);
+        this.store(stored, new Entry(answer.dupe()));
+        return answer;
+    }
+
+    /**
+     * Factors {@code a}, as {@code a.factor()}.
+     *
+     * @param a
+     *            the polynomial
+     *
+     * @return the factorization of a, with factors of the types a.factor() returns
+     */
+    public PolynomialFactorizer.Factorization factor(Polynomial a) {
+        Key key = new Key(Operation.FACTOR, 0, a);
+        Entry hit = this.lookup(key);
+        if (hit != null) {
+            return factorization(hit);
+        }
+        Key stored = key.snapshot();
+        PolynomialFactorizer.Factorization answer = a.factor();
+        Polynomial[] factors = new Polynomial[answer.size()];
+        int[] multiplicities = new int[answer.size()];
+        for (int i = 0; i < factors.length; i++) {
+            factors[i] = answer.getFactor(i).dupe();
+            multiplicities[i] = answer.getMultiplicity(i);
+        }
+        Entry entry = new Entry(factors);
+        entry.unit = new RationalNumber(answer.getUnit());
+        entry.multiplicities = multiplicities;
+        this.store(stored, entry);
+        return answer;
+    }
+
+    /**
+     * Runs an operation that replaces {@code a} by a function of itself.
+     */
+    private void replace(Operation operation, Polynomial a) {
+        Key key = new Key(operation, 0, a);
+        Entry hit = this.lookup(key);
+        if (hit != null) {
+            assign(a, hit.results[0]);
+            return;
+        }
+        Key stored = key.snapshot();
+        if (operation == Operation.DERIVATIVE) {
+            a.takeDerivative();
+        } else {
+            a.takeIntegral();
+        }
+        this.store(stored, new Entry(a.dupe()));
+    }
+
+    /**
+     * Rebuilds a factorization from a cached entry, with fresh factors.
+     */
+    private static PolynomialFactorizer.Factorization factorization(Entry hit) {
+        List<Polynomial> factors = new ArrayList<>();
+        for (Polynomial factor : hit.results) {
+            factors.add(factor.dupe());
+        }
+        return new PolynomialFactorizer.Factorization(new RationalNumber(hit.unit), factors,
+                hit.multiplicities.clone());
+    }
+
+    /**
+     * Replaces the contents of {@code target} with a copy of {@code source}.
+     */
+    private static void assign(Polynomial target, Polynomial source) {
+        target.clear();
+        source.forEachTerm((power, coefficient) -> target.addTerm(new RationalNumber(coefficient), power));
+    }
+
+    /**
+     * Finds the entry for {@code key}, counting the hit or miss.
+     */
+    private Entry lookup(Key key) {
+        synchronized (this.entries) {
+            Entry answer = this.entries.get(key);
+            if (answer == null) {
+                this.misses++;
+            } else {
+                this.hits++;
+            }
+            return answer;
+        }
+    }
+
+    /**
+     * Adds an entry, then evicts the least recently used entries until both
+     * bounds hold. An entry larger than the byte bound is not kept.
+     */
+    private void store(Key key, Entry entry) {
+        long size = key.bytes() + entry.bytes();
+        if (size > this.maxBytes) {
+            return;
+        }
+        entry.size = size;
+        synchronized (this.entries) {
+            Entry previous = this.entries.put(key, entry);
+            if (previous != null) {
+                this.bytes -= previous.size;
+            }
+            this.bytes += size;
+            Iterator<Entry> eldest = this.entries.values().iterator();
+            while (this.entries.size() > this.maxEntries || this.bytes > this.maxBytes) {
+                this.bytes -= eldest.next().size;
+                eldest.remove();
+                this.evictions++;
+            }
+        }
+    }
+
+    /**
+     * Estimates the bytes held by {@code p}.
+     */
+    private static long bytes(Polynomial p) {
+        long[] answer = {POLYNOMIAL_BYTES};
+        p.forEachTerm((power, coefficient) -> answer[0] += TERM_BYTES
+                + (coefficient.getNumerator().bitLength() + coefficient.getDenominator().bitLength()) / 8);
+        return answer[0];
+    }
+
+    /**
+     * The cached operations.
+     */
+    private enum Operation {
+        DIVIDE, POWER, DERIVATIVE, INTEGRAL, GCD, FACTOR
+    }
+
+    /**
+     * An operation with its operands. A lookup key holds the caller's
+     * operands; the stored key holds private copies of them, of the same
+     * classes.
+     */
+    private static final class Key {
+
+        private final Operation operation;
+
+        /**
+         * The exponent of a power, 0 otherwise.
+         */
+        private final int parameter;
+
+        private final Polynomial[] operands;
+
+        private final int hash;
+
+        Key(Operation operation, int parameter, Polynomial... operands) {
+            this.operation = operation;
+            this.parameter = parameter;
+            this.operands = operands;
+            long h = operation.ordinal() * 0x9E3779B97F4A7C15L + parameter;
+            for (Polynomial p : operands) {
+                h = h * 0xBF58476D1CE4E5B9L + p.fingerprint();
+            }
+            this.hash = (int) (h ^ (h >>> 32));
+        }
+
+        private Key(Key key) {
+            this.operation = key.operation;
+            this.parameter = key.parameter;
+            this.hash = key.hash;
+            this.operands = new Polynomial[key.operands.length];
+            for (int i = 0; i < this.operands.length; i++) {
+                this.operands[i] = key.operands[i].dupe();
+            }
+        }
+
+        /**
+         * @return a key equal to this over private copies of the operands
+         */
+        Key snapshot() {
+            return new Key(this);
+        }
+
+        long bytes() {
+            long answer = 0;
+            for (Polynomial p : this.operands) {
+                answer += PolynomialCache.bytes(p);
+            }
+            return answer;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return this.hash == k.hash && this.operation == k.operation
+                    && this.parameter == k.parameter
+                    && this.operands[0].getClass() == k.operands[0].getClass()     //decides the result class
+                    && Arrays.equals(this.operands, k.operands);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    /**
+     * The results of an operation, private to the cache.
+     */
+    private static final class Entry {
+
+        private final Polynomial[] results;
+
+        /**
+         * The unit and the multiplicities of the factors of a factorization,
+         * whose results are the factors; null for other operations.
+         */
+        private RationalNumber unit;
+
+        private int[] multiplicities;
+
+        /**
+         * Estimated bytes of the entry and its key.
+         */
+        private long size;
+
+        Entry(Polynomial... results) {
+            this.results = results;
+        }
+
+        long bytes() {
+            long answer = 0;
+            for (Polynomial p : this.results) {
+                answer += PolynomialCache.bytes(p);
+            }
+            return answer;
+        }
+    }
+}
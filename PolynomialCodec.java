@@ -0,0 +1,393 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import RationalNumber.RationalNumber;
+
+/**
+ * Binary codec for polynomials.
+ *
+ * @author Kasper
+ *
+ * A record holds one polynomial: a header of a format byte, the
+ * characteristic (0 over the rationals, the modulus over GF(p)), the number
+ * of terms and the length of the term section, then the terms from the
+ * highest power down. Each term is the gap to the previous power (the power
+ * itself for the first), a numerator and a denominator. Every integer of the
+ * format is an unsigned LEB128 varint; a numerator is a varint of twice its
+ * magnitude length plus its sign followed by the big-endian magnitude, a
+ * denominator a varint length followed by its magnitude, with length 0
+ * standing for 1. Small integer coefficients thus take three bytes and
+ * consecutive powers one.
+ *
+ * Records are concatenated in files. {@code Writer} encodes records into a
+ * direct buffer and appends full batches through a {@code FileChannel};
+ * {@code Reader} maps the file in windows and decodes each record in place
+ * from the mapped buffer, remapping only when a record crosses the end of
+ * the current window.
+ *
+ */
+public final class PolynomialCodec {
+
+    /**
+     * Format byte leading every record.
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * Longest header: the format byte and three varints.
+     */
+    private static final int MAX_HEADER = 1 + 10 + 5 + 5;
+
+    /**
+     * Bytes buffered by a writer before they are written out.
+     */
+    private static final int BATCH = 1 << 20;
+
+    /**
+     * Bytes mapped at once by a reader, unless a record is longer.
+     */
+    private static final int WINDOW = 1 << 28;
+
+    /**
+     * No instances.
+     */
+    private PolynomialCodec() {
+    }
+
+    /**
+     * Encodes {@code p} as one record.
+     *
+     * @param p
+     *            the polynomial
+     *
+     * @return the record of p
+     */
+    public static byte[] encode(Polynomial p) {
+        ByteArrayOutputStream terms = new ByteArrayOutputStream();
+        int count = 0;
+        int previous = -1;
+        TermCursor cursor = p.cursor();
+        while (cursor.next()) {
+            int power = cursor.power();
+            RationalNumber coefficient = cursor.coefficient();
+            writeVarint(terms, (previous < 0) ? power : previous - power);
+            BigInteger numerator = coefficient.getNumerator();
+            byte[] magnitude = magnitude(numerator);
+            writeVarint(terms, 2L * magnitude.length + ((numerator.signum() < 0) ? 1 : 0));
+            terms.write(magnitude, 0, magnitude.length);
+            BigInteger denominator = coefficient.getDenominator();
+            if (denominator.equals(BigInteger.ONE)) {
+                writeVarint(terms, 0);
+            } else {
+                magnitude = magnitude(denominator);
+                writeVarint(terms, magnitude.length);
+                terms.write(magnitude, 0, magnitude.length);
+            }
+            previous = power;
+            count++;
+        }
+        ByteArrayOutputStream record = new ByteArrayOutputStream(MAX_HEADER + terms.size());
+        record.write(VERSION);
+        writeVarint(record, p.characteristic());
+        writeVarint(record, count);
+        writeVarint(record, terms.size());
+        record.write(terms.toByteArray(), 0, terms.size());
+        return record.toByteArray();
+    }
+
+    /**
+     * Decodes the record at the position of {@code in}, which is advanced
+     * past it.
+     *
+     * @param in
+     *            the buffer holding the record
+     * @param kernel
+     *            polynomial whose {@code newInstance} allocates the result
+     *
+     * @updates in
+     *
+     * @return the polynomial of the record, of the type of kernel
+     *
+     * @requires a whole record starts at the position of in
+     */
+    public static Polynomial decode(ByteBuffer in, Polynomial kernel) {
+        if (in.get() != VERSION) {
+            throw new IllegalArgumentException("Not a polynomial record of format " + VERSION);
+        }
+        long characteristic = readVarint(in);
+        if (characteristic != 0 && characteristic != kernel.characteristic()) {
+            throw new IllegalArgumentException("Record over GF(" + characteristic
+                    + ") does not fit the kernel");
+        }
+        long count = readVarint(in);
+        int length = (int) readVarint(in);
+        int end = Math.addExact(in.position(), length);
+        Polynomial answer = kernel.newInstance();
+        int power = -1;
+        for (long i = 0; i < count; i++) {
+            int gap = (int) readVarint(in);
+            power = (power < 0) ? gap : power - gap;
+            long numeratorLength = readVarint(in);
+            BigInteger numerator = readMagnitude(in, (int) (numeratorLength >>> 1));
+            if ((numeratorLength & 1) != 0) {
+                numerator = numerator.negate();
+            }
+            RationalNumber coefficient = integer(numerator);
+            int denominatorLength = (int) readVarint(in);
+            if (denominatorLength > 0) {
+                BigInteger denominator = readMagnitude(in, denominatorLength);
+                if (denominator.signum() == 0) {
+                    throw new IllegalArgumentException("Malformed polynomial record");
+                }
+                coefficient.setDenominator(denominator);                        //stored as encoded, no gcd
+            }
+            answer.addTerm(coefficient, power);
+        }
+        if (in.position() != end) {
+            throw new IllegalArgumentException("Malformed polynomial record");
+        }
+        return answer;
+    }
+
+    /**
+     * Reads polynomials out of a file of records, mapped into memory.
+     */
+    public static final class Reader implements Iterator<Polynomial>, Closeable {
+
+        private final FileChannel channel;
+
+        private final long size;
+
+        private final Polynomial kernel;
+
+        /**
+         * The mapped part of the file, from {@code start}.
+         */
+        private MappedByteBuffer window;
+
+        private long start;
+
+        /**
+         * Opens {@code path} for reading.
+         *
+         * @param path
+         *            the file of records
+         * @param kernel
+         *            polynomial whose {@code newInstance} allocates the results
+         *
+         * @throws IOException
+         *             if the file cannot be opened or mapped
+         */
+        public Reader(Path path, Polynomial kernel) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.size = this.channel.size();
+            this.kernel = kernel;
+            this.map(0, WINDOW);
+        }
+
+        /**
+         * Maps at least {@code length} bytes from {@code position}, or up to
+         * the end of the file.
+         */
+        private void map(long position, long length) throws IOException {
+            this.start = position;
+            this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(Math.max(length, WINDOW), this.size - position));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.start + this.window.position() < this.size;
+        }
+
+        /**
+         * Decodes the next record.
+         *
+         * @return the next polynomial of the file
+         *
+         * @throws NoSuchElementException
+         *             at the end of the file
+         */
+        @Override
+        public Polynomial next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException("No more polynomials");
+            }
+            try {
+                long position = this.start + this.window.position();
+                if (this.window.remaining() < MAX_HEADER
+                        && this.start + this.window.limit() < this.size) {
+                    this.map(position, WINDOW);                                 //header crosses the window
+                }
+                ByteBuffer header = this.window.duplicate();
+                header.get();
+                readVarint(header);
+                readVarint(header);
+                long body = readVarint(header);
+                long length = header.position() - this.window.position() + body;
+                if (length > this.window.remaining()) {
+                    this.map(position, length);                                 //record crosses the window
+                }
+                return decode(this.window, this.kernel);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot map the polynomial file", e);
+            }
+        }
+
+        /**
+         * Closes the file.
+         *
+         * @throws IOException
+         *             if closing fails
+         */
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Appends polynomials to a file of records, in batches.
+     */
+    public static final class Writer implements Flushable, Closeable {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH);
+
+        /**
+         * Opens {@code path} for appending, creating it if needed.
+         *
+         * @param path
+         *            the file of records
+         *
+         * @throws IOException
+         *             if the file cannot be opened
+         */
+        public Writer(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        /**
+         * Appends the record of {@code p}. It reaches the file when the batch
+         * fills up, at the latest on {@code flush} or {@code close}.
+         *
+         * @param p
+         *            the polynomial
+         *
+         * @throws IOException
+         *             if a batch cannot be written
+         */
+        public void write(Polynomial p) throws IOException {
+            byte[] record = encode(p);
+            if (record.length > this.batch.remaining()) {
+                this.flush();
+            }
+            if (record.length > this.batch.capacity()) {                        //too long to batch
+                writeFully(this.channel, ByteBuffer.wrap(record));
+            } else {
+                this.batch.put(record);
+            }
+        }
+
+        /**
+         * Writes out the buffered records.
+         *
+         * @throws IOException
+         *             if they cannot be written
+         */
+        @Override
+        public void flush() throws IOException {
+            this.batch.flip();
+            writeFully(this.channel, this.batch);
+            this.batch.clear();
+        }
+
+        /**
+         * Writes out the buffered records and closes the file.
+         *
+         * @throws IOException
+         *             if they cannot be written or closing fails
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                this.flush();
+            } finally {
+                this.channel.close();
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Builds the integer {@code n}, without a gcd.
+     */
+    private static RationalNumber integer(BigInteger n) {
+        return (n.bitLength() < 32) ? new RationalNumber(n.intValue()) : new RationalNumber(n);
+    }
+
+    /**
+     * Reports the big-endian bytes of |n|, without a sign byte.
+     */
+    private static byte[] magnitude(BigInteger n) {
+        byte[] bytes = n.abs().toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] answer = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, answer, 0, answer.length);
+            return answer;
+        }
+        return bytes;
+    }
+
+    private static BigInteger readMagnitude(ByteBuffer in, int length) {
+        if (length <= 7) {                                                      //fits a long
+            long value = 0;
+            for (int i = 0; i < length; i++) {
+                value = (value << 8) | (in.get() & 0xFF);
+            }
+            return BigInteger.valueOf(value);
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new BigInteger(1, bytes);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long answer = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            answer |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return answer;
+            }
+            if (shift >= 63) {
+                throw new IllegalArgumentException("Malformed varint");
+            }
+        }
+    }
+}
@@ -0,0 +1,412 @@
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import RationalNumber.RationalNumber;
+
+
+/**
+ *
+ * Models an algebraic polynomial expression
+ *
+ *
+ * @author Kasper
+ *
+ *
+ * Polynomial kernel component backed by a contiguous coefficient array indexed
+ * by power. Suited to dense polynomials, where every kernel operation is O(1)
+ * (amortized for {@code addTerm}).
+ *
+ *
+ */
+public class PolynomialDense extends Polynomial{
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Capacity of the coefficient array upon initialization.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Coefficients indexed by power. A null entry is a zero coefficient.
+     */
+    private RationalNumber[] coefficients;
+
+    /**
+     * Highest power with a nonzero coefficient, or 0.
+     */
+    private int degree;
+
+    /**
+     * Creator of initial representation.
+     * (Empty array of initial capacity, degree 0)
+     */
+    private void createNewRep() {
+        this.invalidate();
+        this.coefficients = new RationalNumber[INITIAL_CAPACITY];
+        this.degree = 0;
+    }
+
+    /**
+     * Grows the coefficient array so that it can hold a term of degree
+     * {@code power}. Capacity at least doubles, so growth is amortized O(1).
+     *
+     * @param power
+     *            the degree that must fit in the array
+     */
+    private void ensureCapacity(int power) {
+        if (power >= this.coefficients.length) {
+            int capacity = Math.max(this.coefficients.length * 2, power + 1);
+            RationalNumber[] grown = new RationalNumber[capacity];
+            System.arraycopy(this.coefficients, 0, grown, 0, this.degree + 1);
+            this.coefficients = grown;
+        }
+    }
+
+    /**
+     * Lowers {@code degree} past any trailing zero coefficients.
+     */
+    private void trim() {
+        while (this.degree > 0 && this.coefficients[this.degree] == null) {
+            this.degree--;
+        }
+    }
+
+
+     /**
+     * Adds a term with coefficient {@code constant} and degree {@code power} to
+     * this.
+     *
+     * @param constant
+     *            the coefficient of the term to be added
+     * @param power
+     *            the degree of the term to be added
+     *
+     * @updates this
+     *
+     * @ensures this = constant * (x ^ power) + #this
+     */
+    @Override
+    public void addTerm(RationalNumber constant, int power) {
+        assert power >= 0 : "NEGATIVE POWER";
+        this.invalidate();
+        if (!constant.equals(RationalNumber.ZERO)) {
+            this.ensureCapacity(power);
+            RationalNumber current = this.coefficients[power];
+            if (current == null) {                                              //insertion
+                this.coefficients[power] = constant;
+                if (power > this.degree) {
+                    this.degree = power;
+                }
+            } else {                                                            //add case
+                current = accumulate(current, constant);
+                this.coefficients[power] = current;
+                if (current.equals(RationalNumber.ZERO)) {
+                    this.coefficients[power] = null;
+                    if (power == this.degree) {
+                        this.trim();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the term raised to {@code power} and reports its coefficient.
+     *
+     * @param power
+     *            the degree of the term to be removed
+     * @return the coefficient
+     *
+     * @updates this
+     *
+     * @ensures #this = removeTerm * (x ^ power) + this
+     */
+    @Override
+    public RationalNumber removeTerm(int power) {
+        this.invalidate();
+        RationalNumber answer;
+        if (power < 0 || power > this.degree || this.coefficients[power] == null) {
+            answer = new RationalNumber(0);
+        } else {
+            answer = this.coefficients[power];
+            this.coefficients[power] = null;
+            if (power == this.degree) {
+                this.trim();
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Retrieves the term raised to {@code power} and reports its coefficient.
+     *
+     * @param power
+     *            the degree of the term to be found
+     *
+     * @return the coefficient
+     */
+    @Override
+    public RationalNumber getTerm(int power) {
+        RationalNumber answer;
+        if (power < 0 || power > this.degree || this.coefficients[power] == null) {
+            answer = new RationalNumber(0);
+        } else {
+            answer = new RationalNumber(this.coefficients[power]);
+        }
+        return answer;
+    }
+
+    /**
+     * Reports the degree of this.
+     *
+     * @return the highest power in {@code this}.
+     * @ensures degree = [the exponent of the highest order term in this]
+     *
+     */
+    @Override
+    public final int degree() {
+        return this.degree;
+    }
+
+    /**
+     * Read-only cursor walking the coefficient array downward, skipping zeros.
+     */
+    private final class Cursor implements TermCursor {
+
+        /**
+         * Index of the current term.
+         */
+        private int index = PolynomialDense.this.degree + 1;
+
+        @Override
+        public boolean next() {
+            do {
+                this.index--;
+            } while (this.index >= 0 && PolynomialDense.this.coefficients[this.index] == null);
+            return this.index >= 0;
+        }
+
+        @Override
+        public int power() {
+            return this.index;
+        }
+
+        @Override
+        public RationalNumber coefficient() {
+            return PolynomialDense.this.coefficients[this.index];
+        }
+    }
+
+    /**
+     * Spliterator over a range of powers of a coefficient array, from the top
+     * of the range down. Splits hand off the upper half of the range.
+     */
+    private static final class TermSpliterator implements Spliterator<Monomial> {
+
+        /**
+         * Smallest range that is still split.
+         */
+        private static final int MIN_SPLIT = 64;
+
+        /**
+         * The coefficient array being traversed.
+         */
+        private final RationalNumber[] coefficients;
+
+        /**
+         * Lowest power of the range.
+         */
+        private final int low;
+
+        /**
+         * Highest power of the range not yet visited.
+         */
+        private int high;
+
+        private TermSpliterator(RationalNumber[] coefficients, int low, int high) {
+            this.coefficients = coefficients;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Monomial> action) {
+            while (this.high >= this.low) {
+                int power = this.high--;
+                if (this.coefficients[power] != null) {
+                    action.accept(new Monomial(power, this.coefficients[power]));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<Monomial> trySplit() {
+            Spliterator<Monomial> prefix = null;
+            if (this.high - this.low >= MIN_SPLIT) {
+                int mid = (this.low + this.high) >>> 1;
+                prefix = new TermSpliterator(this.coefficients, mid + 1, this.high);
+                this.high = mid;
+            }
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Math.max(0, this.high - this.low + 1);
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /**
+     * Creates a read-only cursor over the nonzero terms of this, from the
+     * highest power down.
+     *
+     * @return a cursor positioned before the highest term of this
+     */
+    @Override
+    public TermCursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Calls {@code visitor} on every nonzero term of this, from the highest
+     * power down, without modifying this.
+     *
+     * @param visitor
+     *            the callback for each term
+     */
+    @Override
+    public void forEachTerm(TermVisitor visitor) {
+        for (int power = this.degree; power >= 0; power--) {
+            if (this.coefficients[power] != null) {
+                visitor.visit(power, this.coefficients[power]);
+            }
+        }
+    }
+
+    /**
+     * Creates a read-only, splittable traversal over the nonzero terms of this,
+     * from the highest power down.
+     *
+     * @return a spliterator over the terms of this
+     */
+    @Override
+    public Spliterator<Monomial> spliterator() {
+        return new TermSpliterator(this.coefficients, 0, this.degree);
+    }
+
+    /**
+     * Resets this to it's default value upon initializiation.
+     *
+     *
+     * @ensures this = 0
+     *
+     */
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    /**
+     * returns a duplicate of p. Convenience method.
+     *
+     * @param p
+     *            the polynomial to be duplicated
+     *
+     * @ensures dupe = p
+     *
+     * @return a perfect copy of p
+     */
+    @Override
+    public Polynomial dupe() {
+        PolynomialDense copy = (PolynomialDense) this.newInstance();
+        copy.coefficients = new RationalNumber[Math.max(this.degree + 1, INITIAL_CAPACITY)];
+        for (int i = 0; i <= this.degree; i++) {
+            if (this.coefficients[i] != null) {
+                copy.coefficients[i] = new RationalNumber(this.coefficients[i]);
+            }
+        }
+        copy.degree = this.degree;
+        return copy;
+    }
+
+    /**
+     * Creates and returns a new polynomial instance of this.
+     *
+     * @return a polynomial of the same type as this initialized to default value
+     */
+    @Override
+    public final Polynomial newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    /**
+     * Replaces the polynomial represented by this with the polynomial in {@code source}
+     *
+     * @ensures this = #source and source = 0
+     */
+    @Override
+    public final void transferFrom(Polynomial source) {
+        if (source instanceof PolynomialDense) {                                //steal the array
+            PolynomialDense localSource = (PolynomialDense) source;
+            this.invalidate();
+            this.coefficients = localSource.coefficients;
+            this.degree = localSource.degree;
+            localSource.createNewRep();
+        } else {
+            int deg;
+            this.createNewRep();
+            while (source.degree() != 0) {
+                deg = source.degree();
+                this.addTerm(source.removeTerm(deg), deg);
+            }
+            this.addTerm(source.removeTerm(0), 0);
+        }
+    }
+
+    /**
+     * No-argument constructor.
+     */
+    public PolynomialDense() {
+        this.createNewRep();
+
+    }
+
+    /**
+     * Initialize an instance of polynomial with the given coefficients {@coeff}
+     */
+    public PolynomialDense(RationalNumber... coeff) {
+        this.createNewRep();
+        int degree = coeff.length - 1;
+        this.ensureCapacity(degree);
+        for (RationalNumber constant : coeff) {
+            this.addTerm(constant, degree--);
+        }
+    }
+
+    /**
+     * Initialize an instance of polynomial with the given coefficients {@coeff}
+     */
+    public PolynomialDense(int... coeff) {
+        this.createNewRep();
+        int degree = coeff.length - 1;
+        this.ensureCapacity(degree);
+        for (int constant : coeff) {
+            this.addTerm(new RationalNumber(constant), degree--);
+        }
+    }
+}
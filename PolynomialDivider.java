@@ -0,0 +1,417 @@
+import RationalNumber.RationalNumber;
+
+/**
+ * Division engine for polynomials.
+ *
+ * @author Kasper
+ *
+ * Works on coefficient arrays indexed by power, where a null entry is a zero
+ * coefficient, and produces the quotient and the remainder together. Small
+ * quotients are computed one coefficient at a time straight from the dividend,
+ * without a working copy of it. Large ones reverse both operands, invert the
+ * reversed divisor as a power series by Newton iteration and multiply through
+ * {@code PolynomialMultiplier}. Input arrays are never modified and entries of
+ * the results are never shared with the inputs.
+ *
+ */
+public final class PolynomialDivider {
+
+    /**
+     * Quotient length and divisor degree from which Newton inversion is used.
+     */
+    private static volatile int newtonThreshold = 512;
+
+    /**
+     * Number of primes tried for the modular check of {@code divides}.
+     */
+    private static final int RESIDUE_PRIMES = 4;
+
+    /**
+     * No instances.
+     */
+    private PolynomialDivider() {
+    }
+
+    /**
+     * Quotient and remainder of a division, as coefficient arrays indexed by
+     * power.
+     */
+    public static final class QuotientRemainder {
+
+        /**
+         * Coefficients of the quotient.
+         */
+        private final RationalNumber[] quotient;
+
+        /**
+         * Coefficients of the remainder.
+         */
+        private final RationalNumber[] remainder;
+
+        private QuotientRemainder(RationalNumber[] quotient, RationalNumber[] remainder) {
+            this.quotient = quotient;
+            this.remainder = remainder;
+        }
+
+        /**
+         * @return the coefficients of the quotient
+         */
+        public RationalNumber[] getQuotient() {
+            return this.quotient;
+        }
+
+        /**
+         * @return the coefficients of the remainder
+         */
+        public RationalNumber[] getRemainder() {
+            return this.remainder;
+        }
+    }
+
+    /**
+     * Reports the size from which Newton inversion replaces the schoolbook
+     * method.
+     *
+     * @return the Newton threshold
+     */
+    public static int getNewtonThreshold() {
+        return newtonThreshold;
+    }
+
+    /**
+     * Sets the size from which Newton inversion replaces the schoolbook
+     * method. Both the quotient length and the divisor degree must reach it.
+     *
+     * @param threshold
+     *            the new Newton threshold
+     *
+     * @requires threshold >= 1
+     */
+    public static void setNewtonThreshold(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Newton threshold must be at least 1");
+        }
+        newtonThreshold = threshold;
+    }
+
+    /**
+     * Divides {@code a} by {@code b}.
+     *
+     * @param a
+     *            the coefficients of the dividend
+     * @param b
+     *            the coefficients of the divisor, with a nonzero last entry
+     *
+     * @return q and r with a = q * b + r and deg r < deg b
+     */
+    public static QuotientRemainder divide(RationalNumber[] a, RationalNumber[] b) {
+        int m = divisorDegree(b);
+        int n = degree(a);
+        QuotientRemainder answer;
+        if (n < m) {
+            answer = new QuotientRemainder(new RationalNumber[0], copy(a, a.length));
+        } else if (n - m + 1 >= newtonThreshold && m >= newtonThreshold) {
+            RationalNumber[] quotient = newtonQuotient(a, n, b, m);
+            answer = new QuotientRemainder(quotient, newtonRemainder(a, b, m, quotient));
+        } else {
+            RationalNumber[] quotient = schoolbookQuotient(a, n, b, m);
+            RationalNumber[] remainder = new RationalNumber[m];
+            for (int i = 0; i < m; i++) {
+                remainder[i] = remainderCoefficient(a, b, m, quotient, i);
+            }
+            answer = new QuotientRemainder(quotient, remainder);
+        }
+        return answer;
+    }
+
+    /**
+     * Reports whether {@code b} divides {@code a}. The division is first run
+     * modulo a word-size prime dividing neither the leading numerator of b
+     * nor any denominator, where a nonzero remainder proves that b does not
+     * divide a at the cost of word arithmetic. Only when it vanishes are the
+     * exact remainder coefficients produced, from the highest down, and the
+     * check stops at the first nonzero one.
+     *
+     * @param b
+     *            the coefficients of the divisor, with a nonzero last entry
+     * @param a
+     *            the coefficients of the dividend
+     *
+     * @return true iff a % b = 0
+     */
+    public static boolean divides(RationalNumber[] b, RationalNumber[] a) {
+        int m = divisorDegree(b);
+        int n = degree(a);
+        int aLow = lowestPower(a);
+        if (aLow < 0) {                                                         //a = 0
+            return true;
+        }
+        if (n < m || lowestPower(b) > aLow || residueRemainder(b, m, a, n)) {
+            return false;
+        }
+        boolean answer = true;
+        if (n - m + 1 >= newtonThreshold && m >= newtonThreshold) {
+            RationalNumber[] quotient = newtonQuotient(a, n, b, m);
+            RationalNumber[] product = PolynomialMultiplier.multiply(quotient, b);
+            for (int i = m - 1; i >= 0 && answer; i--) {
+                answer = sameCoefficient(a, product, i);
+            }
+        } else {
+            RationalNumber[] quotient = schoolbookQuotient(a, n, b, m);
+            for (int i = m - 1; i >= 0 && answer; i--) {
+                answer = remainderCoefficient(a, b, m, quotient, i) == null;
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Reports whether the remainder of a by b is certainly nonzero, because
+     * it is nonzero modulo a prime p that divides neither the leading
+     * numerator of b nor any denominator: the quotient and remainder over the
+     * rationals then reduce to those modulo p. False if no such prime is
+     * found among the first few.
+     */
+    private static boolean residueRemainder(RationalNumber[] b, int m, RationalNumber[] a, int n) {
+        for (int k = 0; k < RESIDUE_PRIMES; k++) {
+            long p = MultiModular.prime(k);
+            if (ModularArithmetic.residue(b[m].getNumerator(), p) == 0) {
+                continue;
+            }
+            long[] x = residues(a, n, p);
+            long[] y = residues(b, m, p);
+            if (x != null && y != null) {
+                return ModularArithmetic.trim(ModularArithmetic.divide(x, y, p)[1]).length > 0;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reports a[0..n] modulo p, or null if p divides a denominator.
+     */
+    private static long[] residues(RationalNumber[] a, int n, long p) {
+        long[] answer = new long[n + 1];
+        for (int i = 0; i <= n; i++) {
+            if (a[i] != null) {
+                if (ModularArithmetic.residue(a[i].getDenominator(), p) == 0) {
+                    return null;
+                }
+                answer[i] = ModularArithmetic.residue(a[i], p);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Reports the degree of the coefficient array {@code a}, or -1 for zero.
+     */
+    private static int degree(RationalNumber[] a) {
+        int n = a.length - 1;
+        while (n >= 0 && (a[n] == null || a[n].equals(RationalNumber.ZERO))) {
+            n--;
+        }
+        return n;
+    }
+
+    /**
+     * Reports the degree of the divisor {@code b}, rejecting zero.
+     */
+    private static int divisorDegree(RationalNumber[] b) {
+        int m = degree(b);
+        if (m < 0) {
+            throw new ArithmeticException("Division by the zero polynomial");
+        }
+        return m;
+    }
+
+    /**
+     * Reports the lowest power with a nonzero coefficient, or -1 for zero.
+     */
+    private static int lowestPower(RationalNumber[] a) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != null && !a[i].equals(RationalNumber.ZERO)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reports whether a[i] and b[i] are equal, treating missing entries as
+     * zero.
+     */
+    private static boolean sameCoefficient(RationalNumber[] a, RationalNumber[] b, int i) {
+        RationalNumber x = (i < a.length && a[i] != null) ? a[i] : RationalNumber.ZERO;
+        RationalNumber y = (i < b.length && b[i] != null) ? b[i] : RationalNumber.ZERO;
+        return x.compareTo(y) == 0;
+    }
+
+    /**
+     * Copies the first {@code length} entries of {@code a}, duplicating every
+     * coefficient and padding with null.
+     */
+    private static RationalNumber[] copy(RationalNumber[] a, int length) {
+        RationalNumber[] answer = new RationalNumber[length];
+        for (int i = 0; i < Math.min(length, a.length); i++) {
+            if (a[i] != null) {
+                answer[i] = new RationalNumber(a[i]);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Returns a[degree], a[degree - 1], ... as an array of {@code length}
+     * entries, sharing the coefficients and padding with null.
+     */
+    private static RationalNumber[] reverse(RationalNumber[] a, int degree, int length) {
+        RationalNumber[] answer = new RationalNumber[length];
+        for (int i = 0; i < length && i <= degree; i++) {
+            answer[i] = a[degree - i];
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the first {@code length} entries of {@code a}, sharing the
+     * coefficients and padding with null.
+     */
+    private static RationalNumber[] truncate(RationalNumber[] a, int length) {
+        RationalNumber[] answer = new RationalNumber[length];
+        System.arraycopy(a, 0, answer, 0, Math.min(length, a.length));
+        return answer;
+    }
+
+    /**
+     * Quotient coefficients from the top down, each one read straight from the
+     * dividend minus the contributions of the quotient coefficients above it:
+     * q[k] = (a[k + m] - sum q[j] * b[k + m - j]) / b[m].
+     */
+    private static RationalNumber[] schoolbookQuotient(RationalNumber[] a, int n,
+            RationalNumber[] b, int m) {
+        RationalNumber leadInverse = new RationalNumber(1);
+        leadInverse.divide(b[m]);
+        RationalNumber[] quotient = new RationalNumber[n - m + 1];
+        for (int k = n - m; k >= 0; k--) {
+            RationalNumber acc = (a[k + m] == null) ? new RationalNumber() : new RationalNumber(a[k + m]);
+            for (int j = k + 1; j <= Math.min(n - m, k + m); j++) {
+                RationalNumber bj = b[k + m - j];
+                if (quotient[j] != null && bj != null) {
+                    RationalNumber product = new RationalNumber(quotient[j]);
+                    product.multiply(bj);
+                    acc.subtract(product);
+                }
+            }
+            if (!acc.equals(RationalNumber.ZERO)) {
+                acc.multiply(leadInverse);
+                quotient[k] = acc;
+            }
+        }
+        return quotient;
+    }
+
+    /**
+     * Remainder coefficient r[i] = a[i] - sum q[j] * b[i - j] for i < deg b,
+     * or null if it is zero.
+     */
+    private static RationalNumber remainderCoefficient(RationalNumber[] a, RationalNumber[] b,
+            int m, RationalNumber[] quotient, int i) {
+        RationalNumber acc = (i < a.length && a[i] != null) ? new RationalNumber(a[i]) : new RationalNumber();
+        for (int j = 0; j <= Math.min(i, quotient.length - 1); j++) {
+            RationalNumber bij = b[i - j];
+            if (quotient[j] != null && bij != null) {
+                RationalNumber product = new RationalNumber(quotient[j]);
+                product.multiply(bij);
+                acc.subtract(product);
+            }
+        }
+        return acc.equals(RationalNumber.ZERO) ? null : acc;
+    }
+
+    /**
+     * Power series inverse of {@code h} modulo x ^ {@code length} by Newton
+     * iteration g = g + g * (1 - h * g), doubling the precision each step.
+     *
+     * @requires h[0] != 0
+     */
+    private static RationalNumber[] inverseSeries(RationalNumber[] h, int length) {
+        RationalNumber[] g = new RationalNumber[1];
+        g[0] = new RationalNumber(1);
+        g[0].divide(h[0]);
+        int precision = 1;
+        while (precision < length) {
+            precision = Math.min(2 * precision, length);
+            RationalNumber[] error = truncate(
+                    PolynomialMultiplier.multiply(truncate(h, Math.min(precision, h.length)), g),
+                    precision);
+            for (int i = 0; i < precision; i++) {                               //error = 1 - h * g
+                if (error[i] != null) {
+                    error[i].negate();
+                }
+            }
+            if (error[0] == null) {
+                error[0] = new RationalNumber(1);
+            } else {
+                error[0].add(RationalNumber.ONE);
+            }
+            RationalNumber[] correction = truncate(PolynomialMultiplier.multiply(g, error), precision);
+            RationalNumber[] next = new RationalNumber[precision];
+            for (int i = 0; i < precision; i++) {
+                RationalNumber gi = (i < g.length) ? g[i] : null;
+                if (gi == null) {
+                    next[i] = correction[i];
+                } else {
+                    next[i] = gi;
+                    if (correction[i] != null) {
+                        next[i].add(correction[i]);
+                    }
+                }
+            }
+            g = next;
+        }
+        return g;
+    }
+
+    /**
+     * Quotient by reversal: rev(q) = rev(a) * rev(b)^-1 mod x ^ (n - m + 1).
+     */
+    private static RationalNumber[] newtonQuotient(RationalNumber[] a, int n, RationalNumber[] b,
+            int m) {
+        int length = n - m + 1;
+        RationalNumber[] inverse = inverseSeries(reverse(b, m, m + 1), length);
+        RationalNumber[] reversed = truncate(
+                PolynomialMultiplier.multiply(reverse(a, n, length), inverse), length);
+        RationalNumber[] quotient = new RationalNumber[length];
+        for (int i = 0; i < length; i++) {
+            RationalNumber qi = reversed[length - 1 - i];
+            if (qi != null && !qi.equals(RationalNumber.ZERO)) {
+                quotient[i] = qi;
+            }
+        }
+        return quotient;
+    }
+
+    /**
+     * Remainder a - q * b, of which only the powers below m can be nonzero.
+     */
+    private static RationalNumber[] newtonRemainder(RationalNumber[] a, RationalNumber[] b, int m,
+            RationalNumber[] quotient) {
+        RationalNumber[] product = PolynomialMultiplier.multiply(quotient, b);
+        RationalNumber[] remainder = new RationalNumber[m];
+        for (int i = 0; i < m; i++) {
+            RationalNumber ri = (i < product.length) ? product[i] : null;
+            if (ri == null) {
+                ri = new RationalNumber();
+            }
+            ri.negate();
+            if (i < a.length && a[i] != null) {
+                ri.add(a[i]);
+            }
+            if (!ri.equals(RationalNumber.ZERO)) {
+                remainder[i] = ri;
+            }
+        }
+        return remainder;
+    }
+}
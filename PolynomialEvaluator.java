@@ -0,0 +1,583 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+import RationalNumber.RationalNumber;
+
+/**
+ * Multipoint evaluation engine for polynomials.
+ *
+ * @author Kasper
+ *
+ * Evaluates one polynomial at many points. Over the rationals the polynomial
+ * is read once as its rational content times its primitive integer part, and
+ * each point u / v is handled by Horner's scheme on the homogenized sum a_i
+ * u^i v^(n - i): integer products only, with a single reduction to lowest
+ * terms per value, the points spread over the common pool. Each point costs
+ * n products of integers up to about n h bits, for coefficients and points of
+ * h bits, some n times the size of its value. A subproduct tree over the
+ * rationals or the integers was measured against it and lost at every size
+ * tried, its remainders dominated by products of huge coefficients: 25 s
+ * against 1.2 s for 1024 points at degree 1023.
+ *
+ * Over the integers mod p, where every coefficient is a word, many points go
+ * through a subproduct tree instead. Each leaf holds the product of x - x_k
+ * over a block of points and each other node the product of its two
+ * children; the polynomial is reduced down the tree, each node taking the
+ * remainder of its parent's remainder by its own product, until each block is
+ * left with a remainder of lower degree than its size that Horner's scheme
+ * evaluates at its points. With transform products and Newton division in
+ * {@code ModularArithmetic} the cost is quasi-linear. Both passes fork the two
+ * subtrees of each node as independent tasks on the common pool. The same
+ * tree interpolates residues for {@code PolynomialInterpolator}.
+ *
+ * Many polynomials at the same few points share one table of the powers of
+ * the numerator and denominator of each point. Each polynomial is read in
+ * place, twice through {@code forEachTerm}: once for the common denominator
+ * of its coefficients and once to sum integer terms for every point at once,
+ * so each value is one reduction to lowest terms. Polynomials over GF(p) in
+ * the collection are read once instead, by Horner's scheme on the residues of
+ * the points, stepping over the gaps between powers. The collection is split
+ * through its spliterator into tasks on the common pool, each writing its
+ * own rows of the caller's array.
+ *
+ */
+public final class PolynomialEvaluator {
+
+    /**
+     * Number of points, and polynomial length, from which the subproduct
+     * tree replaces Horner's scheme at each point mod p.
+     */
+    private static volatile int treeThreshold = 256;
+
+    /**
+     * Number of points in the blocks at the leaves of the tree, evaluated by
+     * Horner's scheme on their remainder.
+     */
+    private static final int BLOCK = 32;
+
+    /**
+     * No instances.
+     */
+    private PolynomialEvaluator() {
+    }
+
+    /**
+     * Reports the number of points from which the subproduct tree is used.
+     *
+     * @return the tree threshold
+     */
+    public static int getTreeThreshold() {
+        return treeThreshold;
+    }
+
+    /**
+     * Sets the number of points from which the subproduct tree is used; the
+     * polynomial must have at least as many coefficients too.
+     *
+     * @param threshold
+     *            the new tree threshold
+     *
+     * @requires threshold >= 2
+     */
+    public static void setTreeThreshold(int threshold) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("Tree threshold must be at least 2");
+        }
+        treeThreshold = threshold;
+    }
+
+    /**
+     * Evaluates {@code p} at each of {@code points}.
+     *
+     * @param p
+     *            the polynomial
+     * @param points
+     *            the points
+     *
+     * @return the values of p at the points, in the same order
+     */
+    public static RationalNumber[] evaluate(Polynomial p, RationalNumber[] points) {
+        PolynomialPrimitive primitive = new PolynomialPrimitive(p);
+        BigInteger[] a = primitive.primitive();
+        RationalNumber content = primitive.content();
+        RationalNumber[] answer = new RationalNumber[points.length];
+        IntStream.range(0, points.length).parallel()
+                .forEach(i -> answer[i] = homogeneous(a, points[i], content));
+        return answer;
+    }
+
+    /**
+     * Evaluates each of {@code polynomials} at each of {@code points}. The
+     * polynomials are read, never copied or modified.
+     *
+     * @param polynomials
+     *            the polynomials, in encounter order
+     * @param points
+     *            the points
+     * @param answer
+     *            receives the value of the i-th polynomial at points[j] at
+     *            i * points.length + j
+     *
+     * @updates answer
+     *
+     * @requires answer.length >= |polynomials| * points.length
+     */
+    public static void evaluate(Collection<? extends Polynomial> polynomials,
+            RationalNumber[] points, RationalNumber[] answer) {
+        int count = polynomials.size();
+        if ((long) count * points.length > answer.length) {
+            throw new IllegalArgumentException("Answer array is too short for "
+                    + count + " polynomials at " + points.length + " points");
+        }
+        if (count == 0 || points.length == 0) {
+            return;
+        }
+        Spliterator<? extends Polynomial> spliterator = polynomials.spliterator();
+        if (!spliterator.hasCharacteristics(Spliterator.SUBSIZED)) {            //rows need exact prefix sizes
+            spliterator = Arrays.spliterator(polynomials.toArray(new Polynomial[0]));
+        }
+        int degree = 0;
+        for (Polynomial p : polynomials) {
+            degree = Math.max(degree, p.degree());
+        }
+        Powers powers = new Powers(points, degree);
+        int grain = Math.max(1, count / (8 * ForkJoinPool.commonPool().getParallelism()));
+        ForkJoinPool.commonPool().invoke(new Batch(spliterator, 0, grain, powers, answer));
+    }
+
+    /**
+     * Evaluates the residue polynomial {@code a} at each of {@code points}
+     * mod {@code p}.
+     *
+     * @param a
+     *            the residues of the coefficients, indexed by power
+     * @param points
+     *            the residues of the points
+     * @param p
+     *            the prime modulus
+     *
+     * @return a(x) mod p for each x in points, in the same order
+     */
+    public static long[] evaluate(long[] a, long[] points, long p) {
+        long[] answer = new long[points.length];
+        if (points.length < treeThreshold || a.length < treeThreshold) {
+            IntStream.range(0, points.length).parallel()
+                    .forEach(i -> answer[i] = ModularArithmetic.evaluate(a, points[i], p));
+        } else {
+            Node root = ForkJoinPool.commonPool().invoke(new Build(points, p, 0, points.length));
+            ForkJoinPool.commonPool().invoke(new Reduce(root, a, points, p, answer));
+        }
+        return answer;
+    }
+
+    /**
+     * Interpolates residues: finds the polynomial a of degree less than n =
+     * points.length with a(points[k]) = values[k] mod p for every k. Uses
+     * Lagrange's formula on the subproduct tree: with M the product of
+     * x - points[k], the weights values[k] / M'(points[k]) come from one
+     * multipoint evaluation of M', and the sum of weight times M / (x -
+     * points[k]) is combined up the tree, each node multiplying the sums of
+     * its children by each other's products.
+     *
+     * @param points
+     *            the residues of the points
+     * @param values
+     *            the residues of the values
+     * @param p
+     *            the prime modulus
+     *
+     * @return the residues of the coefficients of a, indexed by power and
+     *         trimmed, or null if two points coincide mod p
+     */
+    static long[] interpolate(long[] points, long[] values, long p) {
+        if (points.length == 0) {
+            return new long[0];
+        }
+        Node root = ForkJoinPool.commonPool().invoke(new Build(points, p, 0, points.length));
+        long[] derivative = new long[points.length];                          //M', M monic of degree n
+        for (int i = 1; i < root.product.length; i++) {
+            derivative[i - 1] = ModularArithmetic.multiply(i % p, root.product[i], p);
+        }
+        long[] weights = new long[points.length];
+        ForkJoinPool.commonPool().invoke(new Reduce(root, derivative, points, p, weights));
+        for (int k = 0; k < weights.length; k++) {
+            if (weights[k] == 0) {                                              //points[k] is a double root of M
+                return null;
+            }
+            weights[k] = ModularArithmetic.multiply(values[k],
+                    ModularArithmetic.inverse(weights[k], p), p);
+        }
+        return ModularArithmetic.trim(ForkJoinPool.commonPool()
+                .invoke(new Combine(root, points, weights, p)));
+    }
+
+    /**
+     * A node of the subproduct tree over points[lo, hi).
+     */
+    private static final class Node {
+
+        private final int lo;
+
+        private final int hi;
+
+        /**
+         * The product of x - points[k] for lo <= k < hi, mod p.
+         */
+        private final long[] product;
+
+        /**
+         * The children, null at a leaf.
+         */
+        private final Node left;
+
+        private final Node right;
+
+        Node(int lo, int hi, long[] product, Node left, Node right) {
+            this.lo = lo;
+            this.hi = hi;
+            this.product = product;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    /**
+     * Builds the subproduct tree over points[lo, hi), bottom up.
+     */
+    private static final class Build extends RecursiveTask<Node> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[] points;
+
+        private final long p;
+
+        private final int lo;
+
+        private final int hi;
+
+        Build(long[] points, long p, int lo, int hi) {
+            this.points = points;
+            this.p = p;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Node compute() {
+            if (this.hi - this.lo <= BLOCK) {
+                long[] product = new long[this.hi - this.lo + 1];
+                product[0] = 1;
+                for (int k = this.lo; k < this.hi; k++) {                       //times x - points[k], in place
+                    long x = this.points[k];
+                    for (int i = k - this.lo + 1; i >= 1; i--) {
+                        product[i] = ModularArithmetic.subtract(product[i - 1],
+                                ModularArithmetic.multiply(product[i], x, this.p), this.p);
+                    }
+                    product[0] = ModularArithmetic.subtract(0,
+                            ModularArithmetic.multiply(product[0], x, this.p), this.p);
+                }
+                return new Node(this.lo, this.hi, product, null, null);
+            }
+            int mid = (this.lo + this.hi) >>> 1;
+            Build right = new Build(this.points, this.p, mid, this.hi);
+            right.fork();
+            Node left = new Build(this.points, this.p, this.lo, mid).compute();
+            Node r = right.join();
+            return new Node(this.lo, this.hi,
+                    ModularArithmetic.multiply(left.product, r.product, this.p), left, r);
+        }
+    }
+
+    /**
+     * Reduces r, the remainder of the polynomial at the parent of a node, by
+     * the product of the node and evaluates it at the node's points, top
+     * down.
+     */
+    private static final class Reduce extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Node node;
+
+        private final long[] r;
+
+        private final long[] points;
+
+        private final long p;
+
+        private final long[] answer;
+
+        Reduce(Node node, long[] r, long[] points, long p, long[] answer) {
+            this.node = node;
+            this.r = r;
+            this.points = points;
+            this.p = p;
+            this.answer = answer;
+        }
+
+        @Override
+        protected void compute() {
+            long[] remainder = (this.r.length < this.node.product.length) ? this.r
+                    : ModularArithmetic.divide(this.r, this.node.product, this.p)[1];
+            if (this.node.left == null) {
+                for (int k = this.node.lo; k < this.node.hi; k++) {
+                    this.answer[k] = ModularArithmetic.evaluate(remainder, this.points[k], this.p);
+                }
+            } else {
+                invokeAll(new Reduce(this.node.left, remainder, this.points, this.p, this.answer),
+                        new Reduce(this.node.right, remainder, this.points, this.p, this.answer));
+            }
+        }
+    }
+
+    /**
+     * Sums weights[k] * product / (x - points[k]) over the points of a node,
+     * bottom up: by synthetic division at a leaf, and as left sum * right
+     * product + right sum * left product above it.
+     */
+    private static final class Combine extends RecursiveTask<long[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Node node;
+
+        private final long[] points;
+
+        private final long[] weights;
+
+        private final long p;
+
+        Combine(Node node, long[] points, long[] weights, long p) {
+            this.node = node;
+            this.points = points;
+            this.weights = weights;
+            this.p = p;
+        }
+
+        @Override
+        protected long[] compute() {
+            long[] product = this.node.product;
+            int n = product.length - 1;
+            if (this.node.left == null) {
+                long[] sum = new long[n];
+                for (int k = this.node.lo; k < this.node.hi; k++) {
+                    long x = this.points[k];
+                    long w = this.weights[k];
+                    long q = product[n];                                        //product / (x - points[k]), from the top
+                    for (int i = n - 1; i >= 0; i--) {
+                        sum[i] = ModularArithmetic.add(sum[i], ModularArithmetic.multiply(w, q, this.p), this.p);
+                        q = ModularArithmetic.add(product[i], ModularArithmetic.multiply(x, q, this.p), this.p);
+                    }
+                }
+                return sum;
+            }
+            Combine right = new Combine(this.node.right, this.points, this.weights, this.p);
+            right.fork();
+            long[] left = new Combine(this.node.left, this.points, this.weights, this.p).compute();
+            long[] a = ModularArithmetic.multiply(ModularArithmetic.trim(left), this.node.right.product, this.p);
+            long[] b = ModularArithmetic.multiply(ModularArithmetic.trim(right.join()), this.node.left.product, this.p);
+            long[] sum = new long[n];
+            for (int i = 0; i < n; i++) {
+                sum[i] = ModularArithmetic.add((i < a.length) ? a[i] : 0, (i < b.length) ? b[i] : 0, this.p);
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Powers u^k and v^k of the numerator and denominator of each point, for
+     * k up to a common degree.
+     */
+    private static final class Powers {
+
+        private final RationalNumber[] points;
+
+        private final BigInteger[][] numerators;
+
+        /**
+         * Null for an integral point.
+         */
+        private final BigInteger[][] denominators;
+
+        Powers(RationalNumber[] points, int degree) {
+            this.points = points;
+            this.numerators = new BigInteger[points.length][];
+            this.denominators = new BigInteger[points.length][];
+            for (int j = 0; j < points.length; j++) {
+                this.numerators[j] = table(points[j].getNumerator(), degree);
+                BigInteger v = points[j].getDenominator();
+                if (!v.equals(BigInteger.ONE)) {
+                    this.denominators[j] = table(v, degree);
+                }
+            }
+        }
+
+        private static BigInteger[] table(BigInteger base, int degree) {
+            BigInteger[] answer = new BigInteger[degree + 1];
+            answer[0] = BigInteger.ONE;
+            for (int k = 1; k <= degree; k++) {
+                answer[k] = answer[k - 1].multiply(base);
+            }
+            return answer;
+        }
+
+        /**
+         * Reports s * x^gap modulo {@code modulus}, with one product for the
+         * gap of 1 between consecutive powers of a dense row.
+         */
+        private static long shift(long s, long x, int gap, long modulus) {
+            if (gap == 0 || s == 0) {
+                return s;
+            }
+            long factor = (gap == 1) ? x : ModularArithmetic.power(x, gap, modulus);
+            return ModularArithmetic.multiply(s, factor, modulus);
+        }
+
+        /**
+         * Writes p(points[j]) to answer[base + j] for every j, as the sum of
+         * (L c_k) u^k v^(n - k) over the terms, divided once by L v^n, where L
+         * is the common denominator of the coefficients and n the degree.
+         */
+        void row(Polynomial p, RationalNumber[] answer, int base) {
+            int m = this.points.length;
+            if (p instanceof PolynomialModP) {
+                long modulus = ((PolynomialModP) p).getModulus();
+                long[] x = new long[m];
+                long[] sums = new long[m];
+                for (int j = 0; j < m; j++) {
+                    x[j] = ModularArithmetic.residue(this.points[j], modulus);
+                }
+                int[] previous = {-1};
+                p.forEachTerm((power, coefficient) -> {                          //Horner, highest power first
+                    long c = ModularArithmetic.residue(coefficient, modulus);
+                    int gap = (previous[0] < 0) ? 0 : previous[0] - power;
+                    for (int j = 0; j < m; j++) {
+                        sums[j] = ModularArithmetic.add(shift(sums[j], x[j], gap, modulus), c, modulus);
+                    }
+                    previous[0] = power;
+                });
+                for (int j = 0; j < m; j++) {
+                    long sum = shift(sums[j], x[j], Math.max(previous[0], 0), modulus);
+                    answer[base + j] = new RationalNumber(BigInteger.valueOf(sum));
+                }
+                return;
+            }
+            int n = p.degree();
+            BigInteger[] common = {BigInteger.ONE};
+            p.forEachTerm((power, coefficient) -> {
+                BigInteger d = coefficient.getDenominator();
+                if (!d.equals(BigInteger.ONE)) {
+                    common[0] = common[0].divide(common[0].gcd(d)).multiply(d);
+                }
+            });
+            BigInteger scale = common[0];
+            boolean integral = scale.equals(BigInteger.ONE);
+            BigInteger[] sums = new BigInteger[m];
+            Arrays.fill(sums, BigInteger.ZERO);
+            p.forEachTerm((power, coefficient) -> {
+                BigInteger c = integral ? coefficient.getNumerator()
+                        : coefficient.getNumerator().multiply(scale.divide(coefficient.getDenominator()));
+                for (int j = 0; j < m; j++) {
+                    BigInteger term = c.multiply(this.numerators[j][power]);
+                    if (this.denominators[j] != null && power < n) {
+                        term = term.multiply(this.denominators[j][n - power]);
+                    }
+                    sums[j] = sums[j].add(term);
+                }
+            });
+            for (int j = 0; j < m; j++) {
+                BigInteger denominator = (this.denominators[j] == null) ? scale
+                        : scale.multiply(this.denominators[j][n]);
+                answer[base + j] = new RationalNumber(sums[j], denominator);
+            }
+        }
+    }
+
+    /**
+     * Evaluates the polynomials of a spliterator, the first of them being row
+     * {@code first} of the answer, splitting off prefixes as forked tasks
+     * while more than {@code grain} remain.
+     */
+    private static final class Batch extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Spliterator<? extends Polynomial> spliterator;
+
+        private final int first;
+
+        private final int grain;
+
+        private final Powers powers;
+
+        private final RationalNumber[] answer;
+
+        Batch(Spliterator<? extends Polynomial> spliterator, int first, int grain, Powers powers,
+                RationalNumber[] answer) {
+            this.spliterator = spliterator;
+            this.first = first;
+            this.grain = grain;
+            this.powers = powers;
+            this.answer = answer;
+        }
+
+        @Override
+        protected void compute() {
+            Spliterator<? extends Polynomial> rest = this.spliterator;
+            int row = this.first;
+            List<Batch> forked = new ArrayList<>();
+            while (rest.estimateSize() > this.grain) {
+                Spliterator<? extends Polynomial> prefix = rest.trySplit();
+                if (prefix == null) {
+                    break;
+                }
+                Batch task = new Batch(prefix, row, this.grain, this.powers, this.answer);
+                row += (int) prefix.getExactSizeIfKnown();                     //before the task consumes it
+                task.fork();
+                forked.add(task);
+            }
+            int[] next = {row};
+            int width = this.powers.points.length;
+            rest.forEachRemaining(p -> this.powers.row(p, this.answer, width * next[0]++));
+            for (Batch task : forked) {
+                task.join();
+            }
+        }
+    }
+
+    /**
+     * Evaluates content * a at x = u / v as the integer sum a_i u^i v^(n - i),
+     * scaled once by content / v^n.
+     */
+    private static RationalNumber homogeneous(BigInteger[] a, RationalNumber x,
+            RationalNumber content) {
+        if (a.length == 0) {
+            return new RationalNumber(0);
+        }
+        BigInteger u = x.getNumerator();
+        BigInteger v = x.getDenominator();
+        boolean integral = v.equals(BigInteger.ONE);
+        BigInteger value = a[a.length - 1];
+        BigInteger power = BigInteger.ONE;
+        for (int i = a.length - 2; i >= 0; i--) {
+            value = value.multiply(u);
+            if (!integral) {
+                power = power.multiply(v);
+            }
+            if (a[i].signum() != 0) {
+                value = value.add(integral ? a[i] : a[i].multiply(power));
+            }
+        }
+        return new RationalNumber(value.multiply(content.getNumerator()),
+                content.getDenominator().multiply(power));
+    }
+}
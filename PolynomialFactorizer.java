@@ -0,0 +1,864 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import RationalNumber.RationalNumber;
+
+/**
+ * Factorization engine for polynomials over the rationals.
+ *
+ * @author Kasper
+ *
+ * Splits a polynomial into a rational unit and primitive integer factors,
+ * irreducible over the rationals, with their multiplicities. The pipeline
+ * follows Zassenhaus: a power of x is split off, Yun's algorithm separates
+ * the square-free parts, and each part is factored modulo a prime that keeps
+ * it square-free, by distinct-degree factorization and Cantor-Zassenhaus
+ * equal-degree splitting. Several primes are tried and the one with the
+ * fewest modular factors is kept. The modular factors are lifted together
+ * with quadratic Hensel steps along a balanced factor tree until the modulus
+ * exceeds twice the leading coefficient times the Mignotte bound, and
+ * subsets of the lifted factors are recombined into true factors, smallest
+ * subsets first, with a cheap test on constant terms before each trial
+ * division. Square-free parts, candidate primes, equal-degree splits and the
+ * subtrees of the Hensel tree are processed in parallel on the common
+ * fork-join pool. Results are allocated with the input's
+ * {@code newInstance}.
+ *
+ * Polynomials over GF(p) stop after the modular stage: the leading residue is
+ * the unit, the square-free decomposition also takes p-th roots of the parts
+ * whose derivative vanishes, and the monic factors of the distinct- and
+ * equal-degree factorizations are the answer. Modulo 2 the equal-degree
+ * split uses the trace map in place of the (p ^ d - 1) / 2 power.
+ *
+ */
+public final class PolynomialFactorizer {
+
+    /**
+     * Number of primes whose modular factorizations are compared.
+     */
+    private static volatile int candidatePrimes = 5;
+
+    /**
+     * No instances.
+     */
+    private PolynomialFactorizer() {
+    }
+
+    /**
+     * A polynomial as a rational unit times a product of irreducible factors
+     * raised to their multiplicities.
+     */
+    public static final class Factorization {
+
+        /**
+         * The constant factor.
+         */
+        private final RationalNumber unit;
+
+        /**
+         * Irreducible primitive integer factors with positive leading
+         * coefficients, or monic irreducible factors over GF(p), by
+         * increasing degree.
+         */
+        private final List<Polynomial> factors;
+
+        /**
+         * Multiplicities parallel to {@code factors}.
+         */
+        private final int[] multiplicities;
+
+        Factorization(RationalNumber unit, List<Polynomial> factors, int[] multiplicities) {
+            this.unit = unit;
+            this.factors = factors;
+            this.multiplicities = multiplicities;
+        }
+
+        /**
+         * @return the constant factor u with p = u * product of
+         *         getFactor(i) ^ getMultiplicity(i)
+         */
+        public RationalNumber getUnit() {
+            return new RationalNumber(this.unit);
+        }
+
+        /**
+         * @return the number of distinct irreducible factors
+         */
+        public int size() {
+            return this.factors.size();
+        }
+
+        /**
+         * @return the i-th irreducible factor, primitive with integer
+         *         coefficients and a positive leading coefficient, or monic
+         *         over GF(p)
+         */
+        public Polynomial getFactor(int i) {
+            return this.factors.get(i);
+        }
+
+        /**
+         * @return the multiplicity of the i-th factor
+         */
+        public int getMultiplicity(int i) {
+            return this.multiplicities[i];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder answer = new StringBuilder("(" + this.unit + ")");
+            for (int i = 0; i < this.factors.size(); i++) {
+                answer.append(" * (").append(this.factors.get(i)).append(")");
+                if (this.multiplicities[i] > 1) {
+                    answer.append("^").append(this.multiplicities[i]);
+                }
+            }
+            return answer.toString();
+        }
+    }
+
+    /**
+     * Reports the number of primes whose modular factorizations are compared.
+     *
+     * @return the number of candidate primes
+     */
+    public static int getCandidatePrimes() {
+        return candidatePrimes;
+    }
+
+    /**
+     * Sets the number of primes whose modular factorizations are compared.
+     * More primes make a prime with few modular factors, and so a short
+     * recombination, more likely.
+     *
+     * @param count
+     *            the new number of candidate primes
+     *
+     * @requires count >= 1
+     */
+    public static void setCandidatePrimes(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Candidate primes must be at least 1");
+        }
+        candidatePrimes = count;
+    }
+
+    /**
+     * Factors {@code p} into irreducible factors over the rationals.
+     *
+     * @param p
+     *            the polynomial to factor
+     *
+     * @return the unit and the irreducible factors of p, of the same type as
+     *         p; the unit 0 and no factors if p is 0
+     */
+    public static Factorization factor(Polynomial p) {
+        PolynomialPrimitive primitive = new PolynomialPrimitive(p);
+        BigInteger[] a = primitive.primitive();
+        List<BigInteger[]> factors = new ArrayList<>();
+        List<Integer> multiplicities = new ArrayList<>();
+        if (a.length == 0) {
+            return new Factorization(new RationalNumber(0), new ArrayList<>(), new int[0]);
+        }
+        int low = PolynomialGcd.lowestPower(a);
+        if (low > 0) {                                                          //x ^ low
+            factors.add(new BigInteger[] {BigInteger.ZERO, BigInteger.ONE});
+            multiplicities.add(low);
+            a = Arrays.copyOfRange(a, low, a.length);
+        }
+        List<BigInteger[]> parts = squareFree(a);
+        List<List<BigInteger[]>> irreducible = parts.parallelStream()
+                .map(PolynomialFactorizer::zassenhaus).collect(Collectors.toList());
+        for (int i = 0; i < irreducible.size(); i++) {
+            for (BigInteger[] f : irreducible.get(i)) {
+                factors.add(f);
+                multiplicities.add(i + 1);
+            }
+        }
+
+        Integer[] order = new Integer[factors.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> compare(factors.get(i), factors.get(j)));
+        List<Polynomial> answer = new ArrayList<>();
+        int[] counts = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            Polynomial factor = p.newInstance();
+            BigInteger[] f = factors.get(order[i]);
+            RationalNumber[] coefficients = new RationalNumber[f.length];
+            for (int k = 0; k < f.length; k++) {
+                if (f[k].signum() != 0) {
+                    coefficients[k] = new RationalNumber(f[k]);
+                }
+            }
+            PolynomialMultiplier.fill(factor, coefficients);
+            answer.add(factor);
+            counts[i] = multiplicities.get(order[i]);
+        }
+        return new Factorization(primitive.content(), Collections.unmodifiableList(answer),
+                counts);
+    }
+
+    /**
+     * Factors the residue polynomial a over GF(p) into its leading residue
+     * and monic irreducible factors: square-free decomposition, then
+     * distinct- and equal-degree factorization of each part in parallel.
+     *
+     * @return the unit and the irreducible factors of a, of the type of
+     *         kernel; the unit 0 and no factors if a is 0
+     */
+    static Factorization factor(long[] a, long p, Polynomial kernel) {
+        long[] f = ModularArithmetic.trim(a);
+        if (f.length == 0) {
+            return new Factorization(new RationalNumber(0), new ArrayList<>(), new int[0]);
+        }
+        List<long[][]> parts = new ArrayList<>();
+        squareFree(ModularArithmetic.monic(f, p), p, 1, parts);
+        List<long[][]> factors = parts.parallelStream()
+                .flatMap(part -> distinctDegree(part[1], p).stream()
+                        .flatMap(same -> equalDegree(same[1], (int) same[0][0], p))
+                        .map(factor -> new long[][] {part[0], factor}))
+                .sorted((x, y) -> compare(x[1], y[1]))
+                .collect(Collectors.toList());
+        List<Polynomial> answer = new ArrayList<>();
+        int[] counts = new int[factors.size()];
+        for (int i = 0; i < counts.length; i++) {
+            long[] factor = factors.get(i)[1];
+            Polynomial polynomial = kernel.newInstance();
+            for (int k = factor.length - 1; k >= 0; k--) {
+                if (factor[k] != 0) {
+                    polynomial.addTerm(new RationalNumber(BigInteger.valueOf(factor[k])), k);
+                }
+            }
+            answer.add(polynomial);
+            counts[i] = (int) factors.get(i)[0][0];
+        }
+        return new Factorization(new RationalNumber(BigInteger.valueOf(f[f.length - 1])),
+                Collections.unmodifiableList(answer), counts);
+    }
+
+    /**
+     * Orders residue polynomials by degree, then by residues from the highest
+     * power down.
+     */
+    private static int compare(long[] a, long[] b) {
+        if (a.length != b.length) {
+            return Integer.compare(a.length, b.length);
+        }
+        for (int i = a.length - 1; i >= 0; i--) {
+            int c = Long.compare(a[i], b[i]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Orders integer polynomials by degree, then by coefficients from the
+     * highest power down.
+     */
+    private static int compare(BigInteger[] a, BigInteger[] b) {
+        if (a.length != b.length) {
+            return Integer.compare(a.length, b.length);
+        }
+        for (int i = a.length - 1; i >= 0; i--) {
+            int c = a[i].compareTo(b[i]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    /*
+     * Square-free decomposition ---------------------------------------------
+     */
+
+    /**
+     * Yun's square-free decomposition of a primitive integer polynomial with
+     * a positive leading coefficient: a = product of parts[i] ^ (i + 1), each
+     * part primitive and square-free, the parts pairwise coprime.
+     */
+    private static List<BigInteger[]> squareFree(BigInteger[] a) {
+        List<BigInteger[]> answer = new ArrayList<>();
+        if (a.length <= 1) {
+            return answer;
+        }
+        BigInteger[] d = derivative(a);
+        BigInteger[] c = PolynomialGcd.gcd(a, PolynomialGcd.primitivePart(d.clone()));
+        BigInteger[] w = exactQuotient(a, c);
+        BigInteger[] z = subtract(exactQuotient(d, c), derivative(w));
+        while (w.length > 1) {
+            BigInteger[] g = PolynomialGcd.gcd(w, (z.length == 0) ? z
+                    : PolynomialGcd.primitivePart(z.clone()));
+            answer.add(g);
+            w = exactQuotient(w, g);
+            z = subtract(exactQuotient(z, g), derivative(w));
+        }
+        return answer;
+    }
+
+    /**
+     * Square-free decomposition of a monic residue polynomial over GF(p),
+     * adding the pairs {{multiplicity}, part} to {@code answer}. Yun's steps
+     * find the parts whose multiplicity p does not divide; what is left has
+     * a zero derivative, so it is g(x ^ p) = g(x) ^ p, and g is decomposed
+     * with multiplicities scaled by p.
+     */
+    private static void squareFree(long[] f, long p, int scale, List<long[][]> answer) {
+        long[] c = ModularArithmetic.gcd(f, derivative(f, p), p);
+        long[] w = ModularArithmetic.divide(f, c, p)[0];
+        for (int i = 1; w.length > 1; i++) {
+            long[] y = ModularArithmetic.gcd(w, c, p);
+            long[] part = ModularArithmetic.divide(w, y, p)[0];
+            if (part.length > 1) {
+                answer.add(new long[][] {{Math.multiplyExact(i, scale)}, part});
+            }
+            w = y;
+            c = ModularArithmetic.divide(c, y, p)[0];
+        }
+        if (c.length > 1) {                                                     //c(x) = g(x ^ p)
+            long[] g = new long[(c.length - 1) / (int) p + 1];
+            for (int k = 0; k < g.length; k++) {
+                g[k] = c[k * (int) p];
+            }
+            squareFree(g, p, Math.multiplyExact(scale, (int) p), answer);
+        }
+    }
+
+    /*
+     * Zassenhaus --------------------------------------------------------------
+     */
+
+    /**
+     * Factors a square-free primitive integer polynomial with a positive
+     * leading coefficient and a nonzero constant term.
+     */
+    private static List<BigInteger[]> zassenhaus(BigInteger[] f) {
+        if (f.length <= 2) {
+            return (f.length == 2) ? Collections.singletonList(f) : Collections.emptyList();
+        }
+        Modular modular = modularFactors(f);
+        if (modular.factors.size() == 1) {
+            return Collections.singletonList(f);
+        }
+        BigInteger p = BigInteger.valueOf(modular.prime);
+        BigInteger bound = mignotte(f).multiply(f[f.length - 1]).shiftLeft(1);
+        BigInteger modulus = p;
+        while (modulus.compareTo(bound) <= 0) {
+            modulus = modulus.multiply(modulus);
+        }
+        List<BigInteger[]> lifted = ForkJoinPool.commonPool()
+                .invoke(new Lift(f, modular.factors, modular.prime, modulus));
+        return recombine(f, lifted, modulus);
+    }
+
+    /**
+     * Factorization of a polynomial modulo a prime into monic irreducible
+     * factors.
+     */
+    private static final class Modular {
+
+        /**
+         * The prime.
+         */
+        final long prime;
+
+        /**
+         * The monic irreducible factors.
+         */
+        final List<long[]> factors;
+
+        Modular(long prime, List<long[]> factors) {
+            this.prime = prime;
+            this.factors = factors;
+        }
+    }
+
+    /**
+     * Factors f modulo the best of several primes that divide neither its
+     * leading coefficient nor its discriminant. Distinct-degree factorization
+     * counts the modular factors for every prime in parallel; only the prime
+     * with the fewest is split further.
+     */
+    private static Modular modularFactors(BigInteger[] f) {
+        int count = candidatePrimes;
+        long[] primes = new long[count];
+        long candidate = ModularArithmetic.LARGEST_PRIME + 1;
+        for (int found = 0; found < count; ) {
+            candidate = ModularArithmetic.previousPrime(candidate);
+            if (ModularArithmetic.residue(f[f.length - 1], candidate) != 0) {
+                long[] image = MultiModular.residues(f, candidate);
+                if (ModularArithmetic.gcd(image, derivative(image, candidate), candidate).length == 1) {
+                    primes[found++] = candidate;
+                }
+            }
+        }
+        List<List<long[][]>> degrees = Arrays.stream(primes).parallel()
+                .mapToObj(q -> distinctDegree(MultiModular.residues(f, q), q))
+                .collect(Collectors.toList());
+        int best = 0;
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            int factors = 0;
+            for (long[][] part : degrees.get(i)) {
+                factors += (part[1].length - 1) / (int) part[0][0];
+            }
+            if (factors < fewest) {
+                fewest = factors;
+                best = i;
+            }
+        }
+        long q = primes[best];
+        List<long[]> factors = degrees.get(best).parallelStream()
+                .flatMap(part -> equalDegree(part[1], (int) part[0][0], q))
+                .collect(Collectors.toList());
+        return new Modular(q, factors);
+    }
+
+    /**
+     * Distinct-degree factorization of a square-free residue polynomial: for
+     * each d, the product of its irreducible factors of
+     * degree d, found as gcd(x ^ (p ^ d) - x, f).
+     *
+     * @return pairs {{d}, product}
+     */
+    private static List<long[][]> distinctDegree(long[] f, long p) {
+        List<long[][]> answer = new ArrayList<>();
+        long[] rest = ModularArithmetic.monic(ModularArithmetic.trim(f), p);
+        long[] x = {0, 1};
+        long[] h = x;
+        BigInteger prime = BigInteger.valueOf(p);
+        for (int d = 1; 2 * d <= rest.length - 1; d++) {
+            h = ModularArithmetic.powerMod(h, prime, rest, p);
+            long[] difference = Arrays.copyOf(h, Math.max(h.length, 2));
+            difference[1] = ModularArithmetic.subtract(difference[1], 1, p);
+            long[] g = ModularArithmetic.gcd(difference, rest, p);
+            if (g.length > 1) {
+                answer.add(new long[][] {{d}, g});
+                rest = ModularArithmetic.divide(rest, g, p)[0];
+                h = ModularArithmetic.divide(h, rest, p)[1];
+            }
+        }
+        if (rest.length > 1) {
+            answer.add(new long[][] {{rest.length - 1}, rest});
+        }
+        return answer;
+    }
+
+    /**
+     * Reports the product of the linear factors of a residue polynomial,
+     * gcd(x ^ p - x, f), monic.
+     */
+    static long[] linearPart(long[] f, long p) {
+        long[] rest = ModularArithmetic.monic(ModularArithmetic.trim(f), p);
+        if (rest.length < 2) {
+            return new long[] {1};
+        }
+        long[] h = ModularArithmetic.powerMod(new long[] {0, 1}, BigInteger.valueOf(p), rest, p);
+        long[] difference = Arrays.copyOf(h, Math.max(h.length, 2));
+        difference[1] = ModularArithmetic.subtract(difference[1], 1, p);
+        return ModularArithmetic.gcd(difference, rest, p);
+    }
+
+    /**
+     * Reports the roots of a monic product of distinct linear factors modulo
+     * an odd prime, split by {@code equalDegree}.
+     */
+    static long[] roots(long[] linear, long p) {
+        if (linear.length < 2) {
+            return new long[0];
+        }
+        return equalDegree(linear, 1, p).mapToLong(factor -> ModularArithmetic.multiply(
+                ModularArithmetic.subtract(0, factor[0], p), ModularArithmetic.inverse(factor[1], p), p))
+                .toArray();
+    }
+
+    /**
+     * Cantor-Zassenhaus equal-degree splitting of a monic product of
+     * irreducible factors of degree d: for a random a, gcd(a ^ ((p ^ d - 1) /
+     * 2) - 1, f) modulo an odd prime, or gcd(a + a ^ 2 + ... + a ^ (2 ^ (d -
+     * 1)), f) modulo 2, is a proper factor about half the time. The two parts
+     * are split in parallel.
+     */
+    private static Stream<long[]> equalDegree(long[] f, int d, long p) {
+        int n = f.length - 1;
+        if (n == d) {
+            return Stream.of(f);
+        }
+        BigInteger exponent = BigInteger.valueOf(p).pow(d).shiftRight(1);     //(p ^ d - 1) / 2 for odd p
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            long[] a = new long[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = random.nextLong(p);
+            }
+            a = ModularArithmetic.trim(a);
+            if (a.length < 2) {
+                continue;
+            }
+            long[] g = ModularArithmetic.gcd(a, f, p);
+            if (g.length == 1) {
+                long[] c = (p == 2) ? trace(a, d, f) : ModularArithmetic.powerMod(a, exponent, f, p);
+                if (c.length == 0) {
+                    continue;
+                }
+                if (p != 2) {
+                    c[0] = ModularArithmetic.subtract(c[0], 1, p);
+                }
+                g = ModularArithmetic.gcd(c, f, p);
+            }
+            if (g.length > 1 && g.length < f.length) {
+                long[] other = ModularArithmetic.divide(f, g, p)[0];
+                return Stream.of(g, other).parallel().flatMap(q -> equalDegree(q, d, p));
+            }
+        }
+    }
+
+    /**
+     * Reports a + a ^ 2 + ... + a ^ (2 ^ (d - 1)) mod f over GF(2), trimmed.
+     */
+    private static long[] trace(long[] a, int d, long[] f) {
+        long[] answer = Arrays.copyOf(a, f.length);
+        long[] t = a;
+        for (int i = 1; i < d; i++) {
+            t = ModularArithmetic.powerMod(t, BigInteger.TWO, f, 2);
+            for (int k = 0; k < t.length; k++) {
+                answer[k] ^= t[k];
+            }
+        }
+        return ModularArithmetic.trim(answer);
+    }
+
+    /*
+     * Hensel lifting ----------------------------------------------------------
+     */
+
+    /**
+     * Lifts f = lc(f) * product of factors mod p to a factorization modulo
+     * {@code modulus}, a power of p. The factors are split into two halves, the
+     * products of the halves are lifted by quadratic Hensel steps, and the
+     * halves are lifted further in parallel.
+     */
+    private static final class Lift extends RecursiveTask<List<BigInteger[]>> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The polynomial to lift against, known modulo {@code modulus}.
+         */
+        private final BigInteger[] f;
+
+        /**
+         * Its monic factors modulo p.
+         */
+        private final List<long[]> factors;
+
+        /**
+         * The prime.
+         */
+        private final long p;
+
+        /**
+         * The target modulus, p ^ (2 ^ k).
+         */
+        private final BigInteger modulus;
+
+        Lift(BigInteger[] f, List<long[]> factors, long p, BigInteger modulus) {
+            this.f = f;
+            this.factors = factors;
+            this.p = p;
+            this.modulus = modulus;
+        }
+
+        @Override
+        protected List<BigInteger[]> compute() {
+            BigInteger lead = this.f[this.f.length - 1];
+            if (this.factors.size() == 1) {
+                BigInteger inverse = lead.modInverse(this.modulus);
+                return Collections.singletonList(reduce(scale(this.f, inverse), this.modulus));
+            }
+            int half = this.factors.size() / 2;
+            List<long[]> left = this.factors.subList(0, half);
+            List<long[]> right = this.factors.subList(half, this.factors.size());
+            long[] g0 = {ModularArithmetic.residue(lead, this.p)};
+            for (long[] factor : left) {
+                g0 = ModularArithmetic.multiply(g0, factor, this.p);
+            }
+            long[] h0 = {1};
+            for (long[] factor : right) {
+                h0 = ModularArithmetic.multiply(h0, factor, this.p);
+            }
+            long[][] bezout = ModularArithmetic.extendedGcd(g0, h0, this.p);
+            BigInteger[] g = big(g0);
+            BigInteger[] h = big(h0);
+            BigInteger[] s = big(bezout[1]);
+            BigInteger[] t = big(bezout[2]);
+            BigInteger m = BigInteger.valueOf(this.p);
+            while (m.compareTo(this.modulus) < 0) {
+                m = m.multiply(m);
+                BigInteger[] e = subtract(this.f, multiply(g, h, m), m);
+                BigInteger[][] qr = divide(multiply(s, e, m), h, m);
+                BigInteger[] gNew = reduce(add(add(g, multiply(t, e, m)), multiply(qr[0], g, m)), m);
+                BigInteger[] hNew = reduce(add(h, qr[1]), m);
+                BigInteger[] b = subtract(add(multiply(s, gNew, m), multiply(t, hNew, m)),
+                        new BigInteger[] {BigInteger.ONE}, m);
+                BigInteger[][] cd = divide(multiply(s, b, m), hNew, m);
+                s = subtract(s, cd[1], m);
+                t = subtract(subtract(t, multiply(t, b, m), m), multiply(cd[0], gNew, m), m);
+                g = gNew;
+                h = hNew;
+            }
+            Lift first = new Lift(g, left, this.p, this.modulus);
+            Lift second = new Lift(h, right, this.p, this.modulus);
+            invokeAll(first, second);
+            List<BigInteger[]> answer = new ArrayList<>(first.join());
+            answer.addAll(second.join());
+            return answer;
+        }
+    }
+
+    /*
+     * Recombination -----------------------------------------------------------
+     */
+
+    /**
+     * Combines the monic lifted factors of f modulo {@code modulus} into the
+     * irreducible factors of f over the integers, trying subsets of k factors
+     * for k = 1, 2, ... A subset whose product, times lc(f), has a constant
+     * term that does not divide lc(f) * f(0) is rejected before the product
+     * is formed.
+     */
+    private static List<BigInteger[]> recombine(BigInteger[] f, List<BigInteger[]> lifted,
+            BigInteger modulus) {
+        List<BigInteger[]> answer = new ArrayList<>();
+        List<BigInteger[]> remaining = new ArrayList<>(lifted);
+        BigInteger half = modulus.shiftRight(1);
+        int k = 1;
+        while (2 * k <= remaining.size()) {
+            int[] subset = find(f, remaining, k, modulus, half);
+            if (subset == null) {
+                k++;
+                continue;
+            }
+            BigInteger[] factor = candidate(f, remaining, subset, modulus);
+            answer.add(factor);
+            f = exactQuotient(f, factor);
+            for (int i = subset.length - 1; i >= 0; i--) {
+                remaining.remove(subset[i]);
+            }
+        }
+        answer.add(f);
+        return answer;
+    }
+
+    /**
+     * Finds a subset of k of the lifted factors whose product is a factor of
+     * f, or null.
+     */
+    private static int[] find(BigInteger[] f, List<BigInteger[]> lifted, int k,
+            BigInteger modulus, BigInteger half) {
+        BigInteger lead = f[f.length - 1];
+        BigInteger target = lead.multiply(f[0]);
+        int[] subset = new int[k];
+        for (int i = 0; i < k; i++) {
+            subset[i] = i;
+        }
+        while (true) {
+            BigInteger constant = lead;
+            for (int i : subset) {
+                constant = constant.multiply(lifted.get(i)[0]).mod(modulus);
+            }
+            if (constant.compareTo(half) > 0) {
+                constant = constant.subtract(modulus);
+            }
+            if (constant.signum() != 0 && target.mod(constant.abs()).signum() == 0) {
+                BigInteger[] factor = candidate(f, lifted, subset, modulus);
+                if (PolynomialGcd.divides(factor, f)) {
+                    return subset;
+                }
+            }
+            int i = k - 1;                                                      //next subset in lexicographic order
+            while (i >= 0 && subset[i] == lifted.size() - k + i) {
+                i--;
+            }
+            if (i < 0) {
+                return null;
+            }
+            subset[i]++;
+            for (int j = i + 1; j < k; j++) {
+                subset[j] = subset[j - 1] + 1;
+            }
+        }
+    }
+
+    /**
+     * Reports the primitive part of lc(f) times the product of the chosen
+     * lifted factors, in symmetric representation.
+     */
+    private static BigInteger[] candidate(BigInteger[] f, List<BigInteger[]> lifted, int[] subset,
+            BigInteger modulus) {
+        BigInteger[] product = {f[f.length - 1]};
+        for (int i : subset) {
+            product = multiply(product, lifted.get(i), modulus);
+        }
+        return PolynomialGcd.primitivePart(PolynomialGcd.symmetric(product, modulus));
+    }
+
+    /**
+     * Mignotte's bound 2 ^ n * ||f||_2 on the coefficients of any factor of
+     * f, rounded up.
+     */
+    private static BigInteger mignotte(BigInteger[] f) {
+        BigInteger norm = BigInteger.ZERO;
+        for (BigInteger c : f) {
+            norm = norm.add(c.multiply(c));
+        }
+        return norm.sqrt().add(BigInteger.ONE).shiftLeft(f.length - 1);
+    }
+
+    /*
+     * Integer and modular polynomial arithmetic -------------------------------
+     */
+
+    /**
+     * Exact quotient of integer polynomials, where b divides a.
+     */
+    static BigInteger[] exactQuotient(BigInteger[] a, BigInteger[] b) {
+        PolynomialPrimitive.PseudoDivision division = PolynomialPrimitive.pseudoDivide(a, b, false);
+        BigInteger[] answer = division.quotient;
+        if (!division.multiplier.equals(BigInteger.ONE)) {
+            for (int i = 0; i < answer.length; i++) {
+                answer[i] = answer[i].divide(division.multiplier);
+            }
+        }
+        return PolynomialGcd.trim(answer);
+    }
+
+    /**
+     * @return the derivative of a, trimmed
+     */
+    static BigInteger[] derivative(BigInteger[] a) {
+        BigInteger[] answer = new BigInteger[Math.max(0, a.length - 1)];
+        for (int i = 1; i < a.length; i++) {
+            answer[i - 1] = a[i].multiply(BigInteger.valueOf(i));
+        }
+        return PolynomialGcd.trim(answer);
+    }
+
+    /**
+     * @return the derivative of the residue polynomial a mod p
+     */
+    private static long[] derivative(long[] a, long p) {
+        long[] answer = new long[Math.max(0, a.length - 1)];
+        for (int i = 1; i < a.length; i++) {
+            answer[i - 1] = ModularArithmetic.multiply(a[i], i % p, p);
+        }
+        return ModularArithmetic.trim(answer);
+    }
+
+    /**
+     * @return a + b
+     */
+    private static BigInteger[] add(BigInteger[] a, BigInteger[] b) {
+        BigInteger[] answer = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for (int i = 0; i < answer.length; i++) {
+            BigInteger x = (i < a.length) ? a[i] : BigInteger.ZERO;
+            answer[i] = (i < b.length) ? x.add(b[i]) : x;
+        }
+        return answer;
+    }
+
+    /**
+     * @return a - b, trimmed
+     */
+    private static BigInteger[] subtract(BigInteger[] a, BigInteger[] b) {
+        BigInteger[] answer = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for (int i = 0; i < answer.length; i++) {
+            BigInteger x = (i < a.length) ? a[i] : BigInteger.ZERO;
+            answer[i] = (i < b.length) ? x.subtract(b[i]) : x;
+        }
+        return PolynomialGcd.trim(answer);
+    }
+
+    /**
+     * @return a - b mod m
+     */
+    private static BigInteger[] subtract(BigInteger[] a, BigInteger[] b, BigInteger m) {
+        return reduce(subtract(a, b), m);
+    }
+
+    /**
+     * @return a * b mod m
+     */
+    private static BigInteger[] multiply(BigInteger[] a, BigInteger[] b, BigInteger m) {
+        return reduce(PolynomialPrimitive.multiply(a, b), m);
+    }
+
+    /**
+     * @return c * a
+     */
+    private static BigInteger[] scale(BigInteger[] a, BigInteger c) {
+        BigInteger[] answer = new BigInteger[a.length];
+        for (int i = 0; i < a.length; i++) {
+            answer[i] = a[i].multiply(c);
+        }
+        return answer;
+    }
+
+    /**
+     * @return a with every coefficient in [0, m), trimmed
+     */
+    private static BigInteger[] reduce(BigInteger[] a, BigInteger m) {
+        BigInteger[] answer = new BigInteger[a.length];
+        for (int i = 0; i < a.length; i++) {
+            answer[i] = a[i].mod(m);
+        }
+        return PolynomialGcd.trim(answer);
+    }
+
+    /**
+     * Divides a by the monic b modulo m.
+     *
+     * @return {quotient, remainder} modulo m
+     */
+    private static BigInteger[][] divide(BigInteger[] a, BigInteger[] b, BigInteger m) {
+        int d = b.length - 1;
+        if (a.length - 1 < d) {
+            return new BigInteger[][] {new BigInteger[0], a};
+        }
+        BigInteger[] r = a.clone();
+        BigInteger[] q = new BigInteger[a.length - d];
+        for (int k = q.length - 1; k >= 0; k--) {
+            BigInteger c = r[k + d].mod(m);
+            q[k] = c;
+            if (c.signum() != 0) {
+                for (int j = 0; j < d; j++) {
+                    r[k + j] = r[k + j].subtract(c.multiply(b[j]));
+                }
+            }
+        }
+        return new BigInteger[][] {reduce(q, m), reduce(Arrays.copyOf(r, d), m)};
+    }
+
+    /**
+     * @return the residues a as integers
+     */
+    private static BigInteger[] big(long[] a) {
+        BigInteger[] answer = new BigInteger[a.length];
+        for (int i = 0; i < a.length; i++) {
+            answer[i] = BigInteger.valueOf(a[i]);
+        }
+        return answer;
+    }
+}
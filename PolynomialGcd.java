@@ -0,0 +1,486 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import RationalNumber.RationalNumber;
+
+/**
+ * Greatest common divisor engine for polynomials.
+ *
+ * @author Kasper
+ *
+ * Works on the primitive integer parts of the operands, so that no rational
+ * coefficient is ever formed before the result: over the rationals the gcd of
+ * two polynomials is the gcd of their primitive parts, made monic. A common
+ * power of x is split off first. Inputs of small degree run the subresultant
+ * polynomial remainder sequence, whose exact divisions keep the coefficients
+ * of the remainders at the size of their determinant bounds. Larger ones use
+ * Brown's modular algorithm: monic gcds modulo word-size primes, scaled by
+ * the gcd of the leading coefficients, are combined by CRT until the lift
+ * stops changing and divides both operands. Primes whose image has too high
+ * a degree are unlucky and skipped. Cofactors of the extended gcd are
+ * recovered by rational reconstruction from cofactors modulo primes. Results
+ * are monic and allocated with the first operand's {@code newInstance}.
+ *
+ */
+public final class PolynomialGcd {
+
+    /**
+     * Smaller degree from which the modular algorithm replaces the
+     * subresultant sequence.
+     */
+    private static volatile int modularThreshold = 6;
+
+    /**
+     * No instances.
+     */
+    private PolynomialGcd() {
+    }
+
+    /**
+     * Greatest common divisor of two polynomials with its Bezout cofactors.
+     */
+    public static final class ExtendedGcd {
+
+        /**
+         * The monic gcd.
+         */
+        private final Polynomial gcd;
+
+        /**
+         * Cofactor of the first operand.
+         */
+        private final Polynomial s;
+
+        /**
+         * Cofactor of the second operand.
+         */
+        private final Polynomial t;
+
+        ExtendedGcd(Polynomial gcd, Polynomial s, Polynomial t) {
+            this.gcd = gcd;
+            this.s = s;
+            this.t = t;
+        }
+
+        /**
+         * @return the monic gcd g of a and b
+         */
+        public Polynomial getGcd() {
+            return this.gcd;
+        }
+
+        /**
+         * @return s with s * a + t * b = g and deg s < deg b - deg g
+         */
+        public Polynomial getS() {
+            return this.s;
+        }
+
+        /**
+         * @return t with s * a + t * b = g and deg t < deg a - deg g
+         */
+        public Polynomial getT() {
+            return this.t;
+        }
+    }
+
+    /**
+     * Reports the smaller degree from which the modular algorithm replaces
+     * the subresultant sequence.
+     *
+     * @return the modular threshold
+     */
+    public static int getModularThreshold() {
+        return modularThreshold;
+    }
+
+    /**
+     * Sets the smaller degree from which the modular algorithm replaces the
+     * subresultant sequence.
+     *
+     * @param threshold
+     *            the new modular threshold
+     *
+     * @requires threshold >= 1
+     */
+    public static void setModularThreshold(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Modular threshold must be at least 1");
+        }
+        modularThreshold = threshold;
+    }
+
+    /**
+     * Computes the greatest common divisor of {@code a} and {@code b}.
+     *
+     * @param a
+     *            the first polynomial
+     * @param b
+     *            the second polynomial
+     *
+     * @return the monic gcd of a and b, of the same type as a, or 0 if both
+     *         are 0
+     */
+    public static Polynomial gcd(Polynomial a, Polynomial b) {
+        Polynomial answer = a.newInstance();
+        PolynomialMultiplier.fill(answer, monic(gcd(primitive(a), primitive(b))));
+        return answer;
+    }
+
+    /**
+     * Computes the least common multiple of {@code a} and {@code b}.
+     *
+     * @param a
+     *            the first polynomial
+     * @param b
+     *            the second polynomial
+     *
+     * @return the monic lcm of a and b, of the same type as a, or 0 if either
+     *         is 0
+     */
+    public static Polynomial lcm(Polynomial a, Polynomial b) {
+        BigInteger[] x = primitive(a);
+        BigInteger[] y = primitive(b);
+        Polynomial answer = a.newInstance();
+        if (x.length > 0 && y.length > 0) {
+            BigInteger[] cofactor = PolynomialPrimitive.pseudoDivide(x, gcd(x, y), false).quotient;
+            PolynomialMultiplier.fill(answer, monic(PolynomialPrimitive.multiply(cofactor, y)));
+        }
+        return answer;
+    }
+
+    /**
+     * Computes the greatest common divisor g of {@code a} and {@code b}
+     * together with cofactors s and t of least degree such that s * a + t * b
+     * = g.
+     *
+     * @param a
+     *            the first polynomial
+     * @param b
+     *            the second polynomial
+     *
+     * @return g, s and t, of the same type as a; all 0 if a and b are 0
+     */
+    public static ExtendedGcd extendedGcd(Polynomial a, Polynomial b) {
+        PolynomialPrimitive pa = new PolynomialPrimitive(a);
+        PolynomialPrimitive pb = new PolynomialPrimitive(b);
+        BigInteger[] x = pa.primitive();
+        BigInteger[] y = pb.primitive();
+        BigInteger[] g = gcd(x, y);
+        Polynomial gcd = a.newInstance();
+        Polynomial s = a.newInstance();
+        Polynomial t = a.newInstance();
+        if (g.length == 0) {
+            return new ExtendedGcd(gcd, s, t);
+        }
+        PolynomialMultiplier.fill(gcd, monic(g));
+        BigInteger lead = g[g.length - 1];
+        BigInteger[] u = PolynomialPrimitive.pseudoDivide(x, g, false).quotient;    //a = content(a) * lc(g) * u * gcd
+        BigInteger[] v = PolynomialPrimitive.pseudoDivide(y, g, false).quotient;
+        if (v.length == 1) {
+            PolynomialMultiplier.fill(t, new RationalNumber[] {
+                    inverse(pb.content(), lead, v[0])});
+        } else if (u.length == 1) {
+            PolynomialMultiplier.fill(s, new RationalNumber[] {
+                    inverse(pa.content(), lead, u[0])});
+        } else {
+            RationalNumber[] cofactors = cofactors(u, v);
+            PolynomialMultiplier.fill(s, scale(cofactors, 0, v.length - 1,
+                    inverse(pa.content(), lead, BigInteger.ONE)));
+            PolynomialMultiplier.fill(t, scale(cofactors, v.length - 1, u.length - 1,
+                    inverse(pb.content(), lead, BigInteger.ONE)));
+        }
+        return new ExtendedGcd(gcd, s, t);
+    }
+
+    /**
+     * Reports the primitive part of {@code p} as a trimmed integer array with
+     * a positive leading coefficient, the empty array for 0.
+     */
+    private static BigInteger[] primitive(Polynomial p) {
+        PolynomialPrimitive answer = (p instanceof PolynomialPrimitive) ? (PolynomialPrimitive) p
+                : new PolynomialPrimitive(p);
+        return answer.primitive();
+    }
+
+    /**
+     * Computes the primitive gcd of two primitive integer polynomials, with a
+     * positive leading coefficient, the empty array if both are 0.
+     *
+     * @param a
+     *            the first polynomial, primitive and trimmed
+     * @param b
+     *            the second polynomial, primitive and trimmed
+     *
+     * @return the primitive gcd of a and b
+     */
+    static BigInteger[] gcd(BigInteger[] a, BigInteger[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        int aLow = lowestPower(a);
+        int bLow = lowestPower(b);
+        a = Arrays.copyOfRange(a, aLow, a.length);
+        b = Arrays.copyOfRange(b, bLow, b.length);
+        BigInteger[] answer;
+        if (a.length == 1 || b.length == 1) {
+            answer = new BigInteger[] {BigInteger.ONE};
+        } else if (Math.min(a.length, b.length) - 1 >= modularThreshold) {
+            answer = modular(a, b);
+        } else {
+            answer = subresultant(a, b);
+        }
+        int shift = Math.min(aLow, bLow);                                       //x ^ shift divides both
+        if (shift > 0) {
+            BigInteger[] shifted = new BigInteger[answer.length + shift];
+            Arrays.fill(shifted, 0, shift, BigInteger.ZERO);
+            System.arraycopy(answer, 0, shifted, shift, answer.length);
+            answer = shifted;
+        }
+        return answer;
+    }
+
+    /**
+     * Subresultant polynomial remainder sequence: each pseudo-remainder is
+     * divided exactly by g * h ^ delta, where g is the leading coefficient of
+     * the previous divisor and h tracks the subresultant scale.
+     */
+    private static BigInteger[] subresultant(BigInteger[] a, BigInteger[] b) {
+        if (a.length < b.length) {
+            BigInteger[] swap = a;
+            a = b;
+            b = swap;
+        }
+        BigInteger g = BigInteger.ONE;
+        BigInteger h = BigInteger.ONE;
+        while (true) {
+            int delta = a.length - b.length;
+            BigInteger[] r = trim(PolynomialPrimitive.pseudoDivide(a, b, true).remainder);
+            if (r.length == 0) {
+                return primitivePart(b);
+            }
+            if (r.length == 1) {
+                return new BigInteger[] {BigInteger.ONE};
+            }
+            BigInteger divisor = g.multiply(h.pow(delta));
+            for (int i = 0; i < r.length; i++) {
+                r[i] = r[i].divide(divisor);
+            }
+            a = b;
+            b = r;
+            g = a[a.length - 1];
+            if (delta > 0) {
+                h = g.pow(delta).divide(h.pow(delta - 1));
+            }
+        }
+    }
+
+    /**
+     * Brown's modular gcd. Images are taken modulo primes that divide neither
+     * leading coefficient and scaled so that their leading coefficient is the
+     * gcd of the leading coefficients, which makes them images of a single
+     * integer polynomial. An image of lower degree than those combined so far
+     * shows that all of them were unlucky and starts over.
+     */
+    private static BigInteger[] modular(BigInteger[] a, BigInteger[] b) {
+        BigInteger aLead = a[a.length - 1];
+        BigInteger bLead = b[b.length - 1];
+        BigInteger gamma = aLead.gcd(bLead);
+        BigInteger[] combined = null;
+        BigInteger modulus = BigInteger.ONE;
+        BigInteger[] previous = null;
+        for (int i = 0; ; i++) {
+            long p = MultiModular.prime(i);
+            if (ModularArithmetic.residue(aLead, p) == 0
+                    || ModularArithmetic.residue(bLead, p) == 0) {
+                continue;
+            }
+            long[] image = ModularArithmetic.gcd(MultiModular.residues(a, p),
+                    MultiModular.residues(b, p), p);
+            if (image.length == 1) {
+                return new BigInteger[] {BigInteger.ONE};
+            }
+            if (combined != null && image.length > combined.length) {             //unlucky prime
+                continue;
+            }
+            if (combined == null || image.length < combined.length) {
+                combined = new BigInteger[image.length];
+                Arrays.fill(combined, BigInteger.ZERO);
+                modulus = BigInteger.ONE;
+                previous = null;
+            }
+            long c = ModularArithmetic.residue(gamma, p);
+            for (int k = 0; k < image.length; k++) {
+                image[k] = image[k] * c % p;
+            }
+            MultiModular.combine(combined, modulus, image, p);
+            modulus = modulus.multiply(BigInteger.valueOf(p));
+            BigInteger[] candidate = symmetric(combined, modulus);
+            if (Arrays.equals(candidate, previous)) {                           //lift stabilized
+                BigInteger[] answer = primitivePart(candidate);
+                if (divides(answer, a) && divides(answer, b)) {
+                    return answer;
+                }
+            }
+            previous = candidate;
+        }
+    }
+
+    /**
+     * Cofactors S and T of least degree with S * u + T * v = 1 for coprime
+     * integer polynomials u and v of positive degree, as one array holding S
+     * (deg v entries) followed by T (deg u entries).
+     */
+    private static RationalNumber[] cofactors(BigInteger[] u, BigInteger[] v) {
+        int m = v.length - 1;
+        int n = u.length - 1;
+        return MultiModular.reconstruct(p -> {
+            if (ModularArithmetic.residue(u[n], p) == 0
+                    || ModularArithmetic.residue(v[m], p) == 0) {
+                return null;
+            }
+            long[][] bezout = ModularArithmetic.extendedGcd(MultiModular.residues(u, p),
+                    MultiModular.residues(v, p), p);
+            if (bezout[0].length != 1) {                                        //not coprime modulo p
+                return null;
+            }
+            long[] image = Arrays.copyOf(bezout[1], m + n);
+            System.arraycopy(bezout[2], 0, image, m, bezout[2].length);
+            return image;
+        }, candidate -> {
+            BigInteger denominator = BigInteger.ONE;
+            for (RationalNumber c : candidate) {
+                if (c != null) {
+                    BigInteger d = c.getDenominator();
+                    denominator = denominator.multiply(d).divide(denominator.gcd(d));
+                }
+            }
+            BigInteger[] scaled = new BigInteger[candidate.length];
+            for (int i = 0; i < candidate.length; i++) {
+                scaled[i] = (candidate[i] == null) ? BigInteger.ZERO
+                        : candidate[i].getNumerator()
+                                .multiply(denominator.divide(candidate[i].getDenominator()));
+            }
+            BigInteger[] left = PolynomialPrimitive.multiply(Arrays.copyOf(scaled, m), u);
+            BigInteger[] right = PolynomialPrimitive.multiply(
+                    Arrays.copyOfRange(scaled, m, m + n), v);
+            for (int i = 0; i < m + n; i++) {
+                BigInteger sum = left[i].add(right[i]);
+                if (!sum.equals((i == 0) ? denominator : BigInteger.ZERO)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Reports whether the integer polynomial {@code b} divides {@code a}.
+     */
+    static boolean divides(BigInteger[] b, BigInteger[] a) {
+        for (BigInteger r : PolynomialPrimitive.pseudoDivide(a, b, false).remainder) {
+            if (r.signum() != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reports 1 / (content * lead * c).
+     */
+    private static RationalNumber inverse(RationalNumber content, BigInteger lead, BigInteger c) {
+        return new RationalNumber(content.getDenominator(),
+                content.getNumerator().multiply(lead).multiply(c));
+    }
+
+    /**
+     * Copies a[offset, offset + length), multiplying each entry by
+     * {@code factor}.
+     */
+    private static RationalNumber[] scale(RationalNumber[] a, int offset, int length,
+            RationalNumber factor) {
+        RationalNumber[] answer = new RationalNumber[length];
+        for (int i = 0; i < length; i++) {
+            if (a[offset + i] != null) {
+                answer[i] = new RationalNumber(a[offset + i]);
+                answer[i].multiply(factor);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Divides {@code a} by its leading coefficient, null for zero entries.
+     */
+    private static RationalNumber[] monic(BigInteger[] a) {
+        RationalNumber[] answer = new RationalNumber[a.length];
+        if (a.length > 0) {
+            BigInteger lead = a[a.length - 1];
+            for (int i = 0; i < a.length; i++) {
+                if (a[i].signum() != 0) {
+                    answer[i] = new RationalNumber(a[i], lead);
+                }
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Divides {@code a} by its content and makes its leading coefficient
+     * positive, in place.
+     */
+    static BigInteger[] primitivePart(BigInteger[] a) {
+        BigInteger content = BigInteger.ZERO;
+        for (int i = a.length - 1; i >= 0 && !content.equals(BigInteger.ONE); i--) {
+            content = content.gcd(a[i]);
+        }
+        if (a[a.length - 1].signum() < 0) {
+            content = content.negate();
+        }
+        if (!content.equals(BigInteger.ONE)) {
+            for (int i = 0; i < a.length; i++) {
+                a[i] = a[i].divide(content);
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Maps residues modulo {@code modulus} to the symmetric range.
+     */
+    static BigInteger[] symmetric(BigInteger[] a, BigInteger modulus) {
+        BigInteger half = modulus.shiftRight(1);
+        BigInteger[] answer = new BigInteger[a.length];
+        for (int i = 0; i < a.length; i++) {
+            answer[i] = (a[i].compareTo(half) > 0) ? a[i].subtract(modulus) : a[i];
+        }
+        return answer;
+    }
+
+    /**
+     * Reports the lowest power with a nonzero coefficient in the nonzero
+     * {@code a}.
+     */
+    static int lowestPower(BigInteger[] a) {
+        int answer = 0;
+        while (a[answer].signum() == 0) {
+            answer++;
+        }
+        return answer;
+    }
+
+    /**
+     * Drops trailing zeros from {@code a}.
+     */
+    static BigInteger[] trim(BigInteger[] a) {
+        int length = a.length;
+        while (length > 0 && a[length - 1].signum() == 0) {
+            length--;
+        }
+        return (length == a.length) ? a : Arrays.copyOf(a, length);
+    }
+}
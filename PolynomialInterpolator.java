@@ -0,0 +1,295 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import RationalNumber.RationalNumber;
+
+/**
+ * Interpolation engine for polynomials.
+ *
+ * @author Kasper
+ *
+ * Finds the polynomial of least degree through given points. Newton's divided
+ * differences are kept incrementally: appending a point updates the last
+ * diagonal of the table, the product of x - x_k over the points so far and
+ * the coefficients of the interpolant, O(n) operations in all, so samples can
+ * be fed one at a time and the polynomial read at any point.
+ *
+ * Large batches are interpolated modulo word-size primes instead, each image
+ * by Lagrange's formula on the subproduct tree of {@code PolynomialEvaluator}
+ * with transform products, quasi-linear in the number of points. The images
+ * are combined by CRT and rational reconstruction in {@code MultiModular}
+ * until the candidate takes the given values at every point. Primes dividing
+ * a denominator or merging two points are skipped. Over GF(p) the tree runs
+ * once, modulo p. Results are allocated with the caller's
+ * {@code newInstance}; the points and values are never modified.
+ *
+ */
+public final class PolynomialInterpolator {
+
+    /**
+     * Number of points from which a batch is interpolated modulo primes on
+     * the subproduct tree rather than by divided differences.
+     */
+    private static volatile int treeThreshold = 64;
+
+    /**
+     * No instances.
+     */
+    private PolynomialInterpolator() {
+    }
+
+    /**
+     * Reports the number of points from which the subproduct tree is used.
+     *
+     * @return the tree threshold
+     */
+    public static int getTreeThreshold() {
+        return treeThreshold;
+    }
+
+    /**
+     * Sets the number of points from which the subproduct tree is used.
+     *
+     * @param threshold
+     *            the new tree threshold
+     *
+     * @requires threshold >= 1
+     */
+    public static void setTreeThreshold(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Tree threshold must be at least 1");
+        }
+        treeThreshold = threshold;
+    }
+
+    /**
+     * Incremental interpolation by Newton's divided differences.
+     */
+    public static final class Newton {
+
+        /**
+         * Polynomial whose {@code newInstance} allocates the results.
+         */
+        private final Polynomial kernel;
+
+        /**
+         * The points so far, x_0 ... x_(n-1).
+         */
+        private RationalNumber[] points = new RationalNumber[0];
+
+        /**
+         * The last diagonal of the table: entry k is the divided difference
+         * f[x_k, ..., x_(n-1)], so entry 0 is the leading Newton coefficient.
+         */
+        private RationalNumber[] differences = new RationalNumber[0];
+
+        /**
+         * The product of x - x_k over the points so far, indexed by power.
+         */
+        private RationalNumber[] basis = {new RationalNumber(1)};
+
+        /**
+         * The coefficients of the interpolant, indexed by power.
+         */
+        private RationalNumber[] coefficients = new RationalNumber[0];
+
+        private int size;
+
+        /**
+         * Starts an interpolation with no points.
+         *
+         * @param kernel
+         *            polynomial whose {@code newInstance} allocates the results
+         */
+        public Newton(Polynomial kernel) {
+            this.kernel = kernel;
+        }
+
+        /**
+         * Reports the number of points.
+         *
+         * @return the number of points added so far
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * Appends the point (x, y).
+         *
+         * @param x
+         *            the abscissa
+         * @param y
+         *            the value at x
+         *
+         * @updates this
+         *
+         * @requires x differs from every point added before
+         *
+         * @ensures polynomial() takes the value y at x and the values of
+         *          #polynomial() at the earlier points
+         */
+        public void add(RationalNumber x, RationalNumber y) {
+            int n = this.size;
+            RationalNumber[] gaps = new RationalNumber[n];
+            for (int k = 0; k < n; k++) {                                       //checked before anything changes
+                gaps[k] = new RationalNumber(x);
+                gaps[k].subtract(this.points[k]);
+                if (gaps[k].getNumerator().signum() == 0) {
+                    throw new ArithmeticException("Interpolation points must be distinct");
+                }
+            }
+            if (n == this.points.length) {
+                int capacity = Math.max(4, 2 * n);
+                this.points = Arrays.copyOf(this.points, capacity);
+                this.differences = Arrays.copyOf(this.differences, capacity);
+                this.coefficients = Arrays.copyOf(this.coefficients, capacity);
+                this.basis = Arrays.copyOf(this.basis, capacity + 1);
+            }
+            this.points[n] = new RationalNumber(x);
+            RationalNumber t = new RationalNumber(y);                           //f[x_(k+1), ..., x_n]
+            for (int k = n - 1; k >= 0; k--) {
+                RationalNumber next = new RationalNumber(t);
+                next.subtract(this.differences[k]);
+                next.divide(gaps[k]);
+                this.differences[k + 1] = t;
+                t = next;
+            }
+            this.differences[0] = t;
+            for (int i = 0; i <= n; i++) {                                      //coefficients += t * basis
+                RationalNumber term = new RationalNumber(this.basis[i]);
+                term.multiply(t);
+                if (this.coefficients[i] == null) {
+                    this.coefficients[i] = term;
+                } else {
+                    this.coefficients[i].add(term);
+                }
+            }
+            this.basis[n + 1] = new RationalNumber(this.basis[n]);              //basis *= x - x_n
+            for (int i = n; i >= 1; i--) {
+                RationalNumber term = new RationalNumber(this.basis[i]);
+                term.multiply(x);
+                this.basis[i] = new RationalNumber(this.basis[i - 1]);
+                this.basis[i].subtract(term);
+            }
+            this.basis[0].multiply(x);
+            this.basis[0].negate();
+            this.size = n + 1;
+        }
+
+        /**
+         * Reports the interpolant of the points so far.
+         *
+         * @return the polynomial of degree less than size() through every
+         *         point, of the type of the kernel
+         */
+        public Polynomial polynomial() {
+            RationalNumber[] answer = new RationalNumber[this.size];
+            for (int i = 0; i < this.size; i++) {
+                if (this.coefficients[i].getNumerator().signum() != 0) {
+                    answer[i] = new RationalNumber(this.coefficients[i]);
+                }
+            }
+            Polynomial p = this.kernel.newInstance();
+            PolynomialMultiplier.fill(p, answer);
+            return p;
+        }
+    }
+
+    /**
+     * Finds the polynomial of least degree through the points (x[k], y[k]).
+     *
+     * @param kernel
+     *            polynomial whose {@code newInstance} allocates the result
+     * @param x
+     *            the points
+     * @param y
+     *            the values at the points
+     *
+     * @return the polynomial of degree less than x.length taking the value
+     *         y[k] at x[k] for every k, of the type of kernel
+     *
+     * @requires x.length = y.length and the points are distinct
+     */
+    public static Polynomial interpolate(Polynomial kernel, RationalNumber[] x, RationalNumber[] y) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("Points and values must have the same length");
+        }
+        Polynomial answer = kernel.newInstance();
+        if (kernel instanceof PolynomialModP) {
+            long p = ((PolynomialModP) kernel).getModulus();
+            long[] u = new long[x.length];
+            long[] v = new long[y.length];
+            for (int k = 0; k < x.length; k++) {
+                u[k] = ModularArithmetic.residue(x[k], p);
+                v[k] = ModularArithmetic.residue(y[k], p);
+            }
+            long[] a = PolynomialEvaluator.interpolate(u, v, p);
+            if (a == null) {
+                throw new ArithmeticException("Interpolation points must be distinct modulo " + p);
+            }
+            for (int i = a.length - 1; i >= 0; i--) {
+                if (a[i] != 0) {
+                    answer.addTerm(new RationalNumber(BigInteger.valueOf(a[i])), i);
+                }
+            }
+        } else if (x.length < treeThreshold) {
+            Newton newton = new Newton(kernel);
+            for (int k = 0; k < x.length; k++) {
+                newton.add(x[k], y[k]);
+            }
+            answer = newton.polynomial();
+        } else {
+            Set<RationalNumber> seen = new HashSet<>();
+            for (RationalNumber point : x) {
+                if (!seen.add(point)) {
+                    throw new ArithmeticException("Interpolation points must be distinct");
+                }
+            }
+            PolynomialMultiplier.fill(answer, MultiModular.reconstruct(p -> image(x, y, p),
+                    candidate -> takes(candidate, x, y)));
+        }
+        return answer;
+    }
+
+    /**
+     * Interpolates modulo {@code p}, padded to x.length coefficients, or null
+     * if p divides a denominator or two points coincide modulo p.
+     */
+    private static long[] image(RationalNumber[] x, RationalNumber[] y, long p) {
+        long[] u = new long[x.length];
+        long[] v = new long[y.length];
+        for (int k = 0; k < x.length; k++) {
+            if (ModularArithmetic.residue(x[k].getDenominator(), p) == 0
+                    || ModularArithmetic.residue(y[k].getDenominator(), p) == 0) {
+                return null;
+            }
+            u[k] = ModularArithmetic.residue(x[k], p);
+            v[k] = ModularArithmetic.residue(y[k], p);
+        }
+        long[] a = PolynomialEvaluator.interpolate(u, v, p);
+        return (a == null) ? null : Arrays.copyOf(a, x.length);
+    }
+
+    /**
+     * Checks exactly that the candidate coefficients take the value y[k] at
+     * x[k] for every k.
+     */
+    private static boolean takes(RationalNumber[] candidate, RationalNumber[] x, RationalNumber[] y) {
+        Polynomial p = new PolynomialDense();
+        RationalNumber[] copy = new RationalNumber[candidate.length];
+        for (int i = 0; i < candidate.length; i++) {
+            copy[i] = (candidate[i] == null) ? null : new RationalNumber(candidate[i]);
+        }
+        PolynomialMultiplier.fill(p, copy);
+        RationalNumber[] values = PolynomialEvaluator.evaluate(p, x);
+        for (int k = 0; k < x.length; k++) {
+            if (values[k].compareTo(y[k]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,3 +1,4 @@
+import java.util.Spliterator;
 
 import RationalNumber.RationalNumber;
 /**
@@ -56,6 +57,31 @@ public interface PolynomialKernel{
      */
     int degree();
 
+    /**
+     * Creates a read-only cursor over the nonzero terms of this, from the
+     * highest power down.
+     *
+     * @return a cursor positioned before the highest term of this
+     */
+    TermCursor cursor();
+
+    /**
+     * Calls {@code visitor} on every nonzero term of this, from the highest
+     * power down, without modifying this.
+     *
+     * @param visitor
+     *            the callback for each term
+     */
+    void forEachTerm(TermVisitor visitor);
+
+    /**
+     * Creates a read-only, splittable traversal over the nonzero terms of this,
+     * from the highest power down.
+     *
+     * @return a spliterator over the terms of this
+     */
+    Spliterator<Monomial> spliterator();
+
     /**
      * Resets this to it's default value upon initializiation.
      *
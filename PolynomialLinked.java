@@ -1,3 +1,7 @@
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
 import RationalNumber.RationalNumber;
 
 
@@ -50,6 +54,7 @@ public class PolynomialLinked extends Polynomial{
      * (Single node with degree 0 constant 0, next is a null pointer)
      */
     private void createNewRep() {
+        this.invalidate();
         this.expression = new Term();
         this.expression.power = 0;
         this.expression.constant = new RationalNumber();
@@ -74,18 +79,19 @@ public class PolynomialLinked extends Polynomial{
     @Override
     public void addTerm(RationalNumber constant, int power) {
         assert this.expression != null : "NULL TERM FOUND";
+        this.invalidate();
         Term termptr = this.expression;
         if (!constant.equals(RationalNumber.ZERO)) {
             while(termptr.next != null && power < termptr.next.power){
                 termptr = termptr.next;                                         //node traversal
             }
             if(power == this.expression.power){                                 //head case
-                termptr.constant.add(constant);
+                termptr.constant = accumulate(termptr.constant, constant);
                 if(termptr.constant.equals(RationalNumber.ZERO) && power != 0){
                     this.expression = termptr.next;
                 }
             }else if(termptr.next != null && power == termptr.next.power){      //add case
-                termptr.next.constant.add(constant);
+                termptr.next.constant = accumulate(termptr.next.constant, constant);
                 if(termptr.next.constant.equals(RationalNumber.ZERO) && power != 0){
                     termptr.next = termptr.next.next;
                 }
@@ -122,6 +128,7 @@ public class PolynomialLinked extends Polynomial{
     @Override
     public RationalNumber removeTerm(int power) {
         assert this.expression != null : "NULL TERM FOUND";
+        this.invalidate();
         RationalNumber answer = new RationalNumber(0);
         Term termptr = this.expression;
         if (power == this.expression.power) {           //remove head case
@@ -182,6 +189,96 @@ public class PolynomialLinked extends Polynomial{
 
     }
 
+    /**
+     * Read-only cursor over the nodes of the list, skipping zero constants.
+     */
+    private final class Cursor implements TermCursor {
+
+        /**
+         * Node holding the current term, or null before the first term.
+         */
+        private Term current;
+
+        /**
+         * Node to be visited by the next call to next.
+         */
+        private Term upcoming = PolynomialLinked.this.expression;
+
+        @Override
+        public boolean next() {
+            while (this.upcoming != null && this.upcoming.constant.equals(RationalNumber.ZERO)) {
+                this.upcoming = this.upcoming.next;
+            }
+            this.current = this.upcoming;
+            if (this.upcoming != null) {
+                this.upcoming = this.upcoming.next;
+            }
+            return this.current != null;
+        }
+
+        @Override
+        public int power() {
+            return this.current.power;
+        }
+
+        @Override
+        public RationalNumber coefficient() {
+            return this.current.constant;
+        }
+    }
+
+    /**
+     * Creates a read-only cursor over the nonzero terms of this, from the
+     * highest power down.
+     *
+     * @return a cursor positioned before the highest term of this
+     */
+    @Override
+    public TermCursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Calls {@code visitor} on every nonzero term of this, from the highest
+     * power down, without modifying this.
+     *
+     * @param visitor
+     *            the callback for each term
+     */
+    @Override
+    public void forEachTerm(TermVisitor visitor) {
+        Term termptr = this.expression;
+        while (termptr != null) {
+            if (!termptr.constant.equals(RationalNumber.ZERO)) {
+                visitor.visit(termptr.power, termptr.constant);
+            }
+            termptr = termptr.next;                                             //ptr traversal
+        }
+    }
+
+    /**
+     * Creates a read-only, splittable traversal over the nonzero terms of this,
+     * from the highest power down. Splits hand off batches of terms read
+     * from the front of the list.
+     *
+     * @return a spliterator over the terms of this
+     */
+    @Override
+    public Spliterator<Monomial> spliterator() {
+        final TermCursor cursor = this.cursor();
+        return new Spliterators.AbstractSpliterator<Monomial>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Monomial> action) {
+                boolean advanced = cursor.next();
+                if (advanced) {
+                    action.accept(new Monomial(cursor.power(), cursor.coefficient()));
+                }
+                return advanced;
+            }
+        };
+    }
+
     /**
      * Resets this to it's default value upon initializiation.
      *
@@ -0,0 +1,833 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import RationalNumber.RationalNumber;
+
+
+/**
+ *
+ * Models an algebraic polynomial expression over the integers modulo a prime
+ *
+ *
+ * @author Kasper
+ *
+ *
+ * Polynomial kernel component backed by an array of primitive residues modulo
+ * a prime p < 2^31, indexed by power. Coefficients passed in are mapped to
+ * their residues (n / d becomes n * d^-1 mod p) and coefficients handed out
+ * are the residues in [0, p). Multiplication, division, powers and evaluation
+ * run directly on the residue array, with no {@code RationalNumber} in the
+ * inner loops.
+ *
+ *
+ */
+public class PolynomialModP extends Polynomial{
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Capacity of the residue array upon initialization.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * The prime modulus.
+     */
+    private final long modulus;
+
+    /**
+     * Residues indexed by power. A zero entry is a zero coefficient.
+     */
+    private long[] residues;
+
+    /**
+     * Highest power with a nonzero residue, or 0.
+     */
+    private int degree;
+
+    /**
+     * Creator of initial representation.
+     * (Empty array of initial capacity, degree 0)
+     */
+    private void createNewRep() {
+        this.invalidate();
+        this.residues = new long[INITIAL_CAPACITY];
+        this.degree = 0;
+    }
+
+    /**
+     * Replaces the representation with the trimmed residue array {@code a}.
+     */
+    private void setResidues(long[] a) {
+        if (a.length == 0) {
+            this.createNewRep();
+        } else {
+            this.invalidate();
+            this.residues = a;
+            this.degree = a.length - 1;
+        }
+    }
+
+    /**
+     * Grows the residue array so that it can hold a term of degree
+     * {@code power}.
+     *
+     * @param power
+     *            the degree that must fit in the array
+     */
+    private void ensureCapacity(int power) {
+        if (power >= this.residues.length) {
+            int capacity = Math.max(this.residues.length * 2, power + 1);
+            this.residues = Arrays.copyOf(this.residues, capacity);
+        }
+    }
+
+    /**
+     * Lowers {@code degree} past any trailing zero residues.
+     */
+    private void trim() {
+        while (this.degree > 0 && this.residues[this.degree] == 0) {
+            this.degree--;
+        }
+    }
+
+    /**
+     * Converts a residue to a coefficient.
+     */
+    private static RationalNumber coefficient(long residue) {
+        return new RationalNumber(BigInteger.valueOf(residue));
+    }
+
+    /**
+     * Reads the residues of {@code p} modulo the modulus of this, as a trimmed
+     * array indexed by power.
+     */
+    private long[] residuesOf(Polynomial p) {
+        if (p instanceof PolynomialModP && ((PolynomialModP) p).modulus == this.modulus) {
+            return ((PolynomialModP) p).residues();
+        }
+        long[] answer = new long[p.degree() + 1];
+        p.forEachTerm((power, constant) -> answer[power] = ModularArithmetic.residue(constant,
+                this.modulus));
+        return ModularArithmetic.trim(answer);
+    }
+
+    /**
+     * Reports the residues of this as a fresh trimmed array indexed by power.
+     *
+     * @return the residues of this, the empty array for 0
+     */
+    long[] residues() {
+        int length = (this.degree == 0 && this.residues[0] == 0) ? 0 : this.degree + 1;
+        return Arrays.copyOf(this.residues, length);
+    }
+
+    /**
+     * Reports the prime modulus of this.
+     *
+     * @return p
+     */
+    public long getModulus() {
+        return this.modulus;
+    }
+
+    /**
+     * Reports the characteristic of the coefficient ring of this.
+     *
+     * @return p
+     */
+    @Override
+    long characteristic() {
+        return this.modulus;
+    }
+
+     /**
+     * Adds a term with coefficient {@code constant} and degree {@code power} to
+     * this.
+     *
+     * @param constant
+     *            the coefficient of the term to be added
+     * @param power
+     *            the degree of the term to be added
+     *
+     * @updates this
+     *
+     * @ensures this = constant * (x ^ power) + #this
+     */
+    @Override
+    public void addTerm(RationalNumber constant, int power) {
+        assert power >= 0 : "NEGATIVE POWER";
+        this.invalidate();
+        long residue = ModularArithmetic.residue(constant, this.modulus);
+        if (residue != 0) {
+            this.ensureCapacity(power);
+            this.residues[power] = ModularArithmetic.add(this.residues[power], residue, this.modulus);
+            if (power > this.degree) {
+                this.degree = power;
+            } else if (power == this.degree) {
+                this.trim();
+            }
+        }
+    }
+
+    /**
+     * Removes the term raised to {@code power} and reports its coefficient.
+     *
+     * @param power
+     *            the degree of the term to be removed
+     * @return the coefficient
+     *
+     * @updates this
+     *
+     * @ensures #this = removeTerm * (x ^ power) + this
+     */
+    @Override
+    public RationalNumber removeTerm(int power) {
+        this.invalidate();
+        RationalNumber answer;
+        if (power < 0 || power > this.degree) {
+            answer = new RationalNumber(0);
+        } else {
+            answer = coefficient(this.residues[power]);
+            this.residues[power] = 0;
+            if (power == this.degree) {
+                this.trim();
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Retrieves the term raised to {@code power} and reports its coefficient.
+     *
+     * @param power
+     *            the degree of the term to be found
+     *
+     * @return the coefficient
+     */
+    @Override
+    public RationalNumber getTerm(int power) {
+        RationalNumber answer;
+        if (power < 0 || power > this.degree) {
+            answer = new RationalNumber(0);
+        } else {
+            answer = coefficient(this.residues[power]);
+        }
+        return answer;
+    }
+
+    /**
+     * Reports the degree of this.
+     *
+     * @return the highest power in {@code this}.
+     * @ensures degree = [the exponent of the highest order term in this]
+     *
+     */
+    @Override
+    public final int degree() {
+        return this.degree;
+    }
+
+    /**
+     * Read-only cursor walking the residue array downward, skipping zeros. The
+     * coefficient of the current term is built once, on first request.
+     */
+    private final class Cursor implements TermCursor {
+
+        /**
+         * Index of the current term.
+         */
+        private int index = PolynomialModP.this.degree + 1;
+
+        /**
+         * Coefficient of the current term, or null if not yet built.
+         */
+        private RationalNumber current;
+
+        @Override
+        public boolean next() {
+            this.current = null;
+            do {
+                this.index--;
+            } while (this.index >= 0 && PolynomialModP.this.residues[this.index] == 0);
+            return this.index >= 0;
+        }
+
+        @Override
+        public int power() {
+            return this.index;
+        }
+
+        @Override
+        public RationalNumber coefficient() {
+            if (this.current == null) {
+                this.current = PolynomialModP.coefficient(PolynomialModP.this.residues[this.index]);
+            }
+            return this.current;
+        }
+    }
+
+    /**
+     * Spliterator over a range of powers of a residue array, from the top of
+     * the range down. Splits hand off the upper half of the range.
+     */
+    private static final class TermSpliterator implements Spliterator<Monomial> {
+
+        /**
+         * Smallest range that is still split.
+         */
+        private static final int MIN_SPLIT = 64;
+
+        /**
+         * The residue array being traversed.
+         */
+        private final long[] residues;
+
+        /**
+         * Lowest power of the range.
+         */
+        private final int low;
+
+        /**
+         * Highest power of the range not yet visited.
+         */
+        private int high;
+
+        private TermSpliterator(long[] residues, int low, int high) {
+            this.residues = residues;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Monomial> action) {
+            while (this.high >= this.low) {
+                int power = this.high--;
+                if (this.residues[power] != 0) {
+                    action.accept(new Monomial(power, coefficient(this.residues[power])));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<Monomial> trySplit() {
+            Spliterator<Monomial> prefix = null;
+            if (this.high - this.low >= MIN_SPLIT) {
+                int mid = (this.low + this.high) >>> 1;
+                prefix = new TermSpliterator(this.residues, mid + 1, this.high);
+                this.high = mid;
+            }
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Math.max(0, this.high - this.low + 1);
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /**
+     * Creates a read-only cursor over the nonzero terms of this, from the
+     * highest power down.
+     *
+     * @return a cursor positioned before the highest term of this
+     */
+    @Override
+    public TermCursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Calls {@code visitor} on every nonzero term of this, from the highest
+     * power down, without modifying this.
+     *
+     * @param visitor
+     *            the callback for each term
+     */
+    @Override
+    public void forEachTerm(TermVisitor visitor) {
+        for (int power = this.degree; power >= 0; power--) {
+            if (this.residues[power] != 0) {
+                visitor.visit(power, coefficient(this.residues[power]));
+            }
+        }
+    }
+
+    /**
+     * Creates a read-only, splittable traversal over the nonzero terms of this,
+     * from the highest power down.
+     *
+     * @return a spliterator over the terms of this
+     */
+    @Override
+    public Spliterator<Monomial> spliterator() {
+        return new TermSpliterator(this.residues, 0, this.degree);
+    }
+
+    /**
+     * Resets this to it's default value upon initializiation.
+     *
+     *
+     * @ensures this = 0
+     *
+     */
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    /**
+     * returns a duplicate of p. Convenience method.
+     *
+     * @param p
+     *            the polynomial to be duplicated
+     *
+     * @ensures dupe = p
+     *
+     * @return a perfect copy of p
+     */
+    @Override
+    public Polynomial dupe() {
+        PolynomialModP copy = (PolynomialModP) this.newInstance();
+        copy.residues = Arrays.copyOf(this.residues, Math.max(this.degree + 1, INITIAL_CAPACITY));
+        copy.degree = this.degree;
+        return copy;
+    }
+
+    /**
+     * Creates and returns a new polynomial instance of this, with the same
+     * modulus.
+     *
+     * @return a polynomial of the same type as this initialized to default value
+     */
+    @Override
+    public final Polynomial newInstance() {
+        if (this.getClass() == PolynomialModP.class) {
+            return new PolynomialModP(this.modulus);
+        }
+        try {
+            return this.getClass().getConstructor(long.class).newInstance(this.modulus);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    /**
+     * Replaces the polynomial represented by this with the polynomial in {@code source}
+     *
+     * @ensures this = #source mod p and source = 0
+     */
+    @Override
+    public final void transferFrom(Polynomial source) {
+        if (source instanceof PolynomialModP
+                && ((PolynomialModP) source).modulus == this.modulus) {         //steal the array
+            PolynomialModP localSource = (PolynomialModP) source;
+            this.invalidate();
+            this.residues = localSource.residues;
+            this.degree = localSource.degree;
+            localSource.createNewRep();
+        } else {
+            this.setResidues(this.residuesOf(source));
+            source.clear();
+        }
+    }
+
+    /*
+     * Secondary methods on residues ------------------------------------------
+     */
+
+    /**
+     * Adds p to this.
+     *
+     * @param p
+     *            the polynomial to be added
+     * @updates this
+     *
+     * @clears p
+     *
+     * @ensures this = #this + p mod p
+     */
+    @Override
+    public void add(Polynomial p) {
+        long[] other = this.residuesOf(p);
+        this.invalidate();
+        this.ensureCapacity(other.length - 1);
+        for (int i = 0; i < other.length; i++) {
+            this.residues[i] = ModularArithmetic.add(this.residues[i], other[i], this.modulus);
+        }
+        this.degree = Math.max(this.degree, other.length - 1);
+        this.trim();
+        release(p);
+    }
+
+    /**
+     * Subtracts p from this.
+     *
+     * @param p
+     *            the polynomial to be subtracted
+     * @updates this
+     *
+     * @clears p
+     *
+     * @ensures this = #this - p mod p
+     */
+    @Override
+    public void subtract(Polynomial p) {
+        long[] other = this.residuesOf(p);
+        this.invalidate();
+        this.ensureCapacity(other.length - 1);
+        for (int i = 0; i < other.length; i++) {
+            this.residues[i] = ModularArithmetic.subtract(this.residues[i], other[i], this.modulus);
+        }
+        this.degree = Math.max(this.degree, other.length - 1);
+        this.trim();
+        release(p);
+    }
+
+    /**
+     * Multiplies this by p.
+     *
+     * @param p
+     *            the polynomial to be multiplied
+     * @updates this
+     *
+     * @restores p
+     *
+     * @ensures this = #this * p mod p
+     */
+    @Override
+    public void multiply(Polynomial p) {
+        this.setResidues(ModularArithmetic.multiply(this.residues(), this.residuesOf(p),
+                this.modulus));
+    }
+
+    /**
+     * Raises this to {@code exponent} by repeated squaring.
+     *
+     * @param exponent
+     *            the power to raise this to
+     *
+     * @return this ^ exponent mod p
+     */
+    @Override
+    public Polynomial power(int exponent) {
+        PolynomialModP answer = (PolynomialModP) this.newInstance();
+        answer.setResidues(ModularArithmetic.power(this.residues(), exponent, this.modulus));
+        return answer;
+    }
+
+    /**
+    * Divides this by p.
+    *
+    * @param p
+    *          the denominator polynomial
+    *
+    * @updates this
+    *
+    * @return the remainder of #this / p
+    *
+    * @ensures this = #this / p and divide = [remainder of #this/p]
+    */
+    @Override
+    public Polynomial divide(Polynomial p) {
+        long[][] division = ModularArithmetic.divide(this.residues(), this.residuesOf(p),
+                this.modulus);
+        PolynomialModP remainder = (PolynomialModP) this.newInstance();
+        remainder.setResidues(division[1]);
+        this.setResidues(division[0]);
+        return remainder;
+    }
+
+    /**
+    * Checks if p is a factor of this.
+    *
+    * @param p
+    *            the polynomial to be checked
+    * @return true iff this % p is 0
+    *
+    * @ensures isDivisbleBy = (this % p == 0)
+    */
+    @Override
+    public boolean isDivisbleBy(Polynomial p) {
+        return ModularArithmetic.divide(this.residues(), this.residuesOf(p), this.modulus)[1].length == 0;
+    }
+
+    /**
+     * Computes the greatest common divisor of this and p over the integers
+     * mod p by the Euclidean algorithm.
+     *
+     * @param p
+     *            the other polynomial
+     *
+     * @return the monic gcd of this and p mod p
+     */
+    @Override
+    public Polynomial gcd(Polynomial p) {
+        return new PolynomialModP(this.modulus,
+                ModularArithmetic.gcd(this.residues(), this.residuesOf(p), this.modulus));
+    }
+
+    /**
+     * Computes the greatest common divisor g of this and p over the integers
+     * mod p with cofactors s and t of least degree.
+     *
+     * @param p
+     *            the other polynomial
+     *
+     * @return g, s and t with s * this + t * p = g mod p
+     */
+    @Override
+    public PolynomialGcd.ExtendedGcd extendedGcd(Polynomial p) {
+        long[][] bezout = ModularArithmetic.extendedGcd(this.residues(), this.residuesOf(p),
+                this.modulus);
+        return new PolynomialGcd.ExtendedGcd(new PolynomialModP(this.modulus, bezout[0]),
+                new PolynomialModP(this.modulus, bezout[1]),
+                new PolynomialModP(this.modulus, bezout[2]));
+    }
+
+    /**
+     * Computes the least common multiple of this and p over the integers mod
+     * p.
+     *
+     * @param p
+     *            the other polynomial
+     *
+     * @return the monic lcm of this and p mod p
+     */
+    @Override
+    public Polynomial lcm(Polynomial p) {
+        long[] a = this.residues();
+        long[] b = this.residuesOf(p);
+        long[] answer = new long[0];
+        if (a.length > 0 && b.length > 0) {
+            long[] cofactor = ModularArithmetic.divide(a,
+                    ModularArithmetic.gcd(a, b, this.modulus), this.modulus)[0];
+            answer = ModularArithmetic.monic(ModularArithmetic.multiply(cofactor, b, this.modulus),
+                    this.modulus);
+        }
+        return new PolynomialModP(this.modulus, answer);
+    }
+
+    /**
+     * Factors this into irreducible factors over the integers mod p.
+     *
+     * @return the leading residue of this as the unit and the monic
+     *         irreducible factors of this mod p with their multiplicities
+     *
+     * @ensures this = unit * product of factor ^ multiplicity mod p
+     */
+    @Override
+    public PolynomialFactorizer.Factorization factor() {
+        return PolynomialFactorizer.factor(this.residues(), this.modulus, this);
+    }
+
+    /**
+     * Not supported: the rational root theorem needs coefficients over the
+     * integers, and every residue is a candidate root over the integers mod p.
+     *
+     * @throws UnsupportedOperationException
+     *             always
+     */
+    @Override
+    public List<RationalNumber> rationalRoots() {
+        throw new UnsupportedOperationException("Rational roots over GF(p) are not supported");
+    }
+
+    /**
+     * Not supported: GF(p) is not ordered, so it has no real roots.
+     *
+     * @throws UnsupportedOperationException
+     *             always
+     */
+    @Override
+    public List<PolynomialRoots.Interval> isolateRealRoots() {
+        throw new UnsupportedOperationException("Real roots over GF(p) are not supported");
+    }
+
+    /**
+    * Evaluates this at x = {@code x}.
+    *
+    * @param x
+    *            the value used to evaluate the expression
+    *
+    * @return the evaluation of this at x, mod p
+    *
+    * @ensures evaluateAt = f({@code x}) where f(x) = this
+    */
+    @Override
+    public RationalNumber evaluateAt(RationalNumber x) {
+        long point = ModularArithmetic.residue(x, this.modulus);
+        return coefficient(ModularArithmetic.evaluate(this.residues(), point, this.modulus));
+    }
+
+    /**
+    * Evaluates this at each of {@code points}, over the residues through
+    * {@code PolynomialEvaluator}.
+    *
+    * @param points
+    *            the values used to evaluate the expression
+    *
+    * @return the evaluations of this at the points, mod p
+    *
+    * @ensures evaluateAt[i] = f({@code points[i]}) where f(x) = this
+    */
+    @Override
+    public RationalNumber[] evaluateAt(RationalNumber[] points) {
+        long[] x = new long[points.length];
+        for (int i = 0; i < points.length; i++) {
+            x[i] = ModularArithmetic.residue(points[i], this.modulus);
+        }
+        long[] values = PolynomialEvaluator.evaluate(this.residues(), x, this.modulus);
+        RationalNumber[] answer = new RationalNumber[values.length];
+        for (int i = 0; i < values.length; i++) {
+            answer[i] = coefficient(values[i]);
+        }
+        return answer;
+    }
+
+    /**
+    * Evaluates this, its derivative and its antiderivative at x = {@code x}
+    * in a single Horner pass over the residues.
+    *
+    * [WARNING]: Constant of integration "C" is not included in this operation
+    *
+    * @param x
+    *            the value used to evaluate the expression
+    *
+    * @return f({@code x}), f'({@code x}) and F({@code x}) mod p
+    */
+    @Override
+    public Evaluation evaluateAll(RationalNumber x) {
+        long p = this.modulus;
+        long point = ModularArithmetic.residue(x, p);
+        long value = 0;
+        long slope = 0;
+        long area = 0;
+        for (int power = this.degree; power >= 0; power--) {
+            long c = this.residues[power];
+            slope = ModularArithmetic.add(slope * point % p, c * (power % p) % p, p);
+            value = ModularArithmetic.add(value * point % p, c, p);
+            area = area * point % p;
+            if (c != 0) {
+                area = ModularArithmetic.add(area,
+                        c * ModularArithmetic.inverse((power + 1) % p, p) % p, p);
+            }
+        }
+        long derivative = 0;                                                    //slope holds sum k c_k x^k
+        if (point != 0) {
+            derivative = slope * ModularArithmetic.inverse(point, p) % p;
+        } else if (this.degree >= 1) {
+            derivative = this.residues[1];
+        }
+        return new Evaluation(coefficient(value), coefficient(derivative),
+                coefficient(area * point % p));
+    }
+
+    /**
+    * Evaluates and returns the derivative of this at {@code x}
+    *
+    *
+    * @returns the value of the derivative of this at {@code x}, mod p
+    *
+    */
+    @Override
+    public RationalNumber derivativeAt(RationalNumber x) {
+        long p = this.modulus;
+        long point = ModularArithmetic.residue(x, p);
+        long slope = 0;
+        for (int power = this.degree; power >= 1; power--) {
+            slope = ModularArithmetic.add(slope * point % p,
+                    this.residues[power] * (power % p) % p, p);
+        }
+        return coefficient(slope);
+    }
+
+    /**
+    * Evaluates the definite integral of this
+    *
+    * [WARNING]: Constant of integration "C" is not included in this operation
+    *
+    * @returns the value of the indefinite integral of this from bounds {@code upperbound} to {@code lowerbound}, mod p
+    *
+    */
+    @Override
+    public RationalNumber definiteIntegral(RationalNumber upperbound, RationalNumber lowerbound) {
+        long upper = ModularArithmetic.residue(this.evaluateAll(upperbound).getIntegral(), this.modulus);
+        long lower = ModularArithmetic.residue(this.evaluateAll(lowerbound).getIntegral(), this.modulus);
+        return coefficient(ModularArithmetic.subtract(upper, lower, this.modulus));
+    }
+
+    /**
+     * No-argument constructor, modulo the largest prime below 2^31.
+     */
+    public PolynomialModP() {
+        this(ModularArithmetic.LARGEST_PRIME);
+    }
+
+    /**
+     * Initialize the zero polynomial modulo {@code modulus}.
+     *
+     * @requires modulus is a prime below 2^31
+     */
+    public PolynomialModP(long modulus) {
+        ModularArithmetic.checkModulus(modulus);
+        this.modulus = modulus;
+        this.createNewRep();
+    }
+
+    /**
+     * Initialize an instance of polynomial modulo {@code modulus} with the given coefficients {@coeff}
+     */
+    public PolynomialModP(long modulus, RationalNumber... coeff) {
+        this(modulus);
+        int degree = coeff.length - 1;
+        this.ensureCapacity(degree);
+        for (RationalNumber constant : coeff) {
+            this.addTerm(constant, degree--);
+        }
+    }
+
+    /**
+     * Initialize an instance of polynomial modulo {@code modulus} with the given coefficients {@coeff}
+     */
+    public PolynomialModP(long modulus, int... coeff) {
+        this(modulus);
+        int degree = coeff.length - 1;
+        this.ensureCapacity(degree);
+        for (int constant : coeff) {
+            this.addTerm(new RationalNumber(constant), degree--);
+        }
+    }
+
+    /**
+     * Initialize the image of {@code source} modulo {@code modulus}. Source
+     * is left unchanged.
+     *
+     * @requires no denominator of source is divisible by modulus
+     */
+    public PolynomialModP(long modulus, Polynomial source) {
+        this(modulus);
+        this.setResidues(this.residuesOf(source));
+    }
+
+    /**
+     * Initialize from a trimmed residue array, which this takes over.
+     */
+    PolynomialModP(long modulus, long[] residues) {
+        this(modulus);
+        this.setResidues(residues);
+    }
+}
@@ -0,0 +1,520 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import RationalNumber.RationalNumber;
+
+/**
+ * Multiplication engine for polynomials.
+ *
+ * @author Kasper
+ *
+ * Works on coefficient arrays indexed by power, where a null entry is a zero
+ * coefficient, so it runs the same over every kernel. Small or sparse operands
+ * are multiplied with the schoolbook method, larger dense operands with
+ * Karatsuba's method, and long dense operands multi-modularly, with a
+ * number-theoretic transform under each prime. Input arrays are never
+ * modified and entries of the result are never shared with the inputs.
+ *
+ * Products of many term pairs run as fork-join tasks on a configurable pool:
+ * the schoolbook method splits the result into ranges of powers, each
+ * computed by one task from the pairs landing in it, so no two tasks write
+ * the same entry, and Karatsuba's method forks its three recursive products.
+ * Multi-modular products compute their images on the same pool. Every entry
+ * is an exact sum, so the result equals the sequential one.
+ *
+ */
+public final class PolynomialMultiplier {
+
+    /**
+     * Operand length below which Karatsuba recursion falls back to the
+     * schoolbook method.
+     */
+    private static volatile int karatsubaThreshold = 32;
+
+    /**
+     * Operand length from which products are computed multi-modularly, with
+     * number-theoretic transforms under each prime.
+     */
+    private static volatile int transformThreshold = 64;
+
+    /**
+     * Number of products of nonzero terms from which a product is computed
+     * in parallel.
+     */
+    private static volatile int parallelThreshold = 1 << 12;
+
+    /**
+     * Pool running the parallel products.
+     */
+    private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * No instances.
+     */
+    private PolynomialMultiplier() {
+    }
+
+    /**
+     * Reports the operand length below which the schoolbook method is used.
+     *
+     * @return the Karatsuba threshold
+     */
+    public static int getKaratsubaThreshold() {
+        return karatsubaThreshold;
+    }
+
+    /**
+     * Sets the operand length below which the schoolbook method is used.
+     *
+     * @param threshold
+     *            the new Karatsuba threshold
+     *
+     * @requires threshold >= 2
+     */
+    public static void setKaratsubaThreshold(int threshold) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("Karatsuba threshold must be at least 2");
+        }
+        karatsubaThreshold = threshold;
+    }
+
+    /**
+     * Reports the operand length from which products are computed
+     * multi-modularly.
+     *
+     * @return the transform threshold
+     */
+    public static int getTransformThreshold() {
+        return transformThreshold;
+    }
+
+    /**
+     * Sets the operand length from which products are computed
+     * multi-modularly. Both operands must reach it.
+     *
+     * @param threshold
+     *            the new transform threshold
+     *
+     * @requires threshold >= 1
+     */
+    public static void setTransformThreshold(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Transform threshold must be at least 1");
+        }
+        transformThreshold = threshold;
+    }
+
+    /**
+     * Reports the number of term products from which products are computed in
+     * parallel.
+     *
+     * @return the parallel threshold
+     */
+    public static int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Sets the number of term products from which products are computed in
+     * parallel.
+     *
+     * @param threshold
+     *            the new parallel threshold
+     *
+     * @requires threshold >= 1
+     */
+    public static void setParallelThreshold(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be at least 1");
+        }
+        parallelThreshold = threshold;
+    }
+
+    /**
+     * Reports the pool running parallel products.
+     *
+     * @return the pool
+     */
+    public static ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the pool running parallel products.
+     *
+     * @param p
+     *            the new pool
+     *
+     * @requires p is not null
+     */
+    public static void setPool(ForkJoinPool p) {
+        if (p == null) {
+            throw new IllegalArgumentException("Pool must not be null");
+        }
+        pool = p;
+    }
+
+    /**
+     * Reads the coefficients of {@code p} into an array indexed by power.
+     * Zero coefficients are left null. The entries are the coefficient objects
+     * held by {@code p}, so they must not be modified.
+     *
+     * @param p
+     *            the polynomial to be read
+     *
+     * @return the coefficients of {@code p}, of length degree + 1
+     */
+    public static RationalNumber[] coefficients(Polynomial p) {
+        RationalNumber[] answer = new RationalNumber[p.degree() + 1];
+        p.forEachTerm((power, coefficient) -> answer[power] = coefficient);
+        return answer;
+    }
+
+    /**
+     * Replaces the contents of {@code target} with the polynomial whose
+     * coefficients are {@code coefficients}. Ownership of the entries passes
+     * to {@code target}.
+     *
+     * @param target
+     *            the polynomial to be filled
+     * @param coefficients
+     *            the coefficients indexed by power, null for zero
+     *
+     * @replaces target
+     */
+    public static void fill(Polynomial target, RationalNumber[] coefficients) {
+        target.clear();
+        for (int power = coefficients.length - 1; power >= 0; power--) {
+            if (coefficients[power] != null) {
+                target.addTerm(coefficients[power], power);
+            }
+        }
+    }
+
+    /**
+     * Multiplies two coefficient arrays.
+     *
+     * @param a
+     *            the coefficients of the first factor
+     * @param b
+     *            the coefficients of the second factor
+     *
+     * @return the coefficients of a * b, of length a.length + b.length - 1
+     */
+    public static RationalNumber[] multiply(RationalNumber[] a, RationalNumber[] b) {
+        RationalNumber[] answer;
+        if (a.length == 0 || b.length == 0) {
+            answer = new RationalNumber[0];
+        } else if ((long) nonZeros(a) * nonZeros(b) < parallelThreshold) {
+            answer = product(a, b);
+        } else if (ForkJoinTask.getPool() == pool) {                           //already on a worker of the pool
+            answer = product(a, b);
+        } else {
+            answer = pool.invoke(ForkJoinTask.adapt(() -> product(a, b)));
+        }
+        return answer;
+    }
+
+    /**
+     * Multiplies two nonempty coefficient arrays by the cheapest method,
+     * forking when running on a fork-join pool.
+     */
+    private static RationalNumber[] product(RationalNumber[] a, RationalNumber[] b) {
+        RationalNumber[] answer;
+        if (preferSchoolbook(a, b)) {
+            answer = forks(a.length, b.length) ? convolve(a, b)
+                    : schoolbook(a, 0, a.length, b, 0, b.length);
+        } else if (Math.min(a.length, b.length) >= transformThreshold) {
+            answer = MultiModular.multiply(a, b);
+        } else {
+            answer = karatsuba(a, 0, a.length, b, 0, b.length);
+        }
+        return answer;
+    }
+
+    /**
+     * Reports whether a product of operands of these lengths should fork:
+     * it runs on a fork-join pool and has enough term pairs to share out.
+     */
+    private static boolean forks(int aLen, int bLen) {
+        return ForkJoinTask.inForkJoinPool() && (long) aLen * bLen >= parallelThreshold;
+    }
+
+    /**
+     * Reports whether direct term-by-term multiplication is cheaper than
+     * Karatsuba, which is the case for short or sparse operands.
+     */
+    private static boolean preferSchoolbook(RationalNumber[] a, RationalNumber[] b) {
+        int threshold = karatsubaThreshold;
+        if (Math.min(a.length, b.length) < threshold) {
+            return true;
+        }
+        double schoolbookCost = (double) nonZeros(a) * nonZeros(b);
+        double karatsubaCost = Math.min(a.length, b.length)
+                * Math.pow(Math.min(a.length, b.length), 0.585)
+                * Math.ceil((double) Math.max(a.length, b.length) / Math.min(a.length, b.length));
+        return schoolbookCost <= karatsubaCost;
+    }
+
+    /**
+     * Counts the nonzero entries of {@code a}.
+     */
+    private static int nonZeros(RationalNumber[] a) {
+        int count = 0;
+        for (RationalNumber constant : a) {
+            if (constant != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds {@code value} into {@code target[index]}, taking ownership of
+     * {@code value} if the slot is empty.
+     */
+    private static void accumulate(RationalNumber[] target, int index, RationalNumber value) {
+        if (target[index] == null) {
+            target[index] = value;
+        } else {
+            target[index].add(value);
+        }
+    }
+
+    /**
+     * Subtracts {@code value} from {@code target[index]} without taking
+     * ownership of {@code value}.
+     */
+    private static void subtract(RationalNumber[] target, int index, RationalNumber value) {
+        if (target[index] == null) {
+            target[index] = new RationalNumber(value);
+            target[index].negate();
+        } else {
+            target[index].subtract(value);
+        }
+    }
+
+    /**
+     * Schoolbook product of a[aOff, aOff + aLen) and b[bOff, bOff + bLen).
+     */
+    private static RationalNumber[] schoolbook(RationalNumber[] a, int aOff, int aLen,
+            RationalNumber[] b, int bOff, int bLen) {
+        RationalNumber[] answer = new RationalNumber[aLen + bLen - 1];
+        for (int i = 0; i < aLen; i++) {
+            RationalNumber ai = a[aOff + i];
+            if (ai != null) {
+                for (int j = 0; j < bLen; j++) {
+                    RationalNumber bj = b[bOff + j];
+                    if (bj != null) {
+                        RationalNumber product = new RationalNumber(ai);
+                        product.multiply(bj);
+                        accumulate(answer, i + j, product);
+                    }
+                }
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Schoolbook product of a and b in parallel: the powers of the result are
+     * split into ranges, each filled by one task.
+     */
+    private static RationalNumber[] convolve(RationalNumber[] a, RationalNumber[] b) {
+        RationalNumber[] answer = new RationalNumber[a.length + b.length - 1];
+        int[] aTerms = powers(a);
+        int[] bTerms = powers(b);
+        int grain = Math.max(1, answer.length / (8 * ForkJoinTask.getPool().getParallelism()));
+        new Convolution(a, aTerms, b, bTerms, answer, 0, answer.length, grain).invoke();
+        return answer;
+    }
+
+    /**
+     * Lists the powers of the nonzero entries of {@code a}, ascending.
+     */
+    private static int[] powers(RationalNumber[] a) {
+        int[] answer = new int[nonZeros(a)];
+        int count = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != null) {
+                answer[count++] = i;
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Fills answer[lo, hi) with the sums of a_i * b_j over i + j in [lo, hi).
+     */
+    private static final class Convolution extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RationalNumber[] a;
+
+        private final int[] aTerms;
+
+        private final RationalNumber[] b;
+
+        private final int[] bTerms;
+
+        private final RationalNumber[] answer;
+
+        private final int lo;
+
+        private final int hi;
+
+        /**
+         * Largest range filled without splitting.
+         */
+        private final int grain;
+
+        Convolution(RationalNumber[] a, int[] aTerms, RationalNumber[] b, int[] bTerms,
+                RationalNumber[] answer, int lo, int hi, int grain) {
+            this.a = a;
+            this.aTerms = aTerms;
+            this.b = b;
+            this.bTerms = bTerms;
+            this.answer = answer;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.hi - this.lo > this.grain) {
+                int mid = (this.lo + this.hi) >>> 1;
+                invokeAll(new Convolution(this.a, this.aTerms, this.b, this.bTerms, this.answer,
+                        this.lo, mid, this.grain),
+                        new Convolution(this.a, this.aTerms, this.b, this.bTerms, this.answer,
+                                mid, this.hi, this.grain));
+                return;
+            }
+            for (int i : this.aTerms) {
+                RationalNumber ai = this.a[i];
+                int k = Arrays.binarySearch(this.bTerms, this.lo - i);          //first j with i + j >= lo
+                for (k = (k < 0) ? -k - 1 : k; k < this.bTerms.length && i + this.bTerms[k] < this.hi; k++) {
+                    RationalNumber product = new RationalNumber(ai);
+                    product.multiply(this.b[this.bTerms[k]]);
+                    accumulate(this.answer, i + this.bTerms[k], product);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a[aOff, aOff + aLen) + b[bOff, bOff + bLen) as a fresh array.
+     */
+    private static RationalNumber[] sum(RationalNumber[] a, int aOff, int aLen,
+            RationalNumber[] b, int bOff, int bLen) {
+        RationalNumber[] answer = new RationalNumber[Math.max(aLen, bLen)];
+        for (int i = 0; i < aLen; i++) {
+            if (a[aOff + i] != null) {
+                answer[i] = new RationalNumber(a[aOff + i]);
+            }
+        }
+        for (int i = 0; i < bLen; i++) {
+            if (b[bOff + i] != null) {
+                accumulate(answer, i, new RationalNumber(b[bOff + i]));
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Karatsuba product of a[aOff, aOff + aLen) and b[bOff, bOff + bLen).
+     */
+    private static RationalNumber[] karatsuba(RationalNumber[] a, int aOff, int aLen,
+            RationalNumber[] b, int bOff, int bLen) {
+        if (aLen < bLen) {
+            return karatsuba(b, bOff, bLen, a, aOff, aLen);
+        }
+        if (bLen < karatsubaThreshold) {
+            return schoolbook(a, aOff, aLen, b, bOff, bLen);
+        }
+        RationalNumber[] answer = new RationalNumber[aLen + bLen - 1];
+        boolean fork = forks(aLen, bLen);
+        if (2 * bLen <= aLen) {                                                 //unbalanced, cut a into slices
+            int count = (aLen + bLen - 1) / bLen;
+            List<ForkJoinTask<RationalNumber[]>> tasks = new ArrayList<>();
+            if (fork) {
+                for (int s = 0; s < count; s++) {
+                    int offset = s * bLen;
+                    tasks.add(ForkJoinTask.adapt(() -> karatsuba(a, aOff + offset,
+                            Math.min(bLen, aLen - offset), b, bOff, bLen)));
+                }
+                ForkJoinTask.invokeAll(tasks);
+            }
+            for (int s = 0; s < count; s++) {                                   //summed in order either way
+                int offset = s * bLen;
+                RationalNumber[] slice = fork ? tasks.get(s).join()
+                        : karatsuba(a, aOff + offset, Math.min(bLen, aLen - offset), b, bOff, bLen);
+                for (int i = 0; i < slice.length; i++) {
+                    if (slice[i] != null) {
+                        accumulate(answer, offset + i, slice[i]);
+                    }
+                }
+            }
+            return answer;
+        }
+        int half = (aLen + 1) / 2;
+        int a1Len = aLen - half;
+        int b0Len = Math.min(half, bLen);
+        int b1Len = bLen - b0Len;
+
+        RationalNumber[] aSum = sum(a, aOff, half, a, aOff + half, a1Len);
+        RationalNumber[] bSum = sum(b, bOff, b0Len, b, bOff + half, b1Len);
+        RationalNumber[] low;
+        RationalNumber[] high;
+        RationalNumber[] middle;
+        if (fork) {                                                             //the three products are independent
+            ForkJoinTask<RationalNumber[]> highTask = ForkJoinTask.adapt(() -> (b1Len == 0)
+                    ? new RationalNumber[0] : karatsuba(a, aOff + half, a1Len, b, bOff + half, b1Len));
+            ForkJoinTask<RationalNumber[]> middleTask = ForkJoinTask.adapt(
+                    () -> karatsuba(aSum, 0, aSum.length, bSum, 0, bSum.length));
+            highTask.fork();
+            middleTask.fork();
+            low = karatsuba(a, aOff, half, b, bOff, b0Len);
+            middle = middleTask.join();
+            high = highTask.join();
+        } else {
+            low = karatsuba(a, aOff, half, b, bOff, b0Len);
+            high = (b1Len == 0) ? new RationalNumber[0]
+                    : karatsuba(a, aOff + half, a1Len, b, bOff + half, b1Len);
+            middle = karatsuba(aSum, 0, aSum.length, bSum, 0, bSum.length);
+        }
+
+        for (int i = 0; i < low.length; i++) {                                  //middle = (a0+a1)(b0+b1) - low - high
+            if (low[i] != null) {
+                subtract(middle, i, low[i]);
+            }
+        }
+        for (int i = 0; i < high.length; i++) {
+            if (high[i] != null) {
+                subtract(middle, i, high[i]);
+            }
+        }
+
+        for (int i = 0; i < middle.length; i++) {                               //top of middle may overhang, it is zero there
+            if (middle[i] != null && half + i < answer.length) {
+                accumulate(answer, half + i, middle[i]);
+            }
+        }
+        for (int i = 0; i < low.length; i++) {
+            if (low[i] != null) {
+                accumulate(answer, i, low[i]);
+            }
+        }
+        for (int i = 0; i < high.length; i++) {
+            if (high[i] != null) {
+                accumulate(answer, 2 * half + i, high[i]);
+            }
+        }
+        return answer;
+    }
+}
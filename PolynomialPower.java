@@ -0,0 +1,245 @@
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.TreeMap;
+
+import RationalNumber.RationalNumber;
+
+/**
+ * Exponentiation engine for polynomials.
+ *
+ * @author Kasper
+ *
+ * Picks a method from the shape of the base. Sparse bases, whose multinomial
+ * expansion has no more terms than the dense result, are expanded directly:
+ * (x^1000 + 1)^50 costs 51 terms instead of a product of degree 50000. Long
+ * dense results are computed multi-modularly by squaring residue polynomials
+ * with number-theoretic transforms. Short dense results use J.C.P. Miller's
+ * recurrence for larger exponents and repeated squaring otherwise. The result
+ * is always allocated with the base's {@code newInstance}.
+ *
+ */
+public final class PolynomialPower {
+
+    /**
+     * Exponent from which Miller's recurrence replaces repeated squaring for
+     * short dense results.
+     */
+    private static volatile int millerThreshold = 4;
+
+    /**
+     * No instances.
+     */
+    private PolynomialPower() {
+    }
+
+    /**
+     * Reports the exponent from which Miller's recurrence replaces repeated
+     * squaring.
+     *
+     * @return the Miller threshold
+     */
+    public static int getMillerThreshold() {
+        return millerThreshold;
+    }
+
+    /**
+     * Sets the exponent from which Miller's recurrence replaces repeated
+     * squaring.
+     *
+     * @param threshold
+     *            the new Miller threshold
+     *
+     * @requires threshold >= 2
+     */
+    public static void setMillerThreshold(int threshold) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("Miller threshold must be at least 2");
+        }
+        millerThreshold = threshold;
+    }
+
+    /**
+     * Raises {@code base} to {@code exponent}.
+     *
+     * @param base
+     *            the polynomial to be raised
+     * @param exponent
+     *            the power to raise base to
+     *
+     * @return base ^ exponent, of the same type as base, or 1 if exponent is
+     *         not positive
+     */
+    public static Polynomial power(Polynomial base, int exponent) {
+        Polynomial answer = base.newInstance();
+        if (exponent <= 0) {
+            answer.addTerm(new RationalNumber(1), 0);
+            return answer;
+        }
+        int[] count = new int[1];
+        base.forEachTerm((power, coefficient) -> count[0]++);
+        if (count[0] == 0) {                                                    //0 ^ exponent = 0
+            return answer;
+        }
+        int[] powers = new int[count[0]];
+        RationalNumber[] coefficients = new RationalNumber[count[0]];
+        int[] next = new int[1];
+        base.forEachTerm((power, coefficient) -> {
+            powers[next[0]] = power;
+            coefficients[next[0]++] = coefficient;
+        });
+        int shift = powers[count[0] - 1];
+        int span = powers[0] - shift;
+        if ((long) powers[0] * exponent > Integer.MAX_VALUE) {
+            throw new ArithmeticException("Degree of the power exceeds Integer.MAX_VALUE");
+        }
+        int length = span * exponent + 1;
+        if (expansionTerms(count[0], exponent, length) <= length) {
+            multinomial(answer, powers, coefficients, exponent);
+        } else if (length >= PolynomialMultiplier.getTransformThreshold()) {
+            answer = MultiModular.power(base, exponent);
+        } else {
+            RationalNumber[] shifted = new RationalNumber[span + 1];
+            for (int i = 0; i < powers.length; i++) {
+                shifted[powers[i] - shift] = coefficients[i];
+            }
+            RationalNumber[] result = (exponent >= millerThreshold) ? miller(shifted, exponent)
+                    : squaring(shifted, exponent);
+            RationalNumber[] placed = new RationalNumber[shift * exponent + result.length];
+            System.arraycopy(result, 0, placed, shift * exponent, result.length);
+            PolynomialMultiplier.fill(answer, placed);
+        }
+        return answer;
+    }
+
+    /**
+     * Counts the terms of the multinomial expansion of a {@code terms}-term
+     * polynomial to {@code exponent}, C(exponent + terms - 1, terms - 1),
+     * stopping once the count exceeds {@code limit}.
+     */
+    private static long expansionTerms(int terms, int exponent, long limit) {
+        long answer = 1;
+        for (int i = 1; i < terms && answer <= limit; i++) {                   //C(e + i, i) = C(e + i - 1, i - 1) * (e + i) / i
+            answer = answer * (exponent + i) / i;
+        }
+        return answer;
+    }
+
+    /**
+     * Multinomial expansion: the sum over k_1 + ... + k_t = exponent of
+     * exponent! / (k_1! ... k_t!) * prod c_i ^ k_i * x ^ (sum k_i * p_i).
+     * Terms landing on the same power are merged before they reach
+     * {@code answer}, which receives them from the highest power down.
+     */
+    private static void multinomial(Polynomial answer, int[] powers, RationalNumber[] coefficients,
+            int exponent) {
+        RationalNumber[][] raised = new RationalNumber[coefficients.length][];
+        for (int i = 0; i < coefficients.length; i++) {
+            raised[i] = new RationalNumber[exponent + 1];
+            raised[i][0] = new RationalNumber(1);
+            for (int k = 1; k <= exponent; k++) {
+                raised[i][k] = new RationalNumber(raised[i][k - 1]);
+                raised[i][k].multiply(coefficients[i]);
+            }
+        }
+        Map<Integer, RationalNumber> terms = new TreeMap<>((x, y) -> Integer.compare(y, x));
+        expand(terms, powers, raised, 0, exponent, BigInteger.ONE, new RationalNumber(1), 0);
+        for (Map.Entry<Integer, RationalNumber> term : terms.entrySet()) {
+            answer.addTerm(term.getValue(), term.getKey());
+        }
+    }
+
+    /**
+     * Distributes the {@code remaining} exponent over terms i, i + 1, ...,
+     * carrying the multinomial coefficient, the coefficient product and the
+     * power built so far.
+     */
+    private static void expand(Map<Integer, RationalNumber> terms, int[] powers,
+            RationalNumber[][] raised, int i, int remaining, BigInteger multinomial,
+            RationalNumber product, int power) {
+        if (i == powers.length - 1) {                                           //last term takes the rest
+            RationalNumber term = new RationalNumber(product);
+            term.multiply(raised[i][remaining]);
+            term.multiply(new RationalNumber(multinomial));
+            RationalNumber current = terms.get(power + remaining * powers[i]);
+            if (current == null) {
+                terms.put(power + remaining * powers[i], term);
+            } else {
+                current.add(term);
+            }
+            return;
+        }
+        BigInteger binomial = BigInteger.ONE;
+        for (int k = 0; k <= remaining; k++) {
+            RationalNumber next = new RationalNumber(product);
+            next.multiply(raised[i][k]);
+            expand(terms, powers, raised, i + 1, remaining - k, multinomial.multiply(binomial), next,
+                    power + k * powers[i]);
+            binomial = binomial.multiply(BigInteger.valueOf(remaining - k))
+                    .divide(BigInteger.valueOf(k + 1));
+        }
+    }
+
+    /**
+     * Miller's recurrence for c = b ^ e with b[0] != 0 and n = deg b:
+     * c[0] = b[0] ^ e and
+     * c[k] = 1 / (k b[0]) * sum_{i = 1..min(k, n)} ((e + 1) i - k) b[i] c[k - i].
+     * Each coefficient of the result costs at most n products.
+     */
+    private static RationalNumber[] miller(RationalNumber[] b, int exponent) {
+        int n = b.length - 1;
+        int length = n * exponent + 1;
+        RationalNumber[] c = new RationalNumber[length];
+        c[0] = b[0].power(exponent);
+        RationalNumber leadInverse = new RationalNumber(1);
+        leadInverse.divide(b[0]);
+        for (int k = 1; k < length; k++) {
+            RationalNumber acc = new RationalNumber();
+            for (int i = 1; i <= Math.min(k, n); i++) {
+                long weight = (long) (exponent + 1) * i - k;
+                if (weight != 0 && b[i] != null && c[k - i] != null) {
+                    RationalNumber term = new RationalNumber(b[i]);
+                    term.multiply(c[k - i]);
+                    term.multiply(new RationalNumber(BigInteger.valueOf(weight)));
+                    acc.add(term);
+                }
+            }
+            if (!acc.equals(RationalNumber.ZERO)) {
+                acc.multiply(leadInverse);
+                acc.divide(new RationalNumber(k));
+                c[k] = acc;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Repeated squaring through {@code PolynomialMultiplier}.
+     */
+    private static RationalNumber[] squaring(RationalNumber[] b, int exponent) {
+        RationalNumber[] answer = null;
+        RationalNumber[] square = b;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) {
+                answer = (answer == null) ? copy(square) : PolynomialMultiplier.multiply(answer, square);
+            }
+            exponent >>= 1;
+            if (exponent > 0) {
+                square = PolynomialMultiplier.multiply(square, square);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Copies {@code a}, duplicating every coefficient.
+     */
+    private static RationalNumber[] copy(RationalNumber[] a) {
+        RationalNumber[] answer = new RationalNumber[a.length];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != null) {
+                answer[i] = new RationalNumber(a[i]);
+            }
+        }
+        return answer;
+    }
+}
@@ -0,0 +1,989 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import RationalNumber.RationalNumber;
+
+
+/**
+ *
+ * Models an algebraic polynomial expression as a rational content times a
+ * primitive integer polynomial
+ *
+ *
+ * @author Kasper
+ *
+ *
+ * Polynomial kernel component backed by a single rational scale and an array
+ * of {@code BigInteger} coefficients indexed by power: this = (n / d) * sum
+ * c_i x^i. Terms are added at a common denominator, so a term costs one
+ * integer addition unless its denominator is new. The scale is normalized
+ * lazily, once per operation, into the content of this and a primitive part
+ * whose coefficients have gcd 1 and a positive leading coefficient. Only the
+ * operations that update this normalize it in place; reads and operands that
+ * are not normalized yet are normalized into a copy, so concurrent readers
+ * never write.
+ * Addition, multiplication, division and evaluation run on the integer
+ * coefficients; division is fraction-free pseudo-division, which only
+ * multiplies through by the leading coefficient of the divisor where a
+ * quotient coefficient would otherwise not be an integer.
+ *
+ *
+ */
+public class PolynomialPrimitive extends Polynomial{
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Capacity of the coefficient array upon initialization.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Integer coefficients indexed by power, never null.
+     */
+    private BigInteger[] coefficients;
+
+    /**
+     * Highest power with a nonzero coefficient, or 0.
+     */
+    private int degree;
+
+    /**
+     * Numerator of the scale.
+     */
+    private BigInteger scaleNumerator;
+
+    /**
+     * Denominator of the scale, positive.
+     */
+    private BigInteger scaleDenominator;
+
+    /**
+     * Whether the coefficients are primitive with a positive leading
+     * coefficient and the scale is in lowest terms.
+     */
+    private boolean normalized;
+
+    /**
+     * Creator of initial representation.
+     * (Zero array of initial capacity, degree 0, scale 1)
+     */
+    private void createNewRep() {
+        this.invalidate();
+        this.coefficients = zeros(INITIAL_CAPACITY);
+        this.degree = 0;
+        this.scaleNumerator = BigInteger.ONE;
+        this.scaleDenominator = BigInteger.ONE;
+        this.normalized = true;
+    }
+
+    /**
+     * Replaces the representation with {@code numerator} / {@code denominator}
+     * times the integer coefficients {@code a}, which this takes over.
+     */
+    private void set(BigInteger[] a, BigInteger numerator, BigInteger denominator) {
+        this.invalidate();
+        int n = a.length - 1;
+        while (n >= 0 && a[n].signum() == 0) {
+            n--;
+        }
+        if (n < 0 || numerator.signum() == 0) {
+            this.createNewRep();
+        } else {
+            this.coefficients = a;
+            this.degree = n;
+            this.scaleNumerator = numerator;
+            this.scaleDenominator = denominator;
+            if (denominator.signum() < 0) {
+                this.scaleNumerator = numerator.negate();
+                this.scaleDenominator = denominator.negate();
+            }
+            this.normalized = false;
+        }
+    }
+
+    /**
+     * Reports an array of {@code length} zeros.
+     */
+    private static BigInteger[] zeros(int length) {
+        BigInteger[] answer = new BigInteger[length];
+        Arrays.fill(answer, BigInteger.ZERO);
+        return answer;
+    }
+
+    /**
+     * Grows the coefficient array so that it can hold a term of degree
+     * {@code power}.
+     *
+     * @param power
+     *            the degree that must fit in the array
+     */
+    private void ensureCapacity(int power) {
+        if (power >= this.coefficients.length) {
+            int length = this.coefficients.length;
+            int capacity = Math.max(length * 2, power + 1);
+            this.coefficients = Arrays.copyOf(this.coefficients, capacity);
+            Arrays.fill(this.coefficients, length, capacity, BigInteger.ZERO);
+        }
+    }
+
+    /**
+     * Lowers {@code degree} past any trailing zero coefficients.
+     */
+    private void trim() {
+        while (this.degree > 0 && this.coefficients[this.degree].signum() == 0) {
+            this.degree--;
+        }
+    }
+
+    /**
+     * Reports whether this is the zero polynomial.
+     */
+    private boolean isZero() {
+        return this.degree == 0 && this.coefficients[0].signum() == 0;
+    }
+
+    /**
+     * Folds the scale numerator into the coefficients, so that this = (1 / d)
+     * * sum c_i x^i and terms can be added at the common denominator d.
+     */
+    private void expand() {
+        if (!this.scaleNumerator.equals(BigInteger.ONE)) {
+            for (int i = 0; i <= this.degree; i++) {
+                this.coefficients[i] = this.coefficients[i].multiply(this.scaleNumerator);
+            }
+            this.scaleNumerator = BigInteger.ONE;
+            this.normalized = false;
+        }
+    }
+
+    /**
+     * Splits the integer content off the coefficients into the scale, leaving
+     * a primitive part with a positive leading coefficient, and reduces the
+     * scale.
+     */
+    private void normalize() {
+        if (this.normalized) {
+            return;
+        }
+        if (this.isZero()) {
+            this.scaleNumerator = BigInteger.ONE;
+            this.scaleDenominator = BigInteger.ONE;
+        } else {
+            BigInteger g = BigInteger.ZERO;
+            for (int i = this.degree; i >= 0 && !g.equals(BigInteger.ONE); i--) {
+                g = g.gcd(this.coefficients[i]);
+            }
+            if (this.coefficients[this.degree].signum() < 0) {
+                g = g.negate();
+            }
+            if (!g.equals(BigInteger.ONE)) {
+                for (int i = 0; i <= this.degree; i++) {
+                    this.coefficients[i] = this.coefficients[i].divide(g);
+                }
+                this.scaleNumerator = this.scaleNumerator.multiply(g);
+            }
+            BigInteger h = this.scaleNumerator.gcd(this.scaleDenominator);
+            if (!h.equals(BigInteger.ONE)) {
+                this.scaleNumerator = this.scaleNumerator.divide(h);
+                this.scaleDenominator = this.scaleDenominator.divide(h);
+            }
+        }
+        this.normalized = true;
+    }
+
+    /**
+     * Reports this normalized without modifying it: this itself if it is
+     * normalized already, otherwise a normalized copy.
+     */
+    private PolynomialPrimitive normalized() {
+        if (this.normalized) {
+            return this;
+        }
+        PolynomialPrimitive copy = (PolynomialPrimitive) this.dupe();
+        copy.normalize();
+        return copy;
+    }
+
+    /**
+     * Converts the coefficient at {@code power} to a rational number.
+     */
+    private RationalNumber coefficient(int power) {
+        return new RationalNumber(this.coefficients[power].multiply(this.scaleNumerator),
+                this.scaleDenominator);
+    }
+
+    /**
+     * Reports {@code p} as a normalized {@code PolynomialPrimitive}: p itself
+     * if it is one and normalized, otherwise a copy. Never modifies p.
+     */
+    private static PolynomialPrimitive primitiveOf(Polynomial p) {
+        if (p instanceof PolynomialPrimitive) {
+            return ((PolynomialPrimitive) p).normalized();
+        }
+        PolynomialPrimitive answer = new PolynomialPrimitive(p);
+        answer.normalize();
+        return answer;
+    }
+
+    /**
+     * Reports the primitive part of this as a fresh trimmed array indexed by
+     * power, the empty array for 0.
+     *
+     * @return the coefficients of the primitive part of this
+     */
+    BigInteger[] primitive() {
+        PolynomialPrimitive normal = this.normalized();
+        return Arrays.copyOf(normal.coefficients, normal.isZero() ? 0 : normal.degree + 1);
+    }
+
+    /**
+     * Multiplies integer coefficient arrays, schoolbook for short operands and
+     * multi-modularly for long ones.
+     */
+    static BigInteger[] multiply(BigInteger[] a, BigInteger[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return new BigInteger[0];
+        }
+        if (Math.min(a.length, b.length) >= PolynomialMultiplier.getTransformThreshold()) {
+            return MultiModular.multiply(a, b);
+        }
+        BigInteger[] answer = zeros(a.length + b.length - 1);
+        for (int i = 0; i < a.length; i++) {
+            if (a[i].signum() != 0) {
+                for (int j = 0; j < b.length; j++) {
+                    if (b[j].signum() != 0) {
+                        answer[i + j] = answer[i + j].add(a[i].multiply(b[j]));
+                    }
+                }
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Integer pseudo-quotient and pseudo-remainder with
+     * multiplier * a = quotient * b + remainder.
+     */
+    static final class PseudoDivision {
+
+        /**
+         * Coefficients of the quotient.
+         */
+        final BigInteger[] quotient;
+
+        /**
+         * Coefficients of the remainder, of length deg b.
+         */
+        final BigInteger[] remainder;
+
+        /**
+         * Power of the leading coefficient of b that a was multiplied by.
+         */
+        final BigInteger multiplier;
+
+        private PseudoDivision(BigInteger[] quotient, BigInteger[] remainder,
+                BigInteger multiplier) {
+            this.quotient = quotient;
+            this.remainder = remainder;
+            this.multiplier = multiplier;
+        }
+    }
+
+    /**
+     * Fraction-free division of the integer polynomial a by b, from the
+     * leading term down. A quotient coefficient is an exact integer quotient
+     * whenever the leading coefficient l of b divides the current remainder
+     * coefficient; otherwise the remainder and the quotient so far are
+     * multiplied by l first. With {@code full}, the result is then scaled to
+     * the classical pseudo-division multiplier l ^ (deg a - deg b + 1).
+     *
+     * @requires b has a nonzero last entry
+     */
+    static PseudoDivision pseudoDivide(BigInteger[] a, BigInteger[] b, boolean full) {
+        int m = b.length - 1;
+        int n = a.length - 1;
+        while (n >= 0 && a[n].signum() == 0) {
+            n--;
+        }
+        BigInteger lead = b[m];
+        BigInteger[] r = Arrays.copyOf(a, Math.max(n + 1, m));
+        for (int i = n + 1; i < r.length; i++) {
+            r[i] = BigInteger.ZERO;
+        }
+        if (n < m) {
+            return new PseudoDivision(new BigInteger[0], Arrays.copyOf(r, m), BigInteger.ONE);
+        }
+        BigInteger[] q = zeros(n - m + 1);
+        int scalings = 0;
+        boolean unit = lead.abs().equals(BigInteger.ONE);
+        for (int k = n - m; k >= 0; k--) {
+            BigInteger top = r[m + k];
+            if (top.signum() == 0) {
+                continue;
+            }
+            BigInteger[] qr = unit ? null : top.divideAndRemainder(lead);
+            BigInteger t;
+            if (unit) {
+                t = (lead.signum() > 0) ? top : top.negate();
+            } else if (qr[1].signum() == 0) {
+                t = qr[0];
+            } else {                                                            //scale through by lead
+                for (int i = 0; i < m + k; i++) {
+                    r[i] = r[i].multiply(lead);
+                }
+                for (int i = k + 1; i < q.length; i++) {
+                    q[i] = q[i].multiply(lead);
+                }
+                scalings++;
+                t = top;
+            }
+            q[k] = t;
+            for (int j = 0; j < m; j++) {
+                if (b[j].signum() != 0) {
+                    r[k + j] = r[k + j].subtract(t.multiply(b[j]));
+                }
+            }
+            r[m + k] = BigInteger.ZERO;
+        }
+        BigInteger multiplier = lead.pow(scalings);
+        if (full && scalings < n - m + 1) {
+            BigInteger extra = lead.pow(n - m + 1 - scalings);
+            for (int i = 0; i < q.length; i++) {
+                q[i] = q[i].multiply(extra);
+            }
+            for (int i = 0; i < m; i++) {
+                r[i] = r[i].multiply(extra);
+            }
+            multiplier = multiplier.multiply(extra);
+        }
+        return new PseudoDivision(q, Arrays.copyOf(r, m), multiplier);
+    }
+
+     /**
+     * Adds a term with coefficient {@code constant} and degree {@code power} to
+     * this.
+     *
+     * @param constant
+     *            the coefficient of the term to be added
+     * @param power
+     *            the degree of the term to be added
+     *
+     * @updates this
+     *
+     * @ensures this = constant * (x ^ power) + #this
+     */
+    @Override
+    public void addTerm(RationalNumber constant, int power) {
+        assert power >= 0 : "NEGATIVE POWER";
+        this.invalidate();
+        if (!constant.equals(RationalNumber.ZERO)) {
+            this.expand();
+            BigInteger numerator = constant.getNumerator();
+            BigInteger denominator = constant.getDenominator();
+            if (denominator.signum() < 0) {
+                numerator = numerator.negate();
+                denominator = denominator.negate();
+            }
+            BigInteger[] qr = this.scaleDenominator.divideAndRemainder(denominator);
+            if (qr[1].signum() != 0) {                                          //new denominator
+                BigInteger common = this.scaleDenominator.divide(
+                        this.scaleDenominator.gcd(denominator)).multiply(denominator);
+                BigInteger factor = common.divide(this.scaleDenominator);
+                for (int i = 0; i <= this.degree; i++) {
+                    this.coefficients[i] = this.coefficients[i].multiply(factor);
+                }
+                this.scaleDenominator = common;
+                qr[0] = common.divide(denominator);
+            }
+            this.ensureCapacity(power);
+            this.coefficients[power] = this.coefficients[power].add(numerator.multiply(qr[0]));
+            if (power > this.degree) {
+                this.degree = power;
+            } else if (power == this.degree) {
+                this.trim();
+            }
+            this.normalized = false;
+        }
+    }
+
+    /**
+     * Removes the term raised to {@code power} and reports its coefficient.
+     *
+     * @param power
+     *            the degree of the term to be removed
+     * @return the coefficient
+     *
+     * @updates this
+     *
+     * @ensures #this = removeTerm * (x ^ power) + this
+     */
+    @Override
+    public RationalNumber removeTerm(int power) {
+        this.invalidate();
+        RationalNumber answer;
+        if (power < 0 || power > this.degree || this.coefficients[power].signum() == 0) {
+            answer = new RationalNumber(0);
+        } else {
+            answer = this.coefficient(power);
+            this.coefficients[power] = BigInteger.ZERO;
+            if (power == this.degree) {
+                this.trim();
+            }
+            this.normalized = false;
+        }
+        return answer;
+    }
+
+    /**
+     * Retrieves the term raised to {@code power} and reports its coefficient.
+     *
+     * @param power
+     *            the degree of the term to be found
+     *
+     * @return the coefficient
+     */
+    @Override
+    public RationalNumber getTerm(int power) {
+        RationalNumber answer;
+        if (power < 0 || power > this.degree) {
+            answer = new RationalNumber(0);
+        } else {
+            answer = this.coefficient(power);
+        }
+        return answer;
+    }
+
+    /**
+     * Reports the degree of this.
+     *
+     * @return the highest power in {@code this}.
+     * @ensures degree = [the exponent of the highest order term in this]
+     *
+     */
+    @Override
+    public final int degree() {
+        return this.degree;
+    }
+
+    /**
+     * Read-only cursor walking the coefficient array downward, skipping zeros.
+     * The coefficient of the current term is built once, on first request.
+     */
+    private final class Cursor implements TermCursor {
+
+        /**
+         * Index of the current term.
+         */
+        private int index = PolynomialPrimitive.this.degree + 1;
+
+        /**
+         * Coefficient of the current term, or null if not yet built.
+         */
+        private RationalNumber current;
+
+        @Override
+        public boolean next() {
+            this.current = null;
+            do {
+                this.index--;
+            } while (this.index >= 0
+                    && PolynomialPrimitive.this.coefficients[this.index].signum() == 0);
+            return this.index >= 0;
+        }
+
+        @Override
+        public int power() {
+            return this.index;
+        }
+
+        @Override
+        public RationalNumber coefficient() {
+            if (this.current == null) {
+                this.current = PolynomialPrimitive.this.coefficient(this.index);
+            }
+            return this.current;
+        }
+    }
+
+    /**
+     * Spliterator over a range of powers of a coefficient array, from the top
+     * of the range down. Splits hand off the upper half of the range.
+     */
+    private static final class TermSpliterator implements Spliterator<Monomial> {
+
+        /**
+         * Smallest range that is still split.
+         */
+        private static final int MIN_SPLIT = 64;
+
+        /**
+         * The coefficient array being traversed.
+         */
+        private final BigInteger[] coefficients;
+
+        /**
+         * The scale the coefficients are multiplied by.
+         */
+        private final RationalNumber scale;
+
+        /**
+         * Lowest power of the range.
+         */
+        private final int low;
+
+        /**
+         * Highest power of the range not yet visited.
+         */
+        private int high;
+
+        private TermSpliterator(BigInteger[] coefficients, RationalNumber scale, int low,
+                int high) {
+            this.coefficients = coefficients;
+            this.scale = scale;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Monomial> action) {
+            while (this.high >= this.low) {
+                int power = this.high--;
+                if (this.coefficients[power].signum() != 0) {
+                    RationalNumber constant = new RationalNumber(this.coefficients[power],
+                            BigInteger.ONE);
+                    constant.multiply(this.scale);
+                    action.accept(new Monomial(power, constant));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<Monomial> trySplit() {
+            Spliterator<Monomial> prefix = null;
+            if (this.high - this.low >= MIN_SPLIT) {
+                int mid = (this.low + this.high) >>> 1;
+                prefix = new TermSpliterator(this.coefficients, this.scale, mid + 1, this.high);
+                this.high = mid;
+            }
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Math.max(0, this.high - this.low + 1);
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /**
+     * Creates a read-only cursor over the nonzero terms of this, from the
+     * highest power down.
+     *
+     * @return a cursor positioned before the highest term of this
+     */
+    @Override
+    public TermCursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Calls {@code visitor} on every nonzero term of this, from the highest
+     * power down, without modifying this.
+     *
+     * @param visitor
+     *            the callback for each term
+     */
+    @Override
+    public void forEachTerm(TermVisitor visitor) {
+        for (int power = this.degree; power >= 0; power--) {
+            if (this.coefficients[power].signum() != 0) {
+                visitor.visit(power, this.coefficient(power));
+            }
+        }
+    }
+
+    /**
+     * Creates a read-only, splittable traversal over the nonzero terms of this,
+     * from the highest power down.
+     *
+     * @return a spliterator over the terms of this
+     */
+    @Override
+    public Spliterator<Monomial> spliterator() {
+        return new TermSpliterator(this.coefficients,
+                new RationalNumber(this.scaleNumerator, this.scaleDenominator), 0, this.degree);
+    }
+
+    /**
+     * Resets this to it's default value upon initializiation.
+     *
+     *
+     * @ensures this = 0
+     *
+     */
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    /**
+     * returns a duplicate of p. Convenience method.
+     *
+     * @param p
+     *            the polynomial to be duplicated
+     *
+     * @ensures dupe = p
+     *
+     * @return a perfect copy of p
+     */
+    @Override
+    public Polynomial dupe() {
+        PolynomialPrimitive copy = (PolynomialPrimitive) this.newInstance();
+        copy.coefficients = Arrays.copyOf(this.coefficients,
+                Math.max(this.degree + 1, INITIAL_CAPACITY));
+        Arrays.fill(copy.coefficients, this.degree + 1, copy.coefficients.length, BigInteger.ZERO);
+        copy.degree = this.degree;
+        copy.scaleNumerator = this.scaleNumerator;
+        copy.scaleDenominator = this.scaleDenominator;
+        copy.normalized = this.normalized;
+        return copy;
+    }
+
+    /**
+     * Creates and returns a new polynomial instance of this.
+     *
+     * @return a polynomial of the same type as this initialized to default value
+     */
+    @Override
+    public final Polynomial newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    /**
+     * Replaces the polynomial represented by this with the polynomial in {@code source}
+     *
+     * @ensures this = #source and source = 0
+     */
+    @Override
+    public final void transferFrom(Polynomial source) {
+        if (source instanceof PolynomialPrimitive) {                            //steal the array
+            PolynomialPrimitive localSource = (PolynomialPrimitive) source;
+            this.invalidate();
+            this.coefficients = localSource.coefficients;
+            this.degree = localSource.degree;
+            this.scaleNumerator = localSource.scaleNumerator;
+            this.scaleDenominator = localSource.scaleDenominator;
+            this.normalized = localSource.normalized;
+            localSource.createNewRep();
+        } else {
+            this.createNewRep();
+            source.forEachTerm((power, constant) -> this.addTerm(new RationalNumber(constant),
+                    power));
+            source.clear();
+        }
+    }
+
+    /*
+     * Content and primitive part ---------------------------------------------
+     */
+
+    /**
+     * Reports the content of this: the rational c with this = c * pp, where
+     * the primitive part pp has integer coefficients with gcd 1 and a positive
+     * leading coefficient.
+     *
+     * @return the content of this, 0 for the zero polynomial
+     */
+    public RationalNumber content() {
+        PolynomialPrimitive normal = this.normalized();
+        RationalNumber answer = new RationalNumber(0);
+        if (!normal.isZero()) {
+            answer = new RationalNumber(normal.scaleNumerator, normal.scaleDenominator);
+        }
+        return answer;
+    }
+
+    /**
+     * Reports the primitive part of this.
+     *
+     * @return pp with this = content * pp, 0 for the zero polynomial
+     */
+    public PolynomialPrimitive primitivePart() {
+        PolynomialPrimitive answer = (PolynomialPrimitive) this.newInstance();
+        answer.set(this.primitive(), BigInteger.ONE, BigInteger.ONE);
+        answer.normalized = true;
+        return answer;
+    }
+
+    /**
+     * Pseudo-divides this by p: with l the leading coefficient of p and
+     * e = max(deg #this - deg p + 1, 0), divides l ^ e * #this by p, which
+     * needs no fractions beyond those of the contents.
+     *
+     * @param p
+     *            the denominator polynomial
+     *
+     * @updates this
+     *
+     * @return the pseudo-remainder
+     *
+     * @ensures l ^ e * #this = this * p + pseudoDivide and deg pseudoDivide < deg p
+     */
+    public PolynomialPrimitive pseudoDivide(Polynomial p) {
+        return this.divide(p, true);
+    }
+
+    /*
+     * Secondary methods on integer coefficients ------------------------------
+     */
+
+    /**
+     * Adds or subtracts p: a * A + sign * b * B = g * ((a / g) * A + sign *
+     * (b / g) * B), where g is the gcd of the scales a and b, so the sum of
+     * the primitive parts has integer coefficients.
+     */
+    private void combine(Polynomial p, int sign) {
+        PolynomialPrimitive other = primitiveOf(p);
+        this.normalize();
+        if (other.isZero()) {
+            return;
+        }
+        if (this.isZero()) {
+            this.set(other.primitive(), other.scaleNumerator.multiply(BigInteger.valueOf(sign)),
+                    other.scaleDenominator);
+            return;
+        }
+        BigInteger g = this.scaleNumerator.gcd(other.scaleNumerator);
+        BigInteger l = this.scaleDenominator.divide(
+                this.scaleDenominator.gcd(other.scaleDenominator)).multiply(other.scaleDenominator);
+        BigInteger mine = this.scaleNumerator.divide(g).multiply(l.divide(this.scaleDenominator));
+        BigInteger theirs = other.scaleNumerator.divide(g)
+                .multiply(l.divide(other.scaleDenominator)).multiply(BigInteger.valueOf(sign));
+        BigInteger[] sum = zeros(Math.max(this.degree, other.degree) + 1);
+        for (int i = 0; i <= this.degree; i++) {
+            sum[i] = this.coefficients[i].multiply(mine);
+        }
+        for (int i = 0; i <= other.degree; i++) {
+            sum[i] = sum[i].add(other.coefficients[i].multiply(theirs));
+        }
+        this.set(sum, g, l);
+    }
+
+    /**
+     * Adds p to this.
+     *
+     * @param p
+     *            the polynomial to be added
+     * @updates this
+     *
+     * @clears p
+     *
+     * @ensures this = #this + p
+     */
+    @Override
+    public void add(Polynomial p) {
+        this.combine(p, 1);
+        release(p);
+    }
+
+    /**
+     * Subtracts p from this.
+     *
+     * @param p
+     *            the polynomial to be subtracted
+     * @updates this
+     *
+     * @clears p
+     *
+     * @ensures this = #this - p
+     */
+    @Override
+    public void subtract(Polynomial p) {
+        this.combine(p, -1);
+        release(p);
+    }
+
+    /**
+     * Multiplies this by p. The product of primitive parts is primitive, so
+     * the result needs no normalization.
+     *
+     * @param p
+     *            the polynomial to be multiplied
+     * @updates this
+     *
+     * @restores p
+     *
+     * @ensures this = #this * p
+     */
+    @Override
+    public void multiply(Polynomial p) {
+        PolynomialPrimitive other = primitiveOf(p);
+        this.normalize();
+        this.set(multiply(this.primitive(), other.primitive()),
+                this.scaleNumerator.multiply(other.scaleNumerator),
+                this.scaleDenominator.multiply(other.scaleDenominator));
+        if (!this.isZero()) {
+            BigInteger h = this.scaleNumerator.gcd(this.scaleDenominator);
+            this.scaleNumerator = this.scaleNumerator.divide(h);
+            this.scaleDenominator = this.scaleDenominator.divide(h);
+            this.normalized = true;
+        }
+    }
+
+    /**
+     * Divides a * A by b * B through fraction-free division of the primitive
+     * parts, l ^ s * A = Q * B + R, giving the quotient a / (b l ^ s) * Q and
+     * the remainder a / l ^ s * R. For pseudo-division l ^ s is the classical
+     * multiplier and the factor b ^ e of l(p) ^ e is put back.
+     */
+    private PolynomialPrimitive divide(Polynomial p, boolean pseudo) {
+        PolynomialPrimitive other = primitiveOf(p);
+        if (other.isZero()) {
+            throw new ArithmeticException("Division by the zero polynomial");
+        }
+        this.normalize();
+        BigInteger[] b = other.primitive();
+        BigInteger[] a = this.primitive();
+        PseudoDivision division = pseudoDivide(a, b, pseudo);
+        BigInteger numerator = this.scaleNumerator;
+        BigInteger denominator = this.scaleDenominator;
+        PolynomialPrimitive remainder = (PolynomialPrimitive) this.newInstance();
+        if (pseudo) {
+            int e = Math.max(a.length - b.length + 1, 0);
+            BigInteger bn = other.scaleNumerator.pow(e);
+            BigInteger bd = other.scaleDenominator.pow(e);
+            remainder.set(division.remainder, numerator.multiply(bn), denominator.multiply(bd));
+            this.set(division.quotient, numerator.multiply(bn).multiply(other.scaleDenominator),
+                    denominator.multiply(bd).multiply(other.scaleNumerator));
+        } else {
+            remainder.set(division.remainder, numerator,
+                    denominator.multiply(division.multiplier));
+            this.set(division.quotient, numerator.multiply(other.scaleDenominator),
+                    denominator.multiply(other.scaleNumerator).multiply(division.multiplier));
+        }
+        return remainder;
+    }
+
+    /**
+    * Divides this by p.
+    *
+    * @param p
+    *          the denominator polynomial
+    *
+    * @updates this
+    *
+    * @return the remainder of #this / p
+    *
+    * @ensures this = #this / p and divide = [remainder of #this/p]
+    */
+    @Override
+    public Polynomial divide(Polynomial p) {
+        return this.divide(p, false);
+    }
+
+    /**
+    * Evaluates this at x = {@code x}, with u / v = x, as the integer
+    * sum c_i u^i v^(n - i) scaled once by n / (d v^n).
+    *
+    * @param x
+    *            the value used to evaluate the expression
+    *
+    * @return the evaluation of this at x
+    *
+    * @ensures evaluateAt = f({@code x}) where f(x) = this
+    */
+    @Override
+    public RationalNumber evaluateAt(RationalNumber x) {
+        BigInteger u = x.getNumerator();
+        BigInteger v = x.getDenominator();
+        boolean integral = v.equals(BigInteger.ONE);
+        BigInteger value = this.coefficients[this.degree];
+        BigInteger vPower = BigInteger.ONE;
+        for (int power = this.degree - 1; power >= 0; power--) {
+            value = value.multiply(u);
+            if (!integral) {
+                vPower = vPower.multiply(v);
+            }
+            BigInteger c = this.coefficients[power];
+            if (c.signum() != 0) {
+                value = value.add(integral ? c : c.multiply(vPower));
+            }
+        }
+        return new RationalNumber(value.multiply(this.scaleNumerator),
+                this.scaleDenominator.multiply(vPower));
+    }
+
+    /**
+     * No-argument constructor.
+     */
+    public PolynomialPrimitive() {
+        this.createNewRep();
+    }
+
+    /**
+     * Initialize an instance of polynomial with the given coefficients {@coeff}
+     */
+    public PolynomialPrimitive(RationalNumber... coeff) {
+        this.createNewRep();
+        int degree = coeff.length - 1;
+        this.ensureCapacity(degree);
+        for (RationalNumber constant : coeff) {
+            this.addTerm(constant, degree--);
+        }
+    }
+
+    /**
+     * Initialize an instance of polynomial with the given coefficients {@coeff}
+     */
+    public PolynomialPrimitive(int... coeff) {
+        this.createNewRep();
+        int degree = coeff.length - 1;
+        this.ensureCapacity(degree);
+        for (int constant : coeff) {
+            this.addTerm(new RationalNumber(constant), degree--);
+        }
+    }
+
+    /**
+     * Initialize a copy of {@code source}, whose coefficients are brought to
+     * their common denominator in one pass. Source is left unchanged.
+     */
+    public PolynomialPrimitive(Polynomial source) {
+        this.createNewRep();
+        BigInteger[] denominator = {BigInteger.ONE};
+        source.forEachTerm((power, constant) -> {
+            BigInteger d = constant.getDenominator().abs();
+            denominator[0] = denominator[0].divide(denominator[0].gcd(d)).multiply(d);
+        });
+        BigInteger[] a = zeros(source.degree() + 1);
+        source.forEachTerm((power, constant) -> a[power] = constant.getNumerator()
+                .multiply(denominator[0].divide(constant.getDenominator())));
+        this.set(a, BigInteger.ONE, denominator[0]);
+    }
+
+    /**
+     * Initialize as {@code numerator} / {@code denominator} times the integer
+     * coefficients {@code coefficients}, indexed by power, which this takes
+     * over.
+     */
+    PolynomialPrimitive(BigInteger[] coefficients, BigInteger numerator, BigInteger denominator) {
+        this.createNewRep();
+        this.set(coefficients, numerator, denominator);
+    }
+}
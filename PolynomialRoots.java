@@ -0,0 +1,469 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+
+import RationalNumber.RationalNumber;
+
+/**
+ * Root-finding engine for polynomials over the rationals.
+ *
+ * @author Kasper
+ *
+ * Rational roots are found on the square-free primitive integer part s,
+ * whose roots are the distinct roots of the polynomial. Its roots modulo a
+ * word-size prime are the linear factors of gcd(x ^ p - x, s), split by the
+ * equal-degree factorization of {@code PolynomialFactorizer}; of a few
+ * primes that divide neither lc(s) nor the discriminant, the one with the
+ * fewest roots is used. Each root is lifted by Newton's iteration, doubling
+ * its precision each step, past 2 |lc(s) s(0)|: by the rational root
+ * theorem a root u / v has v dividing lc(s) and u dividing s(0), so lc(s)
+ * u / v is an integer of at most that size, read off the lifted root in the
+ * symmetric range. Every candidate is checked exactly, so there are at most
+ * deg s of them whatever the factorizations of the coefficients; the roots
+ * are lifted and checked in parallel on the common pool, and each root found
+ * deflates the polynomial as often as it divides it, which gives its
+ * multiplicity.
+ *
+ * Real roots are isolated by the Descartes method with bisection
+ * (Collins-Akritas) on the square-free primitive part, scaled by a power of 2
+ * above Fujiwara's root bound so the positive and the negative roots each lie
+ * in (0, 1). The number of sign variations of (x + 1) ^ n a(1 / (x + 1))
+ * bounds the number of roots of a in (0, 1) and has the same parity; an
+ * interval with no variation is dropped, one with a single variation holds
+ * exactly one root, and any other is halved. The halves are independent and
+ * run as fork-join tasks on the common pool.
+ *
+ */
+public final class PolynomialRoots {
+
+    /**
+     * Number of primes whose root counts are compared.
+     */
+    private static final int ROOT_PRIMES = 3;
+
+    /**
+     * No instances.
+     */
+    private PolynomialRoots() {
+    }
+
+    /**
+     * An isolating interval: the open interval (lower, upper) holding exactly
+     * one real root, or the point [lower, lower] if the root is lower.
+     */
+    public static final class Interval {
+
+        /**
+         * The endpoints.
+         */
+        private final RationalNumber lower;
+
+        private final RationalNumber upper;
+
+        Interval(RationalNumber lower, RationalNumber upper) {
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        /**
+         * @return a copy of the lower endpoint
+         */
+        public RationalNumber getLower() {
+            return new RationalNumber(this.lower);
+        }
+
+        /**
+         * @return a copy of the upper endpoint
+         */
+        public RationalNumber getUpper() {
+            return new RationalNumber(this.upper);
+        }
+
+        /**
+         * @return whether the root is the lower endpoint itself
+         */
+        public boolean isPoint() {
+            return this.lower.equals(this.upper);
+        }
+
+        @Override
+        public String toString() {
+            return this.isPoint() ? "[" + this.lower + ", " + this.upper + "]"
+                    : "(" + this.lower + ", " + this.upper + ")";
+        }
+    }
+
+    /**
+     * Finds the rational roots of {@code p}.
+     *
+     * @param p
+     *            the polynomial
+     *
+     * @return the rational roots of p in ascending order, each repeated
+     *         according to its multiplicity
+     *
+     * @throws ArithmeticException
+     *             if p is the zero polynomial
+     */
+    public static List<RationalNumber> rationalRoots(Polynomial p) {
+        BigInteger[] a = new PolynomialPrimitive(p).primitive();
+        if (a.length == 0) {
+            throw new ArithmeticException("Every number is a root of the zero polynomial");
+        }
+        List<RationalNumber> answer = new ArrayList<>();
+        int low = PolynomialGcd.lowestPower(a);
+        for (int i = 0; i < low; i++) {
+            answer.add(new RationalNumber(0));
+        }
+        a = Arrays.copyOfRange(a, low, a.length);
+        if (a.length > 1) {
+            BigInteger[] s = squareFreePart(a);
+            List<BigInteger[]> roots = candidates(s);
+            for (BigInteger[] root : roots) {
+                while (a.length > 1 && vanishes(a, root[0], root[1])) {
+                    a = deflate(a, root[0], root[1]);
+                    answer.add(new RationalNumber(root[0], root[1]));
+                }
+            }
+        }
+        Collections.sort(answer);
+        return answer;
+    }
+
+    /**
+     * Isolates the real roots of {@code p}.
+     *
+     * @param p
+     *            the polynomial
+     *
+     * @return disjoint isolating intervals with rational endpoints, one for
+     *         each distinct real root of p, in ascending order
+     *
+     * @throws ArithmeticException
+     *             if p is the zero polynomial
+     */
+    public static List<Interval> isolateRealRoots(Polynomial p) {
+        BigInteger[] a = new PolynomialPrimitive(p).primitive();
+        if (a.length == 0) {
+            throw new ArithmeticException("Every number is a root of the zero polynomial");
+        }
+        Queue<Interval> found = new ConcurrentLinkedQueue<>();
+        int low = PolynomialGcd.lowestPower(a);
+        if (low > 0) {
+            found.add(new Interval(new RationalNumber(0), new RationalNumber(0)));
+            a = Arrays.copyOfRange(a, low, a.length);
+        }
+        if (a.length > 1) {
+            BigInteger[] s = squareFreePart(a);
+            int n = s.length - 1;
+            int lead = s[n].abs().bitLength() - 1;                              //2 ^ lead <= |s_n|
+            int k = 0;
+            for (int i = 1; i <= n; i++) {                                      //Fujiwara: |root| < 2 max |s_(n-i) / s_n| ^ (1 / i)
+                if (s[n - i].signum() != 0) {
+                    k = Math.max(k, Math.floorDiv(s[n - i].abs().bitLength() - lead + i - 1, i));
+                }
+            }
+            k++;
+            Descartes positive = new Descartes(scale(s, k, false), BigInteger.ZERO, 0, k, false,
+                    found);
+            Descartes negative = new Descartes(scale(s, k, true), BigInteger.ZERO, 0, k, true,
+                    found);
+            ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(
+                    () -> ForkJoinTask.invokeAll(positive, negative)));
+        }
+        List<Interval> answer = new ArrayList<>(found);
+        answer.sort((x, y) -> x.lower.compareTo(y.lower));
+        return answer;
+    }
+
+    /**
+     * Reports the square-free part a / gcd(a, a') of a primitive integer
+     * polynomial.
+     */
+    private static BigInteger[] squareFreePart(BigInteger[] a) {
+        return PolynomialFactorizer.exactQuotient(a, PolynomialGcd.gcd(a,
+                PolynomialGcd.primitivePart(PolynomialFactorizer.derivative(a))));
+    }
+
+    /**
+     * Finds the rational roots of the square-free integer polynomial s, with
+     * s(0) nonzero, from its roots modulo a prime.
+     *
+     * @return the roots {u, v}, u / v in lowest terms with v > 0
+     */
+    private static List<BigInteger[]> candidates(BigInteger[] s) {
+        BigInteger[] derivative = PolynomialFactorizer.derivative(s);
+        long[] primes = new long[ROOT_PRIMES];
+        for (int i = 0, found = 0; found < ROOT_PRIMES; i++) {
+            long p = MultiModular.prime(i);
+            if (ModularArithmetic.residue(s[s.length - 1], p) != 0
+                    && ModularArithmetic.gcd(MultiModular.residues(s, p),
+                            MultiModular.residues(derivative, p), p).length == 1) {
+                primes[found++] = p;
+            }
+        }
+        long[][] linear = Arrays.stream(primes).parallel()
+                .mapToObj(p -> PolynomialFactorizer.linearPart(MultiModular.residues(s, p), p))
+                .toArray(long[][]::new);
+        int best = 0;
+        for (int i = 1; i < ROOT_PRIMES; i++) {
+            if (linear[i].length < linear[best].length) {
+                best = i;
+            }
+        }
+        long p = primes[best];
+        BigInteger lead = s[s.length - 1];
+        BigInteger bound = lead.multiply(s[0]).abs().shiftLeft(1);
+        List<BigInteger[]> answer = Arrays.stream(PolynomialFactorizer.roots(linear[best], p))
+                .parallel()
+                .mapToObj(r -> lift(s, derivative, r, p, bound))
+                .filter(root -> root != null)
+                .collect(Collectors.toList());
+        answer.sort((x, y) -> x[0].multiply(y[1]).compareTo(y[0].multiply(x[1])));
+        return answer;
+    }
+
+    /**
+     * Lifts the simple root r of s modulo p by Newton's iteration to a
+     * modulus m > bound, and reports lc(s) r mod m over lc(s) if it is a root
+     * of s, null otherwise.
+     */
+    private static BigInteger[] lift(BigInteger[] s, BigInteger[] derivative, long r, long p,
+            BigInteger bound) {
+        BigInteger m = BigInteger.valueOf(p);
+        BigInteger x = BigInteger.valueOf(r);
+        while (m.compareTo(bound) <= 0) {
+            m = m.multiply(m);
+            BigInteger slope = evaluate(derivative, x, m).modInverse(m);       //s'(r) is a unit: r is simple mod p
+            x = x.subtract(evaluate(s, x, m).multiply(slope)).mod(m);
+        }
+        BigInteger lead = s[s.length - 1];
+        BigInteger c = lead.multiply(x).mod(m);
+        if (c.shiftLeft(1).compareTo(m) > 0) {                                  //symmetric range
+            c = c.subtract(m);
+        }
+        BigInteger g = c.gcd(lead);
+        BigInteger u = c.divide(g);
+        BigInteger v = lead.divide(g);
+        if (v.signum() < 0) {
+            u = u.negate();
+            v = v.negate();
+        }
+        return vanishes(s, u, v) ? new BigInteger[] {u, v} : null;
+    }
+
+    /**
+     * Reports a(x) mod m by Horner's scheme.
+     */
+    private static BigInteger evaluate(BigInteger[] a, BigInteger x, BigInteger m) {
+        BigInteger answer = BigInteger.ZERO;
+        for (int i = a.length - 1; i >= 0; i--) {
+            answer = answer.multiply(x).add(a[i]).mod(m);
+        }
+        return answer;
+    }
+
+    /**
+     * One step of the Descartes method: isolates the roots in (0, 1) of a,
+     * which maps onto the interval (c / 2 ^ d, (c + 1) / 2 ^ d) scaled by 2 ^
+     * k, and negated for the negative roots.
+     */
+    private static final class Descartes extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BigInteger[] a;
+
+        private final BigInteger c;
+
+        private final int d;
+
+        private final int k;
+
+        private final boolean negative;
+
+        private final Queue<Interval> found;
+
+        Descartes(BigInteger[] a, BigInteger c, int d, int k, boolean negative,
+                Queue<Interval> found) {
+            this.a = a;
+            this.c = c;
+            this.d = d;
+            this.k = k;
+            this.negative = negative;
+            this.found = found;
+        }
+
+        @Override
+        protected void compute() {
+            if (variations(this.a) == 0) {                                      //no positive roots at all
+                return;
+            }
+            int n = this.a.length - 1;
+            BigInteger[] reversed = new BigInteger[n + 1];
+            for (int i = 0; i <= n; i++) {
+                reversed[i] = this.a[n - i];
+            }
+            int v = descartes(reversed);
+            if (v == 1) {
+                this.found.add(this.interval(this.c, this.c.add(BigInteger.ONE), this.d));
+            } else if (v > 1) {
+                BigInteger[] left = new BigInteger[n + 1];                      //2 ^ n a(x / 2)
+                for (int i = 0; i <= n; i++) {
+                    left[i] = this.a[i].shiftLeft(n - i);
+                }
+                BigInteger[] right = shift(left.clone());                       //2 ^ n a((x + 1) / 2)
+                BigInteger middle = this.c.shiftLeft(1).add(BigInteger.ONE);
+                if (right[0].signum() == 0) {
+                    this.found.add(this.interval(middle, middle, this.d + 1));
+                    right = Arrays.copyOfRange(right, 1, right.length);
+                }
+                invokeAll(new Descartes(reduce(left), this.c.shiftLeft(1), this.d + 1, this.k,
+                        this.negative, this.found),
+                        new Descartes(reduce(right), middle, this.d + 1, this.k, this.negative,
+                                this.found));
+            }
+        }
+
+        /**
+         * Maps the scaled interval (lower / 2 ^ d, upper / 2 ^ d) back.
+         */
+        private Interval interval(BigInteger lower, BigInteger upper, int d) {
+            BigInteger denominator = BigInteger.ONE.shiftLeft(d);
+            if (this.negative) {
+                return new Interval(new RationalNumber(upper.shiftLeft(this.k).negate(), denominator),
+                        new RationalNumber(lower.shiftLeft(this.k).negate(), denominator));
+            }
+            return new Interval(new RationalNumber(lower.shiftLeft(this.k), denominator),
+                    new RationalNumber(upper.shiftLeft(this.k), denominator));
+        }
+    }
+
+    /**
+     * Reports s(2 ^ k x), or s(-2 ^ k x) if negative, with the common power of
+     * 2 divided out.
+     */
+    private static BigInteger[] scale(BigInteger[] s, int k, boolean negative) {
+        BigInteger[] answer = new BigInteger[s.length];
+        for (int i = 0; i < s.length; i++) {
+            answer[i] = s[i].shiftLeft(k * i);
+            if (negative && i % 2 == 1) {
+                answer[i] = answer[i].negate();
+            }
+        }
+        return reduce(answer);
+    }
+
+    /**
+     * Divides a by the largest power of 2 dividing all its coefficients.
+     */
+    private static BigInteger[] reduce(BigInteger[] a) {
+        int shift = Integer.MAX_VALUE;
+        for (BigInteger c : a) {
+            if (c.signum() != 0) {
+                shift = Math.min(shift, c.getLowestSetBit());
+            }
+        }
+        if (shift > 0 && shift < Integer.MAX_VALUE) {
+            for (int i = 0; i < a.length; i++) {
+                a[i] = a[i].shiftRight(shift);
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Replaces a(x) by a(x + 1) in place, by repeated synthetic division.
+     *
+     * @return a
+     */
+    private static BigInteger[] shift(BigInteger[] a) {
+        int n = a.length - 1;
+        for (int i = 0; i < n; i++) {
+            for (int j = n - 1; j >= i; j--) {
+                a[j] = a[j].add(a[j + 1]);
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Shifts a(x) to a(x + 1) in place as far as needed to count its sign
+     * variations up to 2: each pass of the shift fixes one more coefficient,
+     * from the constant up, so the count can stop early.
+     *
+     * @return the number of sign variations of a(x + 1), or 2 if there are
+     *         more
+     */
+    private static int descartes(BigInteger[] a) {
+        int n = a.length - 1;
+        int answer = 0;
+        int sign = 0;
+        for (int i = 0; i <= n; i++) {
+            for (int j = n - 1; j >= i; j--) {
+                a[j] = a[j].add(a[j + 1]);
+            }
+            if (a[i].signum() != 0) {
+                if (a[i].signum() != sign && sign != 0 && ++answer == 2) {
+                    return answer;
+                }
+                sign = a[i].signum();
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * @return the number of sign changes in the nonzero coefficients of a
+     */
+    private static int variations(BigInteger[] a) {
+        int answer = 0;
+        int sign = 0;
+        for (BigInteger c : a) {
+            if (c.signum() != 0) {
+                if (c.signum() != sign && sign != 0) {
+                    answer++;
+                }
+                sign = c.signum();
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Reports whether a(p / q) = 0, by Horner's scheme on q ^ n a(p / q) = sum
+     * a_i p ^ i q ^ (n - i).
+     */
+    private static boolean vanishes(BigInteger[] a, BigInteger p, BigInteger q) {
+        BigInteger value = a[a.length - 1];
+        BigInteger power = BigInteger.ONE;
+        for (int i = a.length - 2; i >= 0; i--) {
+            power = power.multiply(q);
+            value = value.multiply(p).add(a[i].multiply(power));
+        }
+        return value.signum() == 0;
+    }
+
+    /**
+     * Divides a by q x - p, which divides it, from the leading coefficient
+     * down.
+     */
+    private static BigInteger[] deflate(BigInteger[] a, BigInteger p, BigInteger q) {
+        int n = a.length - 1;
+        BigInteger[] answer = new BigInteger[n];
+        BigInteger carry = BigInteger.ZERO;
+        for (int i = n; i >= 1; i--) {
+            answer[i - 1] = a[i].add(carry).divide(q);
+            carry = answer[i - 1].multiply(p);
+        }
+        return answer;
+    }
+}
@@ -0,0 +1,550 @@
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import RationalNumber.RationalNumber;
+
+
+/**
+ *
+ * Models an algebraic polynomial expression
+ *
+ *
+ * @author Kasper
+ *
+ *
+ * Polynomial kernel component backed by parallel arrays of powers and
+ * coefficients sorted by descending power. Suited to sparse polynomials:
+ * lookups are binary searches, the live terms are kept in the middle of the
+ * arrays so that adding a new highest or lowest term is amortized O(1), and
+ * removed terms are left as tombstones that are compacted lazily.
+ *
+ *
+ */
+public class PolynomialSparse extends Polynomial{
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Capacity of the arrays upon initialization.
+     */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * Powers of the terms, strictly decreasing over [start, end).
+     */
+    private int[] powers;
+
+    /**
+     * Coefficients parallel to {@code powers}. A null entry is a tombstone
+     * left behind by a removed term.
+     */
+    private RationalNumber[] coefficients;
+
+    /**
+     * Index of the highest term. Never a tombstone unless start = end.
+     */
+    private int start;
+
+    /**
+     * One past the index of the lowest term. Never a tombstone unless
+     * start = end.
+     */
+    private int end;
+
+    /**
+     * Number of tombstones in [start, end).
+     */
+    private int dead;
+
+    /**
+     * Creator of initial representation.
+     * (Empty arrays of initial capacity, no terms)
+     */
+    private void createNewRep() {
+        this.invalidate();
+        this.powers = new int[INITIAL_CAPACITY];
+        this.coefficients = new RationalNumber[INITIAL_CAPACITY];
+        this.start = 0;
+        this.end = 0;
+        this.dead = 0;
+    }
+
+    /**
+     * Binary search for {@code power} in [start, end).
+     *
+     * @param power
+     *            the degree to be found
+     * @return the index of {@code power} if present, otherwise
+     *         (-(insertion point) - 1)
+     */
+    private int find(int power) {
+        int low = this.start;
+        int high = this.end - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midPower = this.powers[mid];
+            if (midPower > power) {
+                low = mid + 1;
+            } else if (midPower < power) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Moves the live terms into the middle of fresh arrays of the given
+     * capacity, dropping every tombstone.
+     *
+     * @param capacity
+     *            the length of the new arrays
+     */
+    private void compact(int capacity) {
+        int offset = (capacity - this.size()) / 2;
+        int[] newPowers = new int[capacity];
+        RationalNumber[] newCoefficients = new RationalNumber[capacity];
+        int j = offset;
+        for (int i = this.start; i < this.end; i++) {
+            if (this.coefficients[i] != null) {
+                newPowers[j] = this.powers[i];
+                newCoefficients[j] = this.coefficients[i];
+                j++;
+            }
+        }
+        this.powers = newPowers;
+        this.coefficients = newCoefficients;
+        this.start = offset;
+        this.end = j;
+        this.dead = 0;
+    }
+
+    /**
+     * Reports the number of live terms.
+     *
+     * @return the number of nonzero terms in this
+     */
+    private int size() {
+        return this.end - this.start - this.dead;
+    }
+
+    /**
+     * Deletes the live term at {@code index}, leaving a tombstone if it is
+     * neither the highest nor the lowest term.
+     *
+     * @param index
+     *            the index of the term to be deleted
+     */
+    private void delete(int index) {
+        this.coefficients[index] = null;
+        if (index == this.start) {
+            this.start++;
+            while (this.start < this.end && this.coefficients[this.start] == null) {
+                this.start++;
+                this.dead--;
+            }
+        } else if (index == this.end - 1) {
+            this.end--;
+            while (this.end > this.start && this.coefficients[this.end - 1] == null) {
+                this.end--;
+                this.dead--;
+            }
+        } else {
+            this.dead++;
+        }
+        if (this.start == this.end) {
+            this.start = 0;
+            this.end = 0;
+        } else if (this.dead > this.size()) {                                   //lazy compaction
+            this.compact(this.coefficients.length);
+        }
+    }
+
+    /**
+     * Inserts a new term at the insertion point {@code index}.
+     *
+     * @param index
+     *            the insertion point reported by {@code find}
+     * @param constant
+     *            the coefficient of the new term
+     * @param power
+     *            the degree of the new term
+     */
+    private void insert(int index, RationalNumber constant, int power) {
+        if (index != this.start && index != this.end && this.dead > 0) {        //shifting anyway, drop tombstones
+            this.compact(this.coefficients.length);
+            index = -(this.find(power) + 1);
+        }
+        if ((index == this.start) ? this.start == 0 : this.end == this.coefficients.length) {
+            int capacity = this.coefficients.length;                            //no room on that side
+            if (capacity < 2 * this.size() + 2) {                               //grow
+                capacity = Math.max(INITIAL_CAPACITY, 2 * this.size() + 2);
+            }
+            this.compact(capacity);
+            index = -(this.find(power) + 1);
+        }
+        if (index == this.start) {                                              //prepend
+            this.start--;
+            index = this.start;
+        } else {
+            if (index != this.end) {                                            //shift lower terms
+                System.arraycopy(this.powers, index, this.powers, index + 1, this.end - index);
+                System.arraycopy(this.coefficients, index, this.coefficients, index + 1,
+                        this.end - index);
+            }
+            this.end++;
+        }
+        this.powers[index] = power;
+        this.coefficients[index] = constant;
+    }
+
+    /**
+     * Adds a term with coefficient {@code constant} and degree {@code power} to
+     * this.
+     *
+     * @param constant
+     *            the coefficient of the term to be added
+     * @param power
+     *            the degree of the term to be added
+     *
+     * @updates this
+     *
+     * @ensures this = constant * (x ^ power) + #this
+     */
+    @Override
+    public void addTerm(RationalNumber constant, int power) {
+        this.invalidate();
+        if (!constant.equals(RationalNumber.ZERO)) {
+            int index = this.find(power);
+            if (index < 0) {                                                    //insertion
+                this.insert(-(index + 1), constant, power);
+            } else if (this.coefficients[index] == null) {                      //revive tombstone
+                this.coefficients[index] = constant;
+                this.dead--;
+            } else {                                                            //add case
+                this.coefficients[index] = accumulate(this.coefficients[index], constant);
+                if (this.coefficients[index].equals(RationalNumber.ZERO)) {
+                    this.delete(index);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the term raised to {@code power} and reports its coefficient.
+     *
+     * @param power
+     *            the degree of the term to be removed
+     * @return the coefficient
+     *
+     * @updates this
+     *
+     * @ensures #this = removeTerm * (x ^ power) + this
+     */
+    @Override
+    public RationalNumber removeTerm(int power) {
+        this.invalidate();
+        RationalNumber answer;
+        int index = this.find(power);
+        if (index < 0 || this.coefficients[index] == null) {
+            answer = new RationalNumber(0);
+        } else {
+            answer = this.coefficients[index];
+            this.delete(index);
+        }
+        return answer;
+    }
+
+    /**
+     * Retrieves the term raised to {@code power} and reports its coefficient.
+     *
+     * @param power
+     *            the degree of the term to be found
+     *
+     * @return the coefficient
+     */
+    @Override
+    public RationalNumber getTerm(int power) {
+        RationalNumber answer;
+        int index = this.find(power);
+        if (index < 0 || this.coefficients[index] == null) {
+            answer = new RationalNumber(0);
+        } else {
+            answer = new RationalNumber(this.coefficients[index]);
+        }
+        return answer;
+    }
+
+    /**
+     * Reports the degree of this.
+     *
+     * @return the highest power in {@code this}.
+     * @ensures degree = [the exponent of the highest order term in this]
+     *
+     */
+    @Override
+    public final int degree() {
+        int answer = 0;
+        if (this.start < this.end) {
+            answer = this.powers[this.start];
+        }
+        return answer;
+    }
+
+    /**
+     * Read-only cursor walking the arrays from the highest term, skipping
+     * tombstones.
+     */
+    private final class Cursor implements TermCursor {
+
+        /**
+         * Index of the current term.
+         */
+        private int index = PolynomialSparse.this.start - 1;
+
+        @Override
+        public boolean next() {
+            do {
+                this.index++;
+            } while (this.index < PolynomialSparse.this.end
+                    && PolynomialSparse.this.coefficients[this.index] == null);
+            return this.index < PolynomialSparse.this.end;
+        }
+
+        @Override
+        public int power() {
+            return PolynomialSparse.this.powers[this.index];
+        }
+
+        @Override
+        public RationalNumber coefficient() {
+            return PolynomialSparse.this.coefficients[this.index];
+        }
+    }
+
+    /**
+     * Spliterator over an index range of the arrays, from the highest term
+     * down. Splits hand off the upper half of the range.
+     */
+    private static final class TermSpliterator implements Spliterator<Monomial> {
+
+        /**
+         * Smallest range that is still split.
+         */
+        private static final int MIN_SPLIT = 64;
+
+        /**
+         * The powers being traversed.
+         */
+        private final int[] powers;
+
+        /**
+         * The coefficients being traversed.
+         */
+        private final RationalNumber[] coefficients;
+
+        /**
+         * Index of the next term to be visited.
+         */
+        private int index;
+
+        /**
+         * One past the last index of the range.
+         */
+        private final int fence;
+
+        private TermSpliterator(int[] powers, RationalNumber[] coefficients, int index,
+                int fence) {
+            this.powers = powers;
+            this.coefficients = coefficients;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Monomial> action) {
+            while (this.index < this.fence) {
+                int i = this.index++;
+                if (this.coefficients[i] != null) {
+                    action.accept(new Monomial(this.powers[i], this.coefficients[i]));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<Monomial> trySplit() {
+            Spliterator<Monomial> prefix = null;
+            if (this.fence - this.index >= MIN_SPLIT) {
+                int mid = (this.index + this.fence) >>> 1;
+                prefix = new TermSpliterator(this.powers, this.coefficients, this.index, mid);
+                this.index = mid;
+            }
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.fence - this.index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /**
+     * Creates a read-only cursor over the nonzero terms of this, from the
+     * highest power down.
+     *
+     * @return a cursor positioned before the highest term of this
+     */
+    @Override
+    public TermCursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Calls {@code visitor} on every nonzero term of this, from the highest
+     * power down, without modifying this.
+     *
+     * @param visitor
+     *            the callback for each term
+     */
+    @Override
+    public void forEachTerm(TermVisitor visitor) {
+        for (int i = this.start; i < this.end; i++) {
+            if (this.coefficients[i] != null) {
+                visitor.visit(this.powers[i], this.coefficients[i]);
+            }
+        }
+    }
+
+    /**
+     * Creates a read-only, splittable traversal over the nonzero terms of this,
+     * from the highest power down.
+     *
+     * @return a spliterator over the terms of this
+     */
+    @Override
+    public Spliterator<Monomial> spliterator() {
+        return new TermSpliterator(this.powers, this.coefficients, this.start, this.end);
+    }
+
+    /**
+     * Resets this to it's default value upon initializiation.
+     *
+     *
+     * @ensures this = 0
+     *
+     */
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    /**
+     * returns a duplicate of p. Convenience method.
+     *
+     * @param p
+     *            the polynomial to be duplicated
+     *
+     * @ensures dupe = p
+     *
+     * @return a perfect copy of p
+     */
+    @Override
+    public Polynomial dupe() {
+        PolynomialSparse copy = (PolynomialSparse) this.newInstance();
+        int size = this.size();
+        copy.powers = new int[Math.max(size, INITIAL_CAPACITY)];
+        copy.coefficients = new RationalNumber[copy.powers.length];
+        int j = 0;
+        for (int i = this.start; i < this.end; i++) {
+            if (this.coefficients[i] != null) {
+                copy.powers[j] = this.powers[i];
+                copy.coefficients[j] = new RationalNumber(this.coefficients[i]);
+                j++;
+            }
+        }
+        copy.end = j;
+        return copy;
+    }
+
+    /**
+     * Creates and returns a new polynomial instance of this.
+     *
+     * @return a polynomial of the same type as this initialized to default value
+     */
+    @Override
+    public final Polynomial newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    /**
+     * Replaces the polynomial represented by this with the polynomial in {@code source}
+     *
+     * @ensures this = #source and source = 0
+     */
+    @Override
+    public final void transferFrom(Polynomial source) {
+        if (source instanceof PolynomialSparse) {                               //steal the arrays
+            PolynomialSparse localSource = (PolynomialSparse) source;
+            this.invalidate();
+            this.powers = localSource.powers;
+            this.coefficients = localSource.coefficients;
+            this.start = localSource.start;
+            this.end = localSource.end;
+            this.dead = localSource.dead;
+            localSource.createNewRep();
+        } else {
+            int deg;
+            this.createNewRep();
+            while (source.degree() != 0) {
+                deg = source.degree();
+                this.addTerm(source.removeTerm(deg), deg);
+            }
+            this.addTerm(source.removeTerm(0), 0);
+        }
+    }
+
+    /**
+     * No-argument constructor.
+     */
+    public PolynomialSparse() {
+        this.createNewRep();
+
+    }
+
+    /**
+     * Initialize an instance of polynomial with the given coefficients {@coeff}
+     */
+    public PolynomialSparse(RationalNumber... coeff) {
+        this.createNewRep();
+        int degree = coeff.length - 1;
+        for (RationalNumber constant : coeff) {
+            this.addTerm(constant, degree--);
+        }
+    }
+
+    /**
+     * Initialize an instance of polynomial with the given coefficients {@coeff}
+     */
+    public PolynomialSparse(int... coeff) {
+        this.createNewRep();
+        int degree = coeff.length - 1;
+        for (int constant : coeff) {
+            this.addTerm(new RationalNumber(constant), degree--);
+        }
+    }
+}
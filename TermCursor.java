@@ -0,0 +1,43 @@
+import RationalNumber.RationalNumber;
+
+/**
+ * Read-only cursor over the nonzero terms of a polynomial
+ *
+ * @author Kasper
+ *
+ * Visits terms from the highest power down. A fresh cursor is positioned
+ * before the first term, so {@code next} must be called before {@code power}
+ * or {@code coefficient}. The polynomial must not be modified while a cursor
+ * over it is in use.
+ *
+ */
+public interface TermCursor {
+
+    /**
+     * Advances to the next lower nonzero term.
+     *
+     * @return true iff there was such a term
+     *
+     * @updates this
+     */
+    boolean next();
+
+    /**
+     * Reports the degree of the current term.
+     *
+     * @return the power of the current term
+     *
+     * @requires the last call to next returned true
+     */
+    int power();
+
+    /**
+     * Reports the coefficient of the current term. The returned object is the
+     * coefficient held by the polynomial, so it must not be modified.
+     *
+     * @return the coefficient of the current term
+     *
+     * @requires the last call to next returned true
+     */
+    RationalNumber coefficient();
+}
@@ -0,0 +1,21 @@
+import RationalNumber.RationalNumber;
+
+/**
+ * Callback for the nonzero terms of a polynomial, in descending order of power
+ *
+ * @author Kasper
+ *
+ */
+public interface TermVisitor {
+
+    /**
+     * Visits one term. {@code coefficient} is the coefficient held by the
+     * polynomial, so it must not be modified.
+     *
+     * @param power
+     *            the degree of the term
+     * @param coefficient
+     *            the coefficient of the term
+     */
+    void visit(int power, RationalNumber coefficient);
+}
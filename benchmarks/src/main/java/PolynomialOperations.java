@@ -0,0 +1,116 @@
+import RationalNumber.RationalNumber;
+import benchmarks.Operations;
+
+/**
+ * Implementation of the benchmark operations in the unnamed package
+ *
+ * @author Kasper
+ *
+ * Mutable kernels are copied before every updating operation; immutable
+ * values use their persistent counterparts.
+ *
+ */
+public final class PolynomialOperations implements Operations {
+
+    /**
+     * Creates the empty polynomial of the named kernel.
+     */
+    private static Polynomial create(String kernel) {
+        switch (kernel) {
+            case "Linked":
+                return new PolynomialLinked();
+            case "Dense":
+                return new PolynomialDense();
+            case "Sparse":
+                return new PolynomialSparse();
+            case "Primitive":
+                return new PolynomialPrimitive();
+            case "ModP":
+                return new PolynomialModP();
+            case "Immutable":
+                return new PolynomialSparse();
+            default:
+                throw new IllegalArgumentException("Unknown kernel: " + kernel);
+        }
+    }
+
+    @Override
+    public Object fill(String kernel, int[] powers, RationalNumber[] coefficients) {
+        Polynomial answer = create(kernel);
+        for (int i = 0; i < powers.length; i++) {
+            answer.addTerm(coefficients[i], powers[i]);
+        }
+        if (kernel.equals("Immutable")) {
+            answer = ImmutablePolynomial.of(answer);
+        }
+        return answer;
+    }
+
+    @Override
+    public Object copy(Object p) {
+        return ((Polynomial) p).dupe();
+    }
+
+    @Override
+    public Object add(Object p, Object q) {
+        if (p instanceof ImmutablePolynomial) {
+            return ((ImmutablePolynomial) p).plus((Polynomial) q);
+        }
+        Polynomial answer = ((Polynomial) p).dupe();
+        answer.add(((Polynomial) q).dupe());
+        return answer;
+    }
+
+    @Override
+    public Object multiply(Object p, Object q) {
+        if (p instanceof ImmutablePolynomial) {
+            return ((ImmutablePolynomial) p).times((Polynomial) q);
+        }
+        Polynomial answer = ((Polynomial) p).dupe();
+        answer.multiply((Polynomial) q);
+        return answer;
+    }
+
+    @Override
+    public Object divide(Object p, Object q) {
+        if (p instanceof ImmutablePolynomial) {
+            return ((ImmutablePolynomial) p).remainder((Polynomial) q);
+        }
+        return ((Polynomial) p).dupe().divide((Polynomial) q);
+    }
+
+    @Override
+    public Object power(Object p, int exponent) {
+        return ((Polynomial) p).power(exponent);
+    }
+
+    @Override
+    public RationalNumber evaluateAt(Object p, RationalNumber x) {
+        return ((Polynomial) p).evaluateAt(x);
+    }
+
+    @Override
+    public Object derivative(Object p) {
+        if (p instanceof ImmutablePolynomial) {
+            return ((ImmutablePolynomial) p).derivative();
+        }
+        Polynomial answer = ((Polynomial) p).dupe();
+        answer.takeDerivative();
+        return answer;
+    }
+
+    @Override
+    public Object integral(Object p) {
+        if (p instanceof ImmutablePolynomial) {
+            return ((ImmutablePolynomial) p).integral();
+        }
+        Polynomial answer = ((Polynomial) p).dupe();
+        answer.takeIntegral();
+        return answer;
+    }
+
+    @Override
+    public String toString(Object p) {
+        return p.toString();
+    }
+}
@@ -0,0 +1,305 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files
+ *
+ * @author Kasper
+ *
+ * Benchmarks are matched by name and parameters. For each match the score
+ * ratio current / baseline is printed together with the allocation ratio
+ * when both runs used the allocation profiler; a benchmark whose score got
+ * worse by more than the threshold is marked as a regression. Scores are
+ * read in the direction of their mode, so a throughput that drops counts
+ * as a regression just as a time per operation that grows does.
+ *
+ * Usage: BaselineDiff BASELINE CURRENT [THRESHOLD]. The exit status is 1
+ * when a regression is reported.
+ *
+ */
+public final class BaselineDiff {
+
+    /**
+     * The allowed slowdown before a benchmark is reported as a regression.
+     */
+    static final double DEFAULT_THRESHOLD = 0.10;
+
+    /**
+     * The suffix of the allocation profiler's bytes-per-operation metric.
+     */
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    /**
+     * No instances.
+     */
+    private BaselineDiff() {
+    }
+
+    /**
+     * One benchmark result.
+     */
+    private static final class Result {
+        final String mode;
+        final double score;
+        final String unit;
+        final double allocation;
+
+        Result(String mode, double score, String unit, double allocation) {
+            this.mode = mode;
+            this.score = score;
+            this.unit = unit;
+            this.allocation = allocation;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineDiff BASELINE CURRENT [THRESHOLD]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        if (compare(args[0], args[1], threshold, System.out) > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prints the comparison of two result files.
+     *
+     * @param baseline
+     *            the path of the baseline results
+     * @param current
+     *            the path of the current results
+     * @param threshold
+     *            the allowed slowdown, as a fraction
+     * @param out
+     *            where the report is printed
+     *
+     * @return the number of regressions
+     */
+    static int compare(String baseline, String current, double threshold, PrintStream out)
+            throws IOException {
+        Map<String, Result> before = read(baseline);
+        Map<String, Result> after = read(current);
+        int regressions = 0;
+        out.printf("%14s %14s %8s %8s  %-8s %s%n", "Baseline", "Current", "Ratio", "Alloc",
+                "Unit", "Benchmark");
+        for (Map.Entry<String, Result> entry : after.entrySet()) {
+            Result now = entry.getValue();
+            Result then = before.get(entry.getKey());
+            if (then == null) {
+                out.printf("%14s %14.3f %8s %8s  %-8s %s  NEW%n", "-", now.score, "-", "-",
+                        now.unit, entry.getKey());
+                continue;
+            }
+            double ratio = now.score / then.score;
+            boolean higherIsBetter = now.mode.equals("thrpt");
+            double slowdown = higherIsBetter ? 1 / ratio - 1 : ratio - 1;
+            String allocation = Double.isNaN(now.allocation) || Double.isNaN(then.allocation)
+                    || then.allocation == 0 ? "-"
+                            : String.format("%.2f", now.allocation / then.allocation);
+            boolean regressed = slowdown > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            out.printf("%14.3f %14.3f %8.2f %8s  %-8s %s%s%n", then.score, now.score, ratio,
+                    allocation, now.unit, entry.getKey(), regressed ? "  REGRESSION" : "");
+        }
+        for (String key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                out.printf("%14s %14s %8s %8s  %-8s %s  REMOVED%n", "-", "-", "-", "-", "", key);
+            }
+        }
+        out.printf("%d regression(s) above %.0f%%%n", regressions, threshold * 100);
+        return regressions;
+    }
+
+    /**
+     * Reads a JMH JSON result file, keyed by benchmark and parameters.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Result> read(String path) throws IOException {
+        String text = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+        Map<String, Result> answer = new TreeMap<>();
+        for (Object element : (List<Object>) new Parser(text).value()) {
+            Map<String, Object> run = (Map<String, Object>) element;
+            StringBuilder key = new StringBuilder((String) run.get("benchmark"));
+            Object params = run.get("params");
+            if (params != null) {
+                key.append(new TreeMap<>((Map<String, Object>) params));
+            }
+            Map<String, Object> primary = (Map<String, Object>) run.get("primaryMetric");
+            double allocation = Double.NaN;
+            Object secondary = run.get("secondaryMetrics");
+            if (secondary != null) {
+                for (Map.Entry<String, Object> metric : ((Map<String, Object>) secondary)
+                        .entrySet()) {
+                    if (metric.getKey().endsWith(ALLOCATION)) {
+                        allocation = score(((Map<String, Object>) metric.getValue())
+                                .get("score"));
+                    }
+                }
+            }
+            answer.put(key.toString(), new Result((String) run.get("mode"),
+                    score(primary.get("score")),
+                    (String) primary.get("scoreUnit"), allocation));
+        }
+        return answer;
+    }
+
+    /**
+     * Reads a score, which JMH writes as the string "NaN" when undefined.
+     */
+    private static double score(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+    }
+
+    /**
+     * A minimal JSON reader, enough for the files JMH writes.
+     */
+    private static final class Parser {
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+            this.position = 0;
+        }
+
+        Object value() {
+            this.skipWhitespace();
+            char c = this.text.charAt(this.position);
+            switch (c) {
+                case '{':
+                    return this.object();
+                case '[':
+                    return this.array();
+                case '"':
+                    return this.string();
+                case 't':
+                    return this.literal("true", Boolean.TRUE);
+                case 'f':
+                    return this.literal("false", Boolean.FALSE);
+                case 'n':
+                    return this.literal("null", null);
+                default:
+                    return this.number();
+            }
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> answer = new LinkedHashMap<>();
+            this.expect('{');
+            this.skipWhitespace();
+            if (this.text.charAt(this.position) == '}') {
+                this.position++;
+                return answer;
+            }
+            do {
+                this.skipWhitespace();
+                String key = this.string();
+                this.skipWhitespace();
+                this.expect(':');
+                answer.put(key, this.value());
+                this.skipWhitespace();
+            } while (this.text.charAt(this.position++) == ',');
+            return answer;
+        }
+
+        private List<Object> array() {
+            List<Object> answer = new ArrayList<>();
+            this.expect('[');
+            this.skipWhitespace();
+            if (this.text.charAt(this.position) == ']') {
+                this.position++;
+                return answer;
+            }
+            do {
+                answer.add(this.value());
+                this.skipWhitespace();
+            } while (this.text.charAt(this.position++) == ',');
+            return answer;
+        }
+
+        private String string() {
+            this.expect('"');
+            StringBuilder answer = new StringBuilder();
+            char c;
+            while ((c = this.text.charAt(this.position++)) != '"') {
+                if (c == '\\') {
+                    c = this.text.charAt(this.position++);
+                    switch (c) {
+                        case 'n':
+                            c = '\n';
+                            break;
+                        case 't':
+                            c = '\t';
+                            break;
+                        case 'r':
+                            c = '\r';
+                            break;
+                        case 'b':
+                            c = '\b';
+                            break;
+                        case 'f':
+                            c = '\f';
+                            break;
+                        case 'u':
+                            c = (char) Integer.parseInt(
+                                    this.text.substring(this.position, this.position + 4), 16);
+                            this.position += 4;
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                answer.append(c);
+            }
+            return answer.toString();
+        }
+
+        private Object number() {
+            int start = this.position;
+            while (this.position < this.text.length()
+                    && "+-0123456789.eE".indexOf(this.text.charAt(this.position)) >= 0) {
+                this.position++;
+            }
+            if (start == this.position) {
+                throw new IllegalArgumentException("Unexpected character at " + start);
+            }
+            return Double.parseDouble(this.text.substring(start, this.position));
+        }
+
+        private Object literal(String word, Object value) {
+            if (!this.text.startsWith(word, this.position)) {
+                throw new IllegalArgumentException("Unexpected token at " + this.position);
+            }
+            this.position += word.length();
+            return value;
+        }
+
+        private void expect(char c) {
+            if (this.text.charAt(this.position) != c) {
+                throw new IllegalArgumentException("Expected '" + c + "' at " + this.position);
+            }
+            this.position++;
+        }
+
+        private void skipWhitespace() {
+            while (this.position < this.text.length()
+                    && Character.isWhitespace(this.text.charAt(this.position))) {
+                this.position++;
+            }
+        }
+    }
+}
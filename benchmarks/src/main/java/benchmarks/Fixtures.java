@@ -0,0 +1,97 @@
+package benchmarks;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import RationalNumber.ImmutableRationalNumber;
+import RationalNumber.RationalNumber;
+
+/**
+ * Seeded inputs shared by the benchmarks
+ *
+ * @author Kasper
+ *
+ * Coefficients have a numerator of the requested bit size and a denominator
+ * of half that size, which keeps the fractions honest without letting the
+ * denominators dominate. Coefficients are immutable so that a fill cannot
+ * alter the template it reads from.
+ *
+ */
+final class Fixtures {
+
+    /**
+     * No instances.
+     */
+    private Fixtures() {
+    }
+
+    /**
+     * Chooses the powers of a polynomial of the given degree, in descending
+     * order. The leading power is always present; every other power is
+     * present with probability density.
+     *
+     * @param degree
+     *            the degree
+     * @param density
+     *            the fraction of powers present, in (0, 1]
+     * @param random
+     *            the source of randomness
+     *
+     * @return the chosen powers, descending
+     */
+    static int[] powers(int degree, double density, Random random) {
+        int[] answer = new int[degree + 1];
+        int size = 0;
+        answer[size++] = degree;
+        for (int power = degree - 1; power >= 0; power--) {
+            if (density >= 1.0 || random.nextDouble() < density) {
+                answer[size++] = power;
+            }
+        }
+        int[] trimmed = new int[size];
+        System.arraycopy(answer, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    /**
+     * Draws a non-zero coefficient.
+     *
+     * @param bits
+     *            the bit size of the numerator
+     * @param random
+     *            the source of randomness
+     *
+     * @return the coefficient
+     */
+    static RationalNumber coefficient(int bits, Random random) {
+        BigInteger numerator;
+        do {
+            numerator = new BigInteger(bits, random);
+        } while (numerator.signum() == 0);
+        if (random.nextBoolean()) {
+            numerator = numerator.negate();
+        }
+        BigInteger denominator = new BigInteger(Math.max(1, bits / 2), random).add(BigInteger.ONE);
+        return ImmutableRationalNumber.valueOf(numerator, denominator);
+    }
+
+    /**
+     * Draws count non-zero coefficients.
+     *
+     * @param count
+     *            the number of coefficients
+     * @param bits
+     *            the bit size of the numerators
+     * @param random
+     *            the source of randomness
+     *
+     * @return the coefficients
+     */
+    static RationalNumber[] coefficients(int count, int bits, Random random) {
+        RationalNumber[] answer = new RationalNumber[count];
+        for (int i = 0; i < count; i++) {
+            answer[i] = coefficient(bits, random);
+        }
+        return answer;
+    }
+}
@@ -0,0 +1,98 @@
+package benchmarks;
+
+import RationalNumber.RationalNumber;
+
+/**
+ * Polynomial operations as seen by the benchmarks
+ *
+ * @author Kasper
+ *
+ * The polynomial classes live in the unnamed package, which classes in a
+ * named package cannot refer to, and JMH only accepts benchmarks in a named
+ * package. The benchmarks therefore hold polynomials as Objects and reach
+ * them through this interface, implemented in the unnamed package by
+ * {@code PolynomialOperations}. Every call site has a single receiver class,
+ * so the calls are inlined by the JIT.
+ *
+ * Kernels are named Linked, Dense, Sparse, Primitive, ModP and Immutable.
+ * Operations that update or clear their operands work on copies, so a
+ * fixture can be reused across invocations; {@code copy} measures that cost
+ * on its own.
+ *
+ */
+public interface Operations {
+
+    /**
+     * Loads the implementation from the unnamed package.
+     *
+     * @return the operations on polynomials
+     */
+    static Operations load() {
+        try {
+            return (Operations) Class.forName("PolynomialOperations").getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError("Cannot load PolynomialOperations", e);
+        }
+    }
+
+    /**
+     * Builds a polynomial of the given kernel by adding the terms one at a
+     * time, in the given order.
+     *
+     * @param kernel
+     *            the name of the kernel
+     * @param powers
+     *            the powers of the terms
+     * @param coefficients
+     *            the coefficients parallel to powers
+     *
+     * @return the polynomial
+     */
+    Object fill(String kernel, int[] powers, RationalNumber[] coefficients);
+
+    /**
+     * @return a copy of p
+     */
+    Object copy(Object p);
+
+    /**
+     * @return p + q
+     */
+    Object add(Object p, Object q);
+
+    /**
+     * @return p * q
+     */
+    Object multiply(Object p, Object q);
+
+    /**
+     * @return the remainder of p / q
+     */
+    Object divide(Object p, Object q);
+
+    /**
+     * @return p ^ exponent
+     */
+    Object power(Object p, int exponent);
+
+    /**
+     * @return p(x)
+     */
+    RationalNumber evaluateAt(Object p, RationalNumber x);
+
+    /**
+     * @return d/dx(p)
+     */
+    Object derivative(Object p);
+
+    /**
+     * @return the indefinite integral of p
+     */
+    Object integral(Object p);
+
+    /**
+     * @return the string representation of p
+     */
+    String toString(Object p);
+}
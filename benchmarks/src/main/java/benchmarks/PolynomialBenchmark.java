@@ -0,0 +1,132 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import RationalNumber.RationalNumber;
+
+/**
+ * Benchmarks of every Polynomial operation on every kernel
+ *
+ * @author Kasper
+ *
+ * The operands are seeded, so two runs measure the same polynomials: p has
+ * the given degree, density and coefficient size, and q, the second operand
+ * of add, multiply and divide, has half the degree. The full matrix is
+ * large; narrow it on the command line, e.g. -p kernel=Dense,Sparse -p
+ * degree=1000.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PolynomialBenchmark {
+
+    @Param({ "Linked", "Dense", "Sparse", "Primitive", "ModP", "Immutable" })
+    String kernel;
+
+    @Param({ "10", "100", "1000", "10000", "100000" })
+    int degree;
+
+    @Param({ "1.0", "0.01" })
+    double density;
+
+    @Param({ "16", "256" })
+    int bits;
+
+    /**
+     * The exponent used by the power benchmark.
+     */
+    static final int EXPONENT = 3;
+
+    private Operations operations;
+
+    private int[] powers;
+
+    private RationalNumber[] coefficients;
+
+    private Object p;
+
+    private Object q;
+
+    private RationalNumber x;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(degree * 31L + bits);
+        this.operations = Operations.load();
+        this.powers = Fixtures.powers(this.degree, this.density, random);
+        this.coefficients = Fixtures.coefficients(this.powers.length, this.bits, random);
+        this.p = this.operations.fill(this.kernel, this.powers, this.coefficients);
+        int[] divisorPowers = Fixtures.powers(Math.max(1, this.degree / 2), this.density, random);
+        this.q = this.operations.fill(this.kernel, divisorPowers,
+                Fixtures.coefficients(divisorPowers.length, this.bits, random));
+        this.x = new RationalNumber(3, 7);
+    }
+
+    @Benchmark
+    public Object addTerm() {
+        return this.operations.fill(this.kernel, this.powers, this.coefficients);
+    }
+
+    @Benchmark
+    public Object copy() {
+        return this.operations.copy(this.p);
+    }
+
+    @Benchmark
+    public Object add() {
+        return this.operations.add(this.p, this.q);
+    }
+
+    @Benchmark
+    public Object multiply() {
+        return this.operations.multiply(this.p, this.q);
+    }
+
+    @Benchmark
+    public Object divide() {
+        return this.operations.divide(this.p, this.q);
+    }
+
+    @Benchmark
+    public Object power() {
+        return this.operations.power(this.p, EXPONENT);
+    }
+
+    @Benchmark
+    public RationalNumber evaluateAt() {
+        return this.operations.evaluateAt(this.p, this.x);
+    }
+
+    @Benchmark
+    public Object takeDerivative() {
+        return this.operations.derivative(this.p);
+    }
+
+    @Benchmark
+    public Object takeIntegral() {
+        return this.operations.integral(this.p);
+    }
+
+    @Benchmark
+    public String toStringBenchmark() {
+        return this.operations.toString(this.p);
+    }
+}
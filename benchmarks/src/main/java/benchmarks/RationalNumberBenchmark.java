@@ -0,0 +1,137 @@
+package benchmarks;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import RationalNumber.ImmutableRationalNumber;
+import RationalNumber.RationalNumber;
+
+/**
+ * Benchmarks of the RationalNumber primitives
+ *
+ * @author Kasper
+ *
+ * The updating operations work on a fresh copy of a, which costs a field
+ * copy and no arithmetic.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RationalNumberBenchmark {
+
+    @Param({ "16", "64", "256", "1024" })
+    int bits;
+
+    private RationalNumber a;
+
+    private RationalNumber b;
+
+    private ImmutableRationalNumber frozen;
+
+    private BigInteger numerator;
+
+    private BigInteger denominator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(this.bits);
+        this.a = new RationalNumber(Fixtures.coefficient(this.bits, random));
+        this.b = new RationalNumber(Fixtures.coefficient(this.bits, random));
+        this.frozen = ImmutableRationalNumber.valueOf(this.a);
+        this.numerator = new BigInteger(this.bits, random).add(BigInteger.ONE);
+        this.denominator = new BigInteger(this.bits, random).add(BigInteger.ONE);
+    }
+
+    @Benchmark
+    public RationalNumber construct() {
+        return new RationalNumber(this.numerator, this.denominator);
+    }
+
+    @Benchmark
+    public RationalNumber valueOf() {
+        return ImmutableRationalNumber.valueOf(this.numerator, this.denominator);
+    }
+
+    @Benchmark
+    public RationalNumber add() {
+        RationalNumber answer = new RationalNumber(this.a);
+        answer.add(this.b);
+        return answer;
+    }
+
+    @Benchmark
+    public RationalNumber subtract() {
+        RationalNumber answer = new RationalNumber(this.a);
+        answer.subtract(this.b);
+        return answer;
+    }
+
+    @Benchmark
+    public RationalNumber multiply() {
+        RationalNumber answer = new RationalNumber(this.a);
+        answer.multiply(this.b);
+        return answer;
+    }
+
+    @Benchmark
+    public RationalNumber divide() {
+        RationalNumber answer = new RationalNumber(this.a);
+        answer.divide(this.b);
+        return answer;
+    }
+
+    @Benchmark
+    public RationalNumber negate() {
+        RationalNumber answer = new RationalNumber(this.a);
+        answer.negate();
+        return answer;
+    }
+
+    @Benchmark
+    public RationalNumber power() {
+        return this.a.power(PolynomialBenchmark.EXPONENT);
+    }
+
+    @Benchmark
+    public RationalNumber plus() {
+        return this.frozen.plus(this.b);
+    }
+
+    @Benchmark
+    public int compareTo() {
+        return this.a.compareTo(this.b);
+    }
+
+    @Benchmark
+    public boolean equalsBenchmark() {
+        return this.a.equals(this.b);
+    }
+
+    @Benchmark
+    public long fingerprint() {
+        return this.a.fingerprint();
+    }
+
+    @Benchmark
+    public String toStringBenchmark() {
+        return this.a.toString();
+    }
+}
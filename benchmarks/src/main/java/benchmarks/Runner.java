@@ -0,0 +1,75 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar
+ *
+ * @author Kasper
+ *
+ * Runs JMH with the allocation profiler attached and the results written as
+ * JSON, then optionally compares them with a baseline from an earlier
+ * release. All JMH command-line options are accepted; in addition,
+ * --baseline FILE names the baseline and --threshold FRACTION the allowed
+ * slowdown before a benchmark is reported as a regression (default 0.10).
+ * The exit status is 1 when a regression is reported.
+ *
+ */
+public final class Runner {
+
+    /**
+     * The results file used when -rff is not given.
+     */
+    static final String RESULTS = "jmh-result.json";
+
+    /**
+     * No instances.
+     */
+    private Runner() {
+    }
+
+    public static void main(String[] args)
+            throws CommandLineOptionException, RunnerException, IOException {
+        String baseline = null;
+        double threshold = BaselineDiff.DEFAULT_THRESHOLD;
+        List<String> jmhArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--baseline") && i + 1 < args.length) {
+                baseline = args[++i];
+            } else if (args[i].equals("--threshold") && i + 1 < args.length) {
+                threshold = Double.parseDouble(args[++i]);
+            } else {
+                jmhArgs.add(args[i]);
+            }
+        }
+
+        CommandLineOptions commandLine = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+        if (commandLine.shouldHelp() || commandLine.shouldList()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+            return;
+        }
+        String results = commandLine.getResult().orElse(RESULTS);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine)
+                .resultFormat(ResultFormatType.JSON).result(results);
+        if (commandLine.getProfilers().stream()
+                .noneMatch(p -> p.getKlass().equals("gc") || p.getKlass().endsWith("GCProfiler"))) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new org.openjdk.jmh.runner.Runner(options.build()).run();
+
+        if (baseline != null && BaselineDiff.compare(baseline, results, threshold, System.out) > 0) {
+            System.exit(1);
+        }
+    }
+}
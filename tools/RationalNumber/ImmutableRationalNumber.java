@@ -0,0 +1,346 @@
+package RationalNumber;
+import java.math.BigInteger;
+
+
+
+
+/**
+ *
+ * @author Kasper Lau (Kaspiper)
+ *
+ *
+ * Immutable RationalNumber, always in lowest terms with a positive
+ * denominator. The mutators of RationalNumber throw
+ * UnsupportedOperationException; plus, minus, times, dividedBy and negated
+ * return new values instead, so an instance can be shared between threads and
+ * stored by any number of polynomials. Use it wherever a RationalNumber is
+ * expected; {@code new RationalNumber(value)} gives a mutable copy.
+ *
+ * Instances are made by the valueOf factories. The integers -128..127 and
+ * +-1/2 are interned, and BigInteger numerators and denominators are shared
+ * rather than copied.
+ *
+ */
+
+
+
+
+public final class ImmutableRationalNumber extends RationalNumber{
+
+    /**
+     * Smallest interned integer.
+     */
+    private static final int CACHE_LOW = -128;
+
+    /**
+     * Largest interned integer.
+     */
+    private static final int CACHE_HIGH = 127;
+
+    /**
+     * Interned integers CACHE_LOW..CACHE_HIGH.
+     */
+    private static final ImmutableRationalNumber[] INTEGERS =
+            new ImmutableRationalNumber[CACHE_HIGH - CACHE_LOW + 1];
+
+    /**
+     * Interned 1/2.
+     */
+    private static final ImmutableRationalNumber HALF = new ImmutableRationalNumber(new RationalNumber(1, 2));
+
+    /**
+     * Interned -1/2.
+     */
+    private static final ImmutableRationalNumber MINUS_HALF = new ImmutableRationalNumber(new RationalNumber(-1, 2));
+
+    static {
+        for (int i = CACHE_LOW; i <= CACHE_HIGH; i++) {
+            INTEGERS[i - CACHE_LOW] = new ImmutableRationalNumber(i);
+        }
+    }
+
+    /**
+     * Cached fingerprint, or 0 if not yet computed.
+     */
+    private volatile long fingerprint;
+
+
+    /**
+     * Constructor for the integer {@code a}. Does not touch any static state,
+     * so that RationalNumber.ZERO and ONE can be built with it.
+     */
+    ImmutableRationalNumber(int a){
+        super(a);
+    }
+
+    /**
+     * Constructor sharing the representation of {@code a}, reduced.
+     */
+    private ImmutableRationalNumber(RationalNumber a){
+        super(a);
+        super.reduce();
+    }
+
+    /**
+     * Reports the interned value equal to the reduced {@code a}, or a new
+     * value sharing its representation.
+     */
+    private static ImmutableRationalNumber intern(RationalNumber a){
+        if (a.isSmall()) {
+            long n = a.smallNumerator();
+            long d = a.smallDenominator();
+            if (d == 1 && n >= CACHE_LOW && n <= CACHE_HIGH) {
+                return INTEGERS[(int) n - CACHE_LOW];
+            }
+            if (d == 2 && (n == 1 || n == -1)) {
+                return (n == 1) ? HALF : MINUS_HALF;
+            }
+        }
+        return new ImmutableRationalNumber(a);
+    }
+
+
+    /*
+     * Factories ----------------------------------------------------------------
+     */
+
+    /**
+     *  Static method used to get the immutable value of {@code a}.
+     *
+     * @return
+     *             an ImmutableRationalNumber equal to {@code a}
+     *
+     */
+    public static ImmutableRationalNumber valueOf(long a){
+        if (a >= CACHE_LOW && a <= CACHE_HIGH) {
+            return INTEGERS[(int) a - CACHE_LOW];
+        }
+        return new ImmutableRationalNumber(new RationalNumber(a, 1L));
+    }
+
+    /**
+     *  Static method used to get the immutable value of {@code a} / {@code b}.
+     *
+     * @return
+     *             an ImmutableRationalNumber equal to {@code a} / {@code b}
+     *
+     */
+    public static ImmutableRationalNumber valueOf(long a, long b){
+        return intern(new RationalNumber(a, b));
+    }
+
+    /**
+     *  Static method used to get the immutable value of {@code a}. The
+     *  BigInteger is shared, not copied.
+     *
+     * @return
+     *             an ImmutableRationalNumber equal to {@code a}
+     *
+     */
+    public static ImmutableRationalNumber valueOf(BigInteger a){
+        return intern(new RationalNumber(a));
+    }
+
+    /**
+     *  Static method used to get the immutable value of {@code a} / {@code b}.
+     *  BigIntegers already in lowest terms are shared, not copied.
+     *
+     * @return
+     *             an ImmutableRationalNumber equal to {@code a} / {@code b}
+     *
+     */
+    public static ImmutableRationalNumber valueOf(BigInteger a, BigInteger b){
+        return intern(new RationalNumber(a, b));
+    }
+
+    /**
+     *  Static method used to get the immutable value of {@code a}: {@code a}
+     *  itself if it is immutable, otherwise a value sharing its
+     *  representation.
+     *
+     * @return
+     *             an ImmutableRationalNumber equal to {@code a}
+     *
+     */
+    public static ImmutableRationalNumber valueOf(RationalNumber a){
+        if (a instanceof ImmutableRationalNumber) {
+            return (ImmutableRationalNumber) a;
+        }
+        RationalNumber reduced = new RationalNumber(a);
+        reduced.reduce();
+        return intern(reduced);
+    }
+
+
+    /*
+     * Operations ---------------------------------------------------------------
+     */
+
+    /**
+     *  Instance method used to add {@code b} to this
+     *
+     * @return
+     *             this + {@code b}
+     *
+     */
+    public ImmutableRationalNumber plus(RationalNumber b){
+        RationalNumber answer = new RationalNumber(this);
+        answer.add(b);
+        return intern(answer);
+    }
+
+    /**
+     *  Instance method used to subtract {@code b} from this
+     *
+     * @return
+     *             this - {@code b}
+     *
+     */
+    public ImmutableRationalNumber minus(RationalNumber b){
+        RationalNumber answer = new RationalNumber(this);
+        answer.subtract(b);
+        return intern(answer);
+    }
+
+    /**
+     *  Instance method used to multiply this by {@code b}
+     *
+     * @return
+     *             this * {@code b}
+     *
+     */
+    public ImmutableRationalNumber times(RationalNumber b){
+        RationalNumber answer = new RationalNumber(this);
+        answer.multiply(b);
+        return intern(answer);
+    }
+
+    /**
+     *  Instance method used to divide this by {@code b}
+     *
+     * @return
+     *             this / {@code b}
+     *
+     */
+    public ImmutableRationalNumber dividedBy(RationalNumber b){
+        RationalNumber answer = new RationalNumber(this);
+        answer.divide(b);
+        return intern(answer);
+    }
+
+    /**
+     *  Instance method used to negate this
+     *
+     * @return
+     *             -this
+     *
+     */
+    public ImmutableRationalNumber negated(){
+        RationalNumber answer = new RationalNumber(this);
+        answer.negate();
+        return intern(answer);
+    }
+
+    /**
+     *  Instance method used to raise this to the power of {@code exponent}.
+     *
+     * @return
+     *              this raised to the power of {@code exponent}, or 1 if
+     *              {@code exponent} is not positive
+     *
+     */
+    @Override
+    public ImmutableRationalNumber power(int exponent){
+        return intern(super.power(exponent));
+    }
+
+    /**
+     *  Instance method used to get a 64-bit hash of the value of this,
+     *  computed once.
+     *
+     * @return
+     *             the hash of this in lowest terms with a positive denominator
+     *
+     */
+    @Override
+    public long fingerprint(){
+        long answer = this.fingerprint;
+        if (answer == 0) {
+            answer = super.fingerprint();
+            this.fingerprint = answer;
+        }
+        return answer;
+    }
+
+     /**
+     * Returns this: an immutable value is its own copy.
+     *
+     * @returns this
+     */
+    @Override
+    public RationalNumber clone(){
+        return this;
+    }
+
+
+    /*
+     * Mutators -----------------------------------------------------------------
+     */
+
+    /**
+     * Rejects every attempt to modify this.
+     */
+    private static UnsupportedOperationException immutable(){
+        return new UnsupportedOperationException("ImmutableRationalNumber cannot be modified");
+    }
+
+    @Override
+    public void setNumerator(BigInteger a){
+        throw immutable();
+    }
+
+    @Override
+    public void setDenominator(BigInteger a){
+        throw immutable();
+    }
+
+    @Override
+    public void negate(){
+        throw immutable();
+    }
+
+    @Override
+    public void add(RationalNumber b){
+        throw immutable();
+    }
+
+    @Override
+    public void add(BigInteger b){
+        throw immutable();
+    }
+
+    @Override
+    public void subtract(RationalNumber b){
+        throw immutable();
+    }
+
+    @Override
+    public void subtract(BigInteger b){
+        throw immutable();
+    }
+
+    @Override
+    public void multiply(RationalNumber b){
+        throw immutable();
+    }
+
+    @Override
+    public void multiply(BigInteger b){
+        throw immutable();
+    }
+
+    @Override
+    public void divide(RationalNumber dividend){
+        throw immutable();
+    }
+}
@@ -13,6 +13,11 @@ import java.math.*;
  * bypassing any arithmetic with floating point and MAX_INT limitations. 
  * Built using java.math BigInteger class. Use for exact math. 
  *
+ * Values whose numerator and denominator fit in a long are held in two long
+ * fields and computed with overflow-checked machine arithmetic. An operation
+ * that overflows is redone with BigInteger, and BigInteger results that fit
+ * back into a long are demoted again.
+ *
  */
 
 
@@ -20,13 +25,29 @@ import java.math.*;
 
 public class RationalNumber implements Comparable<RationalNumber>{
 
-    public static final RationalNumber ZERO = new RationalNumber(0);
+    public static final RationalNumber ZERO = new ImmutableRationalNumber(0);
+
+    public static final RationalNumber ONE = new ImmutableRationalNumber(1);
 
-    public static final RationalNumber ONE = new RationalNumber(1);
 
+    /**
+     * Numerator of the small representation, meaningful iff NUMERATOR is null.
+     */
+    private long numerator;
+
+    /**
+     * Denominator of the small representation, meaningful iff NUMERATOR is null.
+     */
+    private long denominator;
 
+    /**
+     * Numerator of the large representation, or null while this is small.
+     */
     private BigInteger NUMERATOR;
      
+    /**
+     * Denominator of the large representation, or null while this is small.
+     */
     private BigInteger DENOMINATOR;
 
     /**
@@ -36,7 +57,7 @@ public class RationalNumber implements Comparable<RationalNumber>{
      * @return the numerator of this
      */
     public BigInteger getNumerator(){
-        return this.NUMERATOR;
+        return (this.NUMERATOR == null) ? BigInteger.valueOf(this.numerator) : this.NUMERATOR;
     }
 
 
@@ -47,7 +68,7 @@ public class RationalNumber implements Comparable<RationalNumber>{
      * @return the denominator of this
      */
     public BigInteger getDenominator(){
-        return this.DENOMINATOR;
+        return (this.NUMERATOR == null) ? BigInteger.valueOf(this.denominator) : this.DENOMINATOR;
     }
 
     /**
@@ -60,7 +81,7 @@ public class RationalNumber implements Comparable<RationalNumber>{
      *          the BigInteger for the new numerator
      */
     public void setNumerator(BigInteger a){
-        this.NUMERATOR = new BigInteger(a.toByteArray());
+        this.setRaw(a, this.getDenominator());
     }
 
 
@@ -74,30 +95,206 @@ public class RationalNumber implements Comparable<RationalNumber>{
      *          the BigInteger for the new denominator
      */
     public void setDenominator(BigInteger a){
-        this.DENOMINATOR = new BigInteger(a.toByteArray());
+        this.setRaw(this.getNumerator(), a);
     }
    
 
+    /*
+     * Representation helpers -------------------------------------------------
+     */
+
+    /**
+     * Reports whether {@code a} can be held in the small representation.
+     * Long.MIN_VALUE is excluded so that negation never overflows.
+     */
+    private static boolean fitsSmall(BigInteger a){
+        return a.bitLength() < 64 && a.longValue() != Long.MIN_VALUE;
+    }
+
+    /**
+     * Greatest common divisor of two non-negative longs.
+     */
+    private static long gcd(long a, long b){
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Absolute value of {@code a}, throwing ArithmeticException on overflow.
+     */
+    private static long absExact(long a){
+        if (a == Long.MIN_VALUE) {
+            throw new ArithmeticException("long overflow");
+        }
+        return Math.abs(a);
+    }
+
+    /**
+     * Reports whether this is held in the small representation.
+     */
+    boolean isSmall(){
+        return this.NUMERATOR == null;
+    }
+
     /**
-     * Private method that calculates the least common multiple of two Big Integers.
-     * Method utilizes the built in gcd() method from BigInteger
-     * Used to simplify the fraction representation in RationalNumber
+     * Numerator of the small representation.
      *
-     * @param a 
-     *          one of the two BigInteger to calculate the lcm
-     * @param b
-     *          one of the two BigInteger to calculate the lcm
-     * 
-     * 
+     * @requires isSmall()
+     */
+    long smallNumerator(){
+        return this.numerator;
+    }
+
+    /**
+     * Denominator of the small representation.
+     *
+     * @requires isSmall()
+     */
+    long smallDenominator(){
+        return this.denominator;
+    }
+
+    /**
+     * Brings this to lowest terms with a positive denominator, in place.
+     */
+    void reduce(){
+        if (this.NUMERATOR == null) {
+            this.setReduced(this.numerator, this.denominator);
+        } else {
+            this.setReduced(this.NUMERATOR, this.DENOMINATOR);
+        }
+    }
+
+    /**
+     * Stores {@code n} / {@code d} exactly as given, without reduction.
      */
-    private BigInteger lcm(BigInteger a, BigInteger b){
-        BigInteger answer = (a.multiply(b)).abs();
-        return answer.divide(a.gcd(b));
+    private void setRaw(BigInteger n, BigInteger d){
+        if (fitsSmall(n) && fitsSmall(d)) {
+            this.numerator = n.longValue();
+            this.denominator = d.longValue();
+            this.NUMERATOR = null;
+            this.DENOMINATOR = null;
+        } else {
+            this.NUMERATOR = n;
+            this.DENOMINATOR = d;
+        }
+    }
+
+    /**
+     * Stores {@code n} / {@code d} in lowest terms with a positive denominator,
+     * demoting to the small representation when it fits.
+     */
+    private void setReduced(BigInteger n, BigInteger d){
+        if (d.signum() == 0) {
+            throw new ArithmeticException("RationalNumber denominator is zero");
+        }
+        if (d.signum() < 0) {
+            n = n.negate();
+            d = d.negate();
+        }
+        BigInteger g = n.gcd(d);
+        if (!g.equals(BigInteger.ONE) && g.signum() != 0) {
+            n = n.divide(g);
+            d = d.divide(g);
+        }
+        this.setRaw(n, d);
+    }
+
+    /**
+     * Stores {@code n} / {@code d} in lowest terms with a positive denominator.
+     */
+    private void setReduced(long n, long d){
+        if (d == 0) {
+            throw new ArithmeticException("RationalNumber denominator is zero");
+        }
+        if (d == Long.MIN_VALUE || n == Long.MIN_VALUE) {
+            this.setReduced(BigInteger.valueOf(n), BigInteger.valueOf(d));
+            return;
+        }
+        if (d < 0) {
+            n = -n;
+            d = -d;
+        }
+        long g = gcd(Math.abs(n), d);
+        if (g > 1) {
+            n /= g;
+            d /= g;
+        }
+        this.numerator = n;
+        this.denominator = d;
+        this.NUMERATOR = null;
+        this.DENOMINATOR = null;
+    }
+
+    /**
+     * Sets this to #this + sign * {@code b} for sign = 1 or -1.
+     */
+    private void addSigned(RationalNumber b, int sign){
+        if (this.NUMERATOR == null && b.NUMERATOR == null
+                && this.denominator > 0 && b.denominator > 0) {
+            try {
+                long bn = (sign < 0) ? Math.negateExact(b.numerator) : b.numerator;
+                long d1 = this.denominator;
+                long d2 = b.denominator;
+                long g = gcd(d1, d2);
+                if (g == 1) {
+                    long n = Math.addExact(Math.multiplyExact(this.numerator, d2),
+                            Math.multiplyExact(bn, d1));
+                    this.setReduced(n, Math.multiplyExact(d1, d2));
+                } else {
+                    long t = Math.addExact(Math.multiplyExact(this.numerator, d2 / g),
+                            Math.multiplyExact(bn, d1 / g));
+                    long g2 = gcd(absExact(t), g);
+                    this.setReduced(t / g2, Math.multiplyExact(d1 / g, d2 / g2));
+                }
+                return;
+            } catch (ArithmeticException overflow) {
+                // fall through to the BigInteger path
+            }
+        }
+        BigInteger d1 = this.getDenominator();
+        BigInteger d2 = b.getDenominator();
+        BigInteger bn = (sign < 0) ? b.getNumerator().negate() : b.getNumerator();
+        this.setReduced(this.getNumerator().multiply(d2).add(bn.multiply(d1)), d1.multiply(d2));
+    }
+
+    /**
+     * Sets this to #this * ({@code n} / {@code d}) for a fraction n / d with
+     * d > 0 in lowest terms.
+     */
+    private void multiplyFraction(long n, long d){
+        if (this.NUMERATOR == null && this.denominator > 0) {
+            try {
+                long g1 = gcd(absExact(this.numerator), d);
+                long g2 = gcd(absExact(n), this.denominator);
+                this.setReduced(Math.multiplyExact(this.numerator / g1, n / g2),
+                        Math.multiplyExact(this.denominator / g2, d / g1));
+                return;
+            } catch (ArithmeticException overflow) {
+                // fall through to the BigInteger path
+            }
+        }
+        this.multiplyFraction(BigInteger.valueOf(n), BigInteger.valueOf(d));
+    }
+
+    /**
+     * Sets this to #this * ({@code n} / {@code d}) using BigInteger arithmetic.
+     */
+    private void multiplyFraction(BigInteger n, BigInteger d){
+        this.setReduced(this.getNumerator().multiply(n), this.getDenominator().multiply(d));
     }
 
 
     public void negate(){
-        this.NUMERATOR = this.NUMERATOR.negate();
+        if (this.NUMERATOR == null) {
+            this.numerator = -this.numerator;
+        } else {
+            this.NUMERATOR = this.NUMERATOR.negate();
+        }
     }
 
 
@@ -110,10 +307,7 @@ public class RationalNumber implements Comparable<RationalNumber>{
      *          the RationalNumber being added to this
      */
     public void add(RationalNumber b){
-        BigInteger lcmtemp = lcm(this.DENOMINATOR, b.getDenominator());
-        this.NUMERATOR = this.NUMERATOR.multiply(lcmtemp.divide(this.DENOMINATOR));
-        this.NUMERATOR = this.NUMERATOR.add(b.getNumerator().multiply(lcmtemp.divide(b.getDenominator())));
-        this.DENOMINATOR = lcmtemp;
+        this.addSigned(b, 1);
     }
 
     /**
@@ -125,7 +319,7 @@ public class RationalNumber implements Comparable<RationalNumber>{
      *          the BigInteger being added to this
      */
     public void add(BigInteger b){
-        this.NUMERATOR = this.NUMERATOR.add(b.multiply(this.DENOMINATOR));
+        this.addSigned(new RationalNumber(b), 1);
     }
 
     /**
@@ -137,10 +331,7 @@ public class RationalNumber implements Comparable<RationalNumber>{
      *          the RationalNumber being subtracted from this
      */
     public void subtract(RationalNumber b){
-        BigInteger lcmtemp = lcm(this.DENOMINATOR, b.getDenominator());
-        this.NUMERATOR = this.NUMERATOR.multiply(lcmtemp.divide(this.DENOMINATOR));
-        this.NUMERATOR = this.NUMERATOR.subtract(b.getNumerator().multiply(lcmtemp.divide(b.getDenominator())));
-        this.DENOMINATOR = lcmtemp;
+        this.addSigned(b, -1);
     }
 
     /**
@@ -152,7 +343,7 @@ public class RationalNumber implements Comparable<RationalNumber>{
      *          the BigInteger being subtracted from this
      */
     public void subtract(BigInteger b){
-        this.NUMERATOR = this.NUMERATOR.subtract(b.multiply(this.DENOMINATOR));
+        this.addSigned(new RationalNumber(b), -1);
     }
 
     /**
@@ -164,12 +355,11 @@ public class RationalNumber implements Comparable<RationalNumber>{
      *          the RationalNumber being multiplied to this
      */
     public void multiply(RationalNumber b){
-        BigInteger crossGCD = this.NUMERATOR.gcd(b.getDenominator()).multiply(this.DENOMINATOR.gcd(b.getNumerator()));
-        this.NUMERATOR = this.NUMERATOR.multiply(b.getNumerator());
-        this.NUMERATOR = this.NUMERATOR.divide(crossGCD);
-
-        this.DENOMINATOR = this.DENOMINATOR.multiply(b.getDenominator());
-        this.DENOMINATOR = this.DENOMINATOR.divide(crossGCD);
+        if (b.NUMERATOR == null && b.denominator > 0) {
+            this.multiplyFraction(b.numerator, b.denominator);
+        } else {
+            this.multiplyFraction(b.getNumerator(), b.getDenominator());
+        }
     }
 
     /**
@@ -181,9 +371,11 @@ public class RationalNumber implements Comparable<RationalNumber>{
      *          the BigInteger being multiplied to this
      */
     public void multiply(BigInteger b){
-        BigInteger GCD = b.gcd(this.DENOMINATOR);
-        this.DENOMINATOR = this.DENOMINATOR.divide(GCD);
-        this.NUMERATOR = this.NUMERATOR.multiply(b.divide(GCD));
+        if (fitsSmall(b)) {
+            this.multiplyFraction(b.longValue(), 1L);
+        } else {
+            this.multiplyFraction(b, BigInteger.ONE);
+        }
     }
     
 
@@ -196,32 +388,38 @@ public class RationalNumber implements Comparable<RationalNumber>{
      *          the RationalNumber being dividing this
      */
     public void divide(RationalNumber dividend){
-        BigInteger temp = new BigInteger(dividend.getDenominator().toByteArray());
-
-        dividend.setDenominator(dividend.getNumerator());
-        dividend.setNumerator(temp);
-        
-        this.multiply(dividend);
-
-        dividend.setNumerator(dividend.getDenominator());
-        dividend.setDenominator(temp);
+        if (dividend.NUMERATOR == null && dividend.denominator > 0
+                && dividend.numerator != 0) {
+            if (dividend.numerator > 0) {
+                this.multiplyFraction(dividend.denominator, dividend.numerator);
+            } else {
+                this.multiplyFraction(-dividend.denominator, -dividend.numerator);
+            }
+        } else {
+            this.multiplyFraction(dividend.getDenominator(), dividend.getNumerator());
+        }
     }
 
 
     /**
-     *  Instance method used to raise this to the power of {@code exponent}
+     *  Instance method used to raise this to the power of {@code exponent}.
+     *  Numerator and denominator are raised separately by repeated squaring;
+     *  powers of a reduced fraction are already reduced.
      * 
      * @param exponent
      *              the exponent of this
      * 
      * @return
-     *              this raised to the power of {@code exponent}
+     *              this raised to the power of {@code exponent}, or 1 if
+     *              {@code exponent} is not positive
      * 
      */
     public RationalNumber power(int exponent){
         RationalNumber answer = new RationalNumber(1);
-        for(int i = 0; i < exponent; i++){
-            answer.multiply(this);
+        if (exponent > 0) {
+            RationalNumber base = new RationalNumber(this);
+            base.reduce();
+            answer.setRaw(base.getNumerator().pow(exponent), base.getDenominator().pow(exponent));
         }
         return answer;
     }
@@ -234,7 +432,13 @@ public class RationalNumber implements Comparable<RationalNumber>{
      * 
      */
     public boolean isNegative(){
-        return (this.NUMERATOR.compareTo(BigInteger.ZERO) < 0);
+        boolean answer;
+        if (this.NUMERATOR == null) {
+            answer = (this.numerator < 0) != (this.denominator < 0) && this.numerator != 0;
+        } else {
+            answer = this.NUMERATOR.signum() * this.DENOMINATOR.signum() < 0;
+        }
+        return answer;
     }
 
     /**
@@ -245,7 +449,13 @@ public class RationalNumber implements Comparable<RationalNumber>{
      * 
      */
     public boolean isInteger(){
-        return (this.DENOMINATOR.compareTo(BigInteger.ONE) == 0);
+        boolean answer;
+        if (this.NUMERATOR == null) {
+            answer = (this.denominator == 1);
+        } else {
+            answer = (this.DENOMINATOR.compareTo(BigInteger.ONE) == 0);
+        }
+        return answer;
     }
 
 
@@ -257,8 +467,8 @@ public class RationalNumber implements Comparable<RationalNumber>{
      * @returns a new instance of RationalNumber with numeric value 0.
      */
     public RationalNumber(){
-        this.NUMERATOR = new BigInteger("0");
-        this.DENOMINATOR = new BigInteger("1");
+        this.numerator = 0;
+        this.denominator = 1;
     }
 
 
@@ -268,12 +478,15 @@ public class RationalNumber implements Comparable<RationalNumber>{
      * @returns a new instance of RationalNumber 
      */
     public RationalNumber (int a, int b){
-        BigInteger bigA = new BigInteger(""+a);
-        BigInteger bigB = new BigInteger(""+b);
-        BigInteger gcdAB = bigA.gcd(bigB);
-        this.NUMERATOR = bigA.divide(gcdAB);
-        this.DENOMINATOR = bigB.divide(gcdAB);
-        
+        this.setReduced((long) a, (long) b);
+    }
+
+    /**
+     * Constructor for the class RationalNumber with numeric value initialized to {@code a} / {@code b},
+     * in lowest terms.
+     */
+    RationalNumber (long a, long b){
+        this.setReduced(a, b);
     }
 
      /**
@@ -282,9 +495,7 @@ public class RationalNumber implements Comparable<RationalNumber>{
      * @returns a new instance of RationalNumber 
      */
     public RationalNumber (BigInteger a, BigInteger b){
-        BigInteger gcdAB = a.gcd(b);
-        this.NUMERATOR = (new BigInteger(a.toByteArray())).divide(gcdAB);
-        this.DENOMINATOR = (new BigInteger(b.toByteArray())).divide(gcdAB);
+        this.setReduced(a, b);
     }
 
 
@@ -294,8 +505,8 @@ public class RationalNumber implements Comparable<RationalNumber>{
      * @returns a new instance of RationalNumber 
      */
     public RationalNumber (int a){
-        this.NUMERATOR = new BigInteger(""+a);
-        this.DENOMINATOR = new BigInteger("1");
+        this.numerator = a;
+        this.denominator = 1;
     }
 
      /**
@@ -304,8 +515,7 @@ public class RationalNumber implements Comparable<RationalNumber>{
      * @returns a new instance of RationalNumber 
      */
     public RationalNumber (BigInteger a){
-        this.NUMERATOR = new BigInteger(a.toByteArray());
-        this.DENOMINATOR = new BigInteger("1");
+        this.setRaw(a, BigInteger.ONE);
     }
 
      /**
@@ -314,8 +524,10 @@ public class RationalNumber implements Comparable<RationalNumber>{
      * @returns a new instance of RationalNumber 
      */
     public RationalNumber (RationalNumber a){
-        this.NUMERATOR = new BigInteger(a.getNumerator().toByteArray());
-        this.DENOMINATOR = new BigInteger(a.getDenominator().toByteArray());
+        this.numerator = a.numerator;
+        this.denominator = a.denominator;
+        this.NUMERATOR = a.NUMERATOR;
+        this.DENOMINATOR = a.DENOMINATOR;
     }
 
      /**
@@ -325,21 +537,101 @@ public class RationalNumber implements Comparable<RationalNumber>{
      */
     @Override
     public RationalNumber clone(){
-        return new RationalNumber(this.NUMERATOR, this.DENOMINATOR);
+        return new RationalNumber(this);
     }
 
 
      /**
-     * Method inherited from java.lang.Object used to check equivalency between instances of RationalNumber
+     * Method inherited from java.lang.Object used to check equivalency between instances of RationalNumber.
+     * Values are compared, so 2 / 4 equals 1 / 2.
      *  
-     * @returns true if $this = {@code a}
+     * @returns true if {@code o} is a RationalNumber and $this = {@code o}
      */
-    public boolean equals(RationalNumber a){
-        boolean equals = false;
-        if(this.NUMERATOR.equals(a.getNumerator()) && this.DENOMINATOR.equals(a.getDenominator())){
-            equals = true;
+    @Override
+    public boolean equals(Object o){
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RationalNumber)) {
+            return false;
+        }
+        RationalNumber a = (RationalNumber) o;
+        if (this.NUMERATOR == null && a.NUMERATOR == null) {
+            if (this.numerator == a.numerator && this.denominator == a.denominator) {
+                return true;
+            }
+            try {
+                return Math.multiplyExact(this.numerator, a.denominator)
+                        == Math.multiplyExact(a.numerator, this.denominator);
+            } catch (ArithmeticException overflow) {
+                // fall through to the BigInteger path
+            }
         }
-        return equals;  
+        BigInteger n1 = this.getNumerator();
+        BigInteger d1 = this.getDenominator();
+        BigInteger n2 = a.getNumerator();
+        BigInteger d2 = a.getDenominator();
+        if (n1.equals(n2) && d1.equals(d2)) {
+            return true;
+        }
+        if (n1.signum() * d1.signum() != n2.signum() * d2.signum()) {
+            return false;
+        }
+        return n1.multiply(d2).equals(n2.multiply(d1));
+    }
+
+    /**
+     * Method inherited from java.lang.Object, consistent with {@code equals}.
+     *  
+     * @returns the hash code of this
+     */
+    @Override
+    public int hashCode(){
+        long f = this.fingerprint();
+        return (int) (f ^ (f >>> 32));
+    }
+
+    /**
+     *  Instance method used to get a 64-bit hash of the value of this, the same
+     *  for every representation of that value.
+     * 
+     * @return
+     *             the hash of this in lowest terms with a positive denominator
+     * 
+     */
+    public long fingerprint(){
+        long n = this.numerator;
+        long d = this.denominator;
+        if (this.NUMERATOR != null || n == Long.MIN_VALUE || d == Long.MIN_VALUE) {
+            RationalNumber reduced = new RationalNumber(this.getNumerator(), this.getDenominator());
+            if (reduced.NUMERATOR != null) {
+                return mix(mix(reduced.NUMERATOR.longValue() ^ reduced.NUMERATOR.hashCode())
+                        + 0x9E3779B97F4A7C15L * reduced.DENOMINATOR.longValue()
+                        + reduced.DENOMINATOR.hashCode());
+            }
+            n = reduced.numerator;
+            d = reduced.denominator;
+        } else {
+            if (d < 0) {
+                n = -n;
+                d = -d;
+            }
+            long g = gcd(Math.abs(n), d);
+            if (g > 1) {
+                n /= g;
+                d /= g;
+            }
+        }
+        return mix(mix(n) + 0x9E3779B97F4A7C15L * d);
+    }
+
+    /**
+     * Finalization step of SplitMix64.
+     */
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
     /**
@@ -349,7 +641,19 @@ public class RationalNumber implements Comparable<RationalNumber>{
      */
     @Override
     public int compareTo(final RationalNumber a){
-        return this.NUMERATOR.multiply(a.getDenominator()).compareTo(this.DENOMINATOR.multiply(a.getNumerator()));
+        if (this.NUMERATOR == null && a.NUMERATOR == null
+                && this.denominator > 0 && a.denominator > 0) {
+            if (this.denominator == a.denominator) {
+                return Long.compare(this.numerator, a.numerator);
+            }
+            try {
+                return Long.compare(Math.multiplyExact(this.numerator, a.denominator),
+                        Math.multiplyExact(this.denominator, a.numerator));
+            } catch (ArithmeticException overflow) {
+                // fall through to the BigInteger path
+            }
+        }
+        return this.getNumerator().multiply(a.getDenominator()).compareTo(this.getDenominator().multiply(a.getNumerator()));
 
     }
 
@@ -361,7 +665,15 @@ public class RationalNumber implements Comparable<RationalNumber>{
     @Override
     public String toString(){
         String stringRep;
-        if(this.NUMERATOR.equals(BigInteger.ZERO)){
+        if (this.NUMERATOR == null) {
+            if (this.numerator == 0) {
+                stringRep = "0";
+            } else if (this.denominator == 1) {
+                stringRep = Long.toString(this.numerator);
+            } else {
+                stringRep = this.numerator + " / " + this.denominator;
+            }
+        } else if(this.NUMERATOR.equals(BigInteger.ZERO)){
             stringRep = "0";
         }else if(this.DENOMINATOR.equals(BigInteger.ONE)){
             stringRep = this.NUMERATOR.toString();